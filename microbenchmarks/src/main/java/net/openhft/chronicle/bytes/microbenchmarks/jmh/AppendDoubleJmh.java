@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.microbenchmarks.jmh;
+
+import net.openhft.chronicle.bytes.Bytes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending market data style prices and values with the full 17 digits, compared with Double.toString plus a copy.
+ */
+public class AppendDoubleJmh {
+
+    static final double[] PRICES = {
+            1.23455, 101.125, 0.00012345, 12345.6789, 99.99,
+            1.0842, 4321.5, 0.5, 157.321, 20.01,
+            1.2345678901234567, 0.1 + 0.2, 6.02214076e23, 1.6e-19, 9007199254740993.0};
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AppendDoubleJmh.class.getSimpleName())
+                .forks(1)
+                .build()).run();
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        final Bytes<Void> direct = Bytes.allocateElasticDirect(1024);
+        final Bytes<byte[]> onHeap = Bytes.allocateElasticOnHeap(1024);
+
+        @TearDown
+        public void tearDown() {
+            direct.releaseLast();
+            onHeap.releaseLast();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void appendDouble_direct(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct.clear();
+        for (double price : PRICES)
+            bytes.append(price).append(' ');
+        blackhole.consume(bytes.writePosition());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void appendDouble_onHeap(final Blackhole blackhole, final TestState state) {
+        Bytes<byte[]> bytes = state.onHeap.clear();
+        for (double price : PRICES)
+            bytes.append(price).append(' ');
+        blackhole.consume(bytes.writePosition());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void appendDouble_viaString(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct.clear();
+        for (double price : PRICES)
+            bytes.append(Double.toString(price)).append(' ');
+        blackhole.consume(bytes.writePosition());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void appendFloat_direct(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct.clear();
+        for (double price : PRICES)
+            bytes.append((float) price).append(' ');
+        blackhole.consume(bytes.writePosition());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.microbenchmarks.jmh;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.StopCharTesters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing market data style prices, short fixed point prices, long mantissas and exponents.
+ */
+public class ParseDoubleJmh {
+
+    static final String[] PRICES = {
+            "1.23455", "101.125", "0.00012345", "12345.6789", "99.99",
+            "1.0842", "4321.5", "0.5", "157.321", "20.01",
+            "1.2345678901234567", "0.30000000000000004", "6.02214076e23", "1.6e-19", "9007199254740993"};
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ParseDoubleJmh.class.getSimpleName())
+                .forks(1)
+                .build()).run();
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        final Bytes<Void> direct = Bytes.allocateElasticDirect(256);
+        final Bytes<byte[]> onHeap = Bytes.allocateElasticOnHeap(256);
+
+        public TestState() {
+            for (String price : PRICES) {
+                direct.append(price).append(' ');
+                onHeap.append(price).append(' ');
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            direct.releaseLast();
+            onHeap.releaseLast();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void parseDouble_direct(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct;
+        bytes.readPosition(0);
+        while (bytes.readRemaining() > 0)
+            blackhole.consume(bytes.parseDouble());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void parseDouble_onHeap(final Blackhole blackhole, final TestState state) {
+        Bytes<byte[]> bytes = state.onHeap;
+        bytes.readPosition(0);
+        while (bytes.readRemaining() > 0)
+            blackhole.consume(bytes.parseDouble());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void parseDouble_viaString(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct;
+        bytes.readPosition(0);
+        while (bytes.readRemaining() > 0)
+            blackhole.consume(Double.parseDouble(bytes.parse8bit(StopCharTesters.SPACE_STOP)));
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(15)
+    public void parseDouble_String(final Blackhole blackhole) {
+        for (String price : PRICES)
+            blackhole.consume(Double.parseDouble(price));
+    }
+}
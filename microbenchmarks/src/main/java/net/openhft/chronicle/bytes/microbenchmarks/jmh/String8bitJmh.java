@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.microbenchmarks.jmh;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating Latin-1 Strings from Bytes, compared with widening to a char[] first as this was done previously.
+ */
+public class String8bitJmh {
+
+    static final String TEXT = "8=FIX.4.4|9=178|35=D|49=SENDER_COMP_ID|56=TARGET_COMP_ID|34=12|52=20230101-12:30:45.123|" +
+            "11=ORDER-123456|21=1|55=EUR/USD|54=1|60=20230101-12:30:45.123|38=1000000|40=2|44=1.08425|10=128|";
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(String8bitJmh.class.getSimpleName())
+                .forks(1)
+                .build()).run();
+    }
+
+    @State(Scope.Thread)
+    public static class TestState {
+        final Bytes<Void> direct = Bytes.allocateElasticDirect(256);
+        final Bytes<byte[]> onHeap = Bytes.allocateElasticOnHeap(256);
+        final Bytes<Void> direct8bit = Bytes.allocateElasticDirect(256);
+
+        public TestState() {
+            direct.append8bit(TEXT);
+            onHeap.append8bit(TEXT);
+            direct8bit.write8bit(TEXT);
+        }
+
+        @TearDown
+        public void tearDown() {
+            direct.releaseLast();
+            onHeap.releaseLast();
+            direct8bit.releaseLast();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void to8bitString_direct(final Blackhole blackhole, final TestState state) {
+        blackhole.consume(state.direct.to8bitString());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void to8bitString_onHeap(final Blackhole blackhole, final TestState state) {
+        blackhole.consume(state.onHeap.to8bitString());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void to8bitString_viaChars(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct;
+        int length = (int) bytes.readRemaining();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) bytes.readUnsignedByte(i);
+        blackhole.consume(StringUtils.newString(chars));
+    }
+
+    // the String interner holds this text, so this is mostly the cost of the lookup
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void read8bit_direct(final Blackhole blackhole, final TestState state) {
+        Bytes<Void> bytes = state.direct8bit;
+        bytes.readPosition(0);
+        blackhole.consume(bytes.read8bit());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.bytes.internal.BytesMethodWriterGenerator;
+import net.openhft.chronicle.core.io.SimpleCloseable;
+import net.openhft.chronicle.core.util.Annotations;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.bytes.internal.ReferenceCountedUtil.throwExceptionIfReleased;
+
+/**
+ * A method writer which buffers the messages written by each thread and writes them to the target as one block.
+ * <p>
+ * A block is the stop bit {@link #BATCH_MESSAGE_ID}, the stop bit length of the messages and then the messages as a
+ * {@link BytesOut#bytesMethodWriter(Class, Class[])} would write them, so a {@link BytesMethodReader} reads each
+ * message in turn as though they were not batched. When the target is published per write, e.g. with a header, the
+ * cost is paid once per block rather than once per message.
+ * <p>
+ * A block is written when it reaches {@link #maxMessages(int)}, {@link #maxBytes(int)} or is older than
+ * {@link #maxDelay(long, TimeUnit)} after a message is written, or when {@link #flush()} is called by the thread which
+ * wrote the messages. As the budgets are only checked when a message is written, call flush() when there is nothing
+ * more to write.
+ * <pre>{@code
+ * BatchingBytesMethodWriter<Prices> batching = new BatchingBytesMethodWriter<>(Prices.class, bytes).maxMessages(32);
+ * Prices prices = batching.writer();
+ * prices.onPrice(id, price);
+ * batching.flush();
+ * }</pre>
+ * Each thread has its own buffer, writing blocks to the target is synchronized. {@link #close()} writes the messages
+ * buffered by every thread, after which a writer throws an IllegalStateException. Only the buffers holding messages
+ * are retained for close(), so the buffer of a thread which has flushed is freed with the thread.
+ */
+public class BatchingBytesMethodWriter<T> extends SimpleCloseable {
+    /**
+     * The message id of a block of messages
+     */
+    public static final long BATCH_MESSAGE_ID = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final Class<T> tClass;
+    private final BytesOut<?> target;
+    private final ThreadLocal<Batch> batchTL = ThreadLocal.withInitial(Batch::new);
+    // the buffers with messages not yet flushed
+    private final Set<Batch> batches = ConcurrentHashMap.newKeySet();
+    private int maxMessages = 64;
+    private int maxBytes = 64 << 10;
+    private long maxDelayNS = Long.MAX_VALUE;
+
+    /**
+     * @param tClass the interface of the writer
+     * @param target to write the blocks to
+     */
+    public BatchingBytesMethodWriter(@NotNull Class<T> tClass, @NotNull BytesOut<?> target) {
+        throwExceptionIfReleased(target);
+        this.tClass = tClass;
+        this.target = target;
+    }
+
+    /**
+     * @param maxMessages the most messages in a block, 64 by default
+     * @return this
+     */
+    public BatchingBytesMethodWriter<T> maxMessages(int maxMessages) {
+        if (maxMessages < 1)
+            throw new IllegalArgumentException("maxMessages must be positive, was " + maxMessages);
+        this.maxMessages = maxMessages;
+        return this;
+    }
+
+    /**
+     * @param maxBytes the size at which a block is written, 64 KiB by default
+     * @return this
+     */
+    public BatchingBytesMethodWriter<T> maxBytes(int maxBytes) {
+        if (maxBytes < 1)
+            throw new IllegalArgumentException("maxBytes must be positive, was " + maxBytes);
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * @param maxDelay the age of the first message at which a block is written, no limit by default
+     * @param timeUnit of the maxDelay
+     * @return this
+     */
+    public BatchingBytesMethodWriter<T> maxDelay(long maxDelay, @NotNull TimeUnit timeUnit) {
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("maxDelay cannot be negative, was " + maxDelay);
+        this.maxDelayNS = timeUnit.toNanos(maxDelay);
+        return this;
+    }
+
+    /**
+     * @return the writer for the current thread
+     */
+    @NotNull
+    public T writer() {
+        throwExceptionIfClosed();
+        return batchTL.get().writer;
+    }
+
+    /**
+     * Writes the messages buffered by the current thread to the target
+     *
+     * @return the number of messages written
+     */
+    public int flush() {
+        throwExceptionIfClosed();
+        return flush(batchTL.get());
+    }
+
+    private int flush(Batch batch) {
+        // the lock is uncontended unless closing
+        synchronized (batch) {
+            batches.remove(batch);
+            int count = batch.count;
+            if (count == 0)
+                return 0;
+            Bytes<?> buffer = batch.buffer;
+            synchronized (this) {
+                target.writeStopBit(BATCH_MESSAGE_ID);
+                target.writeStopBit(batch.end);
+                // only the messages completed, not one another thread is part way through writing
+                target.write(buffer, 0, batch.end);
+            }
+            buffer.clear();
+            batch.count = 0;
+            batch.end = 0;
+            return count;
+        }
+    }
+
+    /**
+     * Flushes the messages of all threads. The buffers are on the heap, so are freed with their threads.
+     */
+    @Override
+    protected void performClose() {
+        // a Batch is added before it checks this is closed, so any with a message accepted before close() are here
+        for (Batch batch : batches)
+            flush(batch);
+    }
+
+    private final class Batch implements Runnable {
+        final Bytes<?> buffer = Bytes.allocateElasticOnHeap(INITIAL_CAPACITY);
+        final T writer;
+        int count;
+        // the end of the last message completed
+        long end;
+        long firstNS;
+
+        Batch() {
+            T generated = BytesMethodWriterGenerator.newInstance(tClass, new Class[0], buffer, this);
+            writer = generated != null ? generated : proxy();
+        }
+
+        @SuppressWarnings("unchecked")
+        private T proxy() {
+            InvocationHandler handler = new BinaryBytesMethodWriterInvocationHandler(tClass, MethodEncoderLookup.BY_ANNOTATION, buffer);
+            // the methods MethodEncoderLookup.BY_ANNOTATION writes a message for
+            Set<Method> messages = new HashSet<>();
+            for (Method method : tClass.getMethods())
+                if (Annotations.getAnnotation(method, MethodId.class) != null)
+                    messages.add(method);
+            return (T) Proxy.newProxyInstance(tClass.getClassLoader(), new Class[]{tClass}, (proxy, method, args) -> {
+                Object result = handler.invoke(proxy, method, args);
+                if (messages.contains(method))
+                    run();
+                return result;
+            });
+        }
+
+        /**
+         * Called after each message
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (count == 0)
+                    batches.add(this);
+                // checked while holding the lock so a message after close() has flushed this buffer is not lost
+                throwExceptionIfClosed();
+                end = buffer.writePosition();
+                if (count++ == 0) {
+                    if (maxDelayNS != Long.MAX_VALUE)
+                        firstNS = System.nanoTime();
+                } else if (maxDelayNS != Long.MAX_VALUE && System.nanoTime() - firstNS >= maxDelayNS) {
+                    flush(this);
+                    return;
+                }
+                if (count >= maxMessages || end >= maxBytes)
+                    flush(this);
+            }
+        }
+    }
+}
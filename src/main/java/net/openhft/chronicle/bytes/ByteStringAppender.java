@@ -19,6 +19,7 @@ package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.bytes.internal.ByteStringWriter;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
+import net.openhft.chronicle.bytes.util.MutableDecimal;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.io.IORuntimeException;
@@ -29,6 +30,7 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Methods to append text to a Bytes. This extends the Appendable interface.
@@ -174,7 +176,22 @@ public interface ByteStringAppender<B extends ByteStringAppender<B>> extends Str
     }
 
     /**
-     * Appends a float in decimal notation
+     * Appends a fixed point decimal with exactly its number of decimal places
+     *
+     * @param decimal to append
+     * @return this
+     * @throws BufferOverflowException if the relative append operation exceeds the underlying buffer's capacity
+     * @throws IllegalStateException   if the underlying Bytes was closed
+     */
+    @NotNull
+    default B appendDecimal(@NotNull MutableDecimal decimal)
+            throws BufferOverflowException, IllegalStateException {
+        BytesInternal.appendDecimal(this, decimal.mantissa(), decimal.scale());
+        return (B) this;
+    }
+
+    /**
+     * Appends a float in decimal notation, using the fewest digits which parse back to the same float
      *
      * @param f the float number to append
      * @return  this
@@ -184,17 +201,12 @@ public interface ByteStringAppender<B extends ByteStringAppender<B>> extends Str
     @NotNull
     default B append(float f)
             throws BufferOverflowException, IllegalStateException {
-        float f2 = Math.abs(f);
-        if (f2 > 1e6 || f2 < 1e-3) {
-            return append(Float.toString(f));
-        }
-        int precision = (int) Math.floor(6 - Math.log10(f2));
-        long tens = Maths.tens(precision);
-        return append((double) Math.round(f * tens) / tens);
+        BytesInternal.append(this, f);
+        return (B) this;
     }
 
     /**
-     * Appends a double in decimal notation
+     * Appends a double in decimal notation, using the fewest digits which parse back to the same double
      *
      * @param d to append
      * @return this
@@ -404,6 +416,44 @@ public interface ByteStringAppender<B extends ByteStringAppender<B>> extends Str
         return (B) this;
     }
 
+    /**
+     * Appends a UTC date and time in ISO-8601 format, e.g. 2003-10-20T03:25:45.678Z, without creating objects.
+     * <p>
+     * The number of fractional digits is 0, 3, 6 or 9 for a time in seconds, millis, micros or nanos.
+     *
+     * @param time since the epoch
+     * @param unit of the time, SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     * @return this
+     * @throws BufferOverflowException  if the relative append operation exceeds the underlying buffer's capacity
+     * @throws IllegalStateException    if the underlying Bytes is closed
+     * @throws IllegalArgumentException if the unit is not supported
+     */
+    @NotNull
+    default B appendIsoDateTime(long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        BytesInternal.appendIsoDateTime(this, time, unit);
+        return (B) this;
+    }
+
+    /**
+     * Appends a FIX UTCTimestamp, e.g. 20031020-03:25:45.678, without creating objects.
+     * <p>
+     * The number of fractional digits is 0, 3, 6 or 9 for a time in seconds, millis, micros or nanos.
+     *
+     * @param time since the epoch
+     * @param unit of the time, SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     * @return this
+     * @throws BufferOverflowException  if the relative append operation exceeds the underlying buffer's capacity
+     * @throws IllegalStateException    if the underlying Bytes is closed
+     * @throws IllegalArgumentException if the unit is not supported
+     */
+    @NotNull
+    default B appendFixTimestamp(long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        BytesInternal.appendFixTimestamp(this, time, unit);
+        return (B) this;
+    }
+
     /**
      * Appends a string representation of a specified BigDecimal to this.
      * <p>
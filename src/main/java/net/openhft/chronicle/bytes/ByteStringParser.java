@@ -19,6 +19,7 @@ package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.bytes.internal.ByteStringReader;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
+import net.openhft.chronicle.bytes.util.MutableDecimal;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import org.jetbrains.annotations.NotNull;
@@ -28,6 +29,7 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Supports parsing bytes as text.  You can parse them as special or white space terminated text.
@@ -219,6 +221,54 @@ public interface ByteStringParser<B extends ByteStringParser<B>> extends Streami
         return BytesInternal.parseLongDecimal(this);
     }
 
+    /**
+     * Parse text as a fixed point decimal into a reusable holder without creating objects. The terminating character is consumed.
+     * <p>
+     * Trailing zeros after the decimal point are kept in the scale, e.g. 1.50 has a mantissa of 150 and a scale of 2,
+     * unless there are too many digits for a long mantissa.
+     *
+     * @param using to hold the result
+     * @return using
+     * @throws ArithmeticException if the significant digits don't fit in a long
+     */
+    @NotNull
+    default MutableDecimal parseDecimal(@NotNull MutableDecimal using)
+            throws BufferUnderflowException, IllegalStateException, ArithmeticException {
+        BytesInternal.parseDecimal(this, using);
+        return using;
+    }
+
+    /**
+     * Parse a date and time in ISO-8601 format, e.g. 2003-10-20T03:25:45.678Z. The terminating character is consumed.
+     * <p>
+     * The seconds, fraction and zone are optional, a missing zone is taken as UTC and a zone offset such as +01:00
+     * is applied. Fractional digits beyond the precision of the unit are truncated.
+     *
+     * @param unit of the time to return, SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     * @return the time since the epoch
+     * @throws IORuntimeException       if the text is not a valid date and time
+     * @throws IllegalArgumentException if the unit is not supported
+     */
+    default long parseIsoDateTime(@NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        return BytesInternal.parseIsoDateTime(this, unit);
+    }
+
+    /**
+     * Parse a FIX UTCTimestamp, e.g. 20031020-03:25:45.678. The terminating character is consumed.
+     * <p>
+     * The fraction is optional and may have any number of digits, those beyond the precision of the unit are truncated.
+     *
+     * @param unit of the time to return, SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     * @return the time since the epoch
+     * @throws IORuntimeException       if the text is not a valid timestamp
+     * @throws IllegalArgumentException if the unit is not supported
+     */
+    default long parseFixTimestamp(@NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        return BytesInternal.parseFixTimestamp(this, unit);
+    }
+
     /**
      * @return the last number of decimal places for parseDouble or parseLongDecimal
      */
@@ -17,6 +17,7 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesFieldInfo;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.ClassLocal;
 import net.openhft.chronicle.core.Jvm;
@@ -29,23 +30,136 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.*;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
 import java.util.*;
 import java.util.function.Supplier;
 
+import static net.openhft.chronicle.core.UnsafeMemory.UNSAFE;
+
+/**
+ * Reads and writes the non-static, non-transient fields of a class, in the order they are declared starting with the
+ * super class, as the default implementation of {@link BytesMarshallable}.
+ * <p>
+ * Each field has an accessor chosen for its type once per class. Fields are read and written at their offset in the
+ * object, so primitives are copied directly without boxing or the access checks of {@link Field#get(Object)}.
+ * <p>
+ * With {@code -Dbytes.marshaller.bulk-copy=true}, or the {@link #BytesMarshaller(Class, boolean)} constructor, the
+ * trivially copyable primitive fields found by {@link BytesUtil#triviallyCopyableRange(Class)} are written first as
+ * one block, preceded by a fingerprint of their layout, and the remaining fields follow one at a time. As this block
+ * is in the memory layout of the JVM, a reader with a different layout fails with an {@link IORuntimeException}
+ * rather than reading the fields incorrectly.
+ * <p>
+ * A class with {@link FieldId} fields is written in a tagged form instead, so fields can be added or removed. This is
+ * the stop bit encoded number of fields, then for each field a stop bit tag of {@code id << 3 | wireType} followed by
+ * the same encoding of the value as the positional form. A value which isn't a fixed size primitive or a stop bit char
+ * is preceded by its length as an int. Fields are expected in declaration order, and an unknown tag is skipped.
+ * A field missing from the message is reset to zero or null.
+ */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class BytesMarshaller<T> {
     public static final ClassLocal<BytesMarshaller> BYTES_MARSHALLER_CL
             = ClassLocal.withInitial(BytesMarshaller::new);
+    private static final boolean BULK_COPY = Jvm.getBoolean("bytes.marshaller.bulk-copy");
+    private static final int WIRE_BYTE = 0;
+    private static final int WIRE_SHORT = 1;
+    private static final int WIRE_INT = 2;
+    private static final int WIRE_LONG = 3;
+    private static final int WIRE_STOP_BIT = 4;
+    private static final int WIRE_LENGTH = 5;
     private final FieldAccess[] fields;
+    // null unless the class has FieldIds
+    @Nullable
+    private final TaggedField[] tagged;
+    private final int bulkStart;
+    // zero if the fields are all copied one at a time
+    private final int bulkLength;
+    private final int bulkFingerprint;
+    private final String bulkDescription;
 
     public BytesMarshaller(@NotNull Class<T> tClass) {
+        this(tClass, BULK_COPY);
+    }
+
+    /**
+     * @param tClass   to marshall
+     * @param bulkCopy whether to copy the trivially copyable fields as one block where there are at least two
+     */
+    public BytesMarshaller(@NotNull Class<T> tClass, boolean bulkCopy) {
         final Map<String, Field> map = new LinkedHashMap<>();
         getAllField(tClass, map);
+        tagged = taggedFields(tClass, map.values());
+        final List<Field> bulk = bulkCopy && tagged == null ? bulkFields(tClass, map.values()) : Collections.emptyList();
+        if (bulk.isEmpty()) {
+            bulkStart = 0;
+            bulkLength = 0;
+            bulkFingerprint = 0;
+            bulkDescription = null;
+        } else {
+            final int[] range = BytesUtil.triviallyCopyableRange(tClass);
+            bulkStart = range[0];
+            bulkLength = range[1] - range[0];
+            int fingerprint = bulkLength * 31 + ByteOrder.nativeOrder().toString().hashCode();
+            final StringJoiner description = new StringJoiner(", ");
+            for (Field field : bulk) {
+                fingerprint = fingerprint * 31 + field.getName().hashCode();
+                fingerprint = fingerprint * 31 + field.getType().getName().hashCode();
+                fingerprint = fingerprint * 31 + (int) (UNSAFE.objectFieldOffset(field) - bulkStart);
+                description.add(field.getName());
+            }
+            bulkFingerprint = fingerprint;
+            bulkDescription = description.toString();
+        }
         fields = map.values().stream()
+                .filter(field -> !bulk.contains(field))
                 .map(FieldAccess::create)
                 .toArray(FieldAccess[]::new);
     }
 
+    /**
+     * @return the marshalled fields in the trivially copyable range in offset order, or an empty list if the range
+     * can't be copied as a block, e.g. as it includes a transient field
+     */
+    @NotNull
+    private static List<Field> bulkFields(@NotNull Class<?> tClass, @NotNull Collection<Field> marshalled) {
+        final int[] range;
+        try {
+            range = BytesUtil.triviallyCopyableRange(tClass);
+        } catch (UnsupportedOperationException e) {
+            return Collections.emptyList();
+        }
+        if (range.length < 2 || range[1] <= range[0])
+            return Collections.emptyList();
+        final List<Field> bulk = new ArrayList<>();
+        for (Field field : BytesFieldInfo.fields(tClass)) {
+            final long offset = UNSAFE.objectFieldOffset(field);
+            if (offset < range[0] || offset >= range[1])
+                continue;
+            if (!field.getType().isPrimitive() || !marshalled.contains(field))
+                return Collections.emptyList();
+            bulk.add(field);
+        }
+        return bulk.size() < 2 ? Collections.emptyList() : bulk;
+    }
+
+    @Nullable
+    private static TaggedField[] taggedFields(@NotNull Class<?> tClass, @NotNull Collection<Field> marshalled) {
+        if (marshalled.stream().noneMatch(field -> field.isAnnotationPresent(FieldId.class)))
+            return null;
+        final TaggedField[] tagged = new TaggedField[marshalled.size()];
+        final Set<Integer> ids = new HashSet<>();
+        int i = 0;
+        for (Field field : marshalled) {
+            final FieldId fieldId = field.getAnnotation(FieldId.class);
+            if (fieldId == null)
+                throw new IllegalArgumentException("All the fields of " + tClass.getName() + " need a FieldId, " + field.getName() + " has none");
+            if (fieldId.value() <= 0 || !ids.add(fieldId.value()))
+                throw new IllegalArgumentException("The FieldId of " + field.getName() + " in " + tClass.getName() + " must be positive and unique, was " + fieldId.value());
+            tagged[i] = new TaggedField(i, fieldId.value(), (FieldAccess) FieldAccess.create(field));
+            i++;
+        }
+        return tagged;
+    }
+
     public static void getAllField(@NotNull Class clazz, @NotNull Map<String, Field> map) {
         if (clazz != Object.class)
             getAllField(clazz.getSuperclass(), map);
@@ -58,6 +172,17 @@ public class BytesMarshaller<T> {
     }
 
     public void readMarshallable(ReadBytesMarshallable t, BytesIn<?> in) {
+        if (tagged != null) {
+            readTagged(t, in);
+            return;
+        }
+        if (bulkLength > 0) {
+            final int fingerprint = in.readInt();
+            if (fingerprint != bulkFingerprint)
+                throw new IORuntimeException("Field layout of " + t.getClass().getName() + " does not match, expected fingerprint "
+                        + Integer.toHexString(bulkFingerprint) + " but was " + Integer.toHexString(fingerprint));
+            in.unsafeReadObject(t, bulkStart, bulkLength);
+        }
         for (@NotNull FieldAccess field : fields) {
             field.read(t, in);
         }
@@ -66,17 +191,163 @@ public class BytesMarshaller<T> {
     public void writeMarshallable(WriteBytesMarshallable t, BytesOut<?> out)
             throws IllegalArgumentException, IllegalStateException, BufferOverflowException, BufferUnderflowException, ArithmeticException {
         out.adjustHexDumpIndentation(+1);
+        if (tagged != null) {
+            out.writeStopBit(tagged.length);
+            for (TaggedField field : tagged)
+                field.write(t, out);
+
+        } else if (bulkLength > 0) {
+            out.writeHexDumpDescription(bulkDescription);
+            out.writeInt(bulkFingerprint);
+            out.unsafeWriteObject(t, bulkStart, bulkLength);
+        }
         for (@NotNull FieldAccess field : fields) {
             field.write(t, out);
         }
         out.adjustHexDumpIndentation(-1);
     }
 
+    private void readTagged(Object t, BytesIn<?> in) {
+        final long count = in.readStopBit();
+        // the common case of all the fields in order, without looking up each tag
+        int next = 0;
+        for (long i = 0; i < count; i++) {
+            final long tag = in.readStopBit();
+            if (next == tagged.length || tagged[next].tag != tag) {
+                readTaggedOutOfOrder(t, in, tag, count - i - 1, next);
+                return;
+            }
+            tagged[next++].read(t, in);
+        }
+        for (int i = next; i < tagged.length; i++)
+            tagged[i].access.reset(t);
+    }
+
+    private void readTaggedOutOfOrder(Object t, BytesIn<?> in, long tag, long remaining, int next) {
+        final boolean[] read = new boolean[tagged.length];
+        Arrays.fill(read, 0, next, true);
+        while (true) {
+            TaggedField field = null;
+            for (TaggedField f : tagged) {
+                if (f.tag == tag) {
+                    field = f;
+                    break;
+                }
+            }
+            if (field == null) {
+                skip(in, (int) (tag & 7));
+            } else {
+                field.read(t, in);
+                read[field.index] = true;
+            }
+            if (remaining-- <= 0)
+                break;
+            tag = in.readStopBit();
+        }
+        for (int i = 0; i < tagged.length; i++)
+            if (!read[i])
+                tagged[i].access.reset(t);
+    }
+
+    private static void skip(BytesIn<?> in, int wireType) {
+        switch (wireType) {
+            case WIRE_BYTE:
+                in.readByte();
+                break;
+            case WIRE_SHORT:
+                in.readShort();
+                break;
+            case WIRE_INT:
+                in.readInt();
+                break;
+            case WIRE_LONG:
+                in.readLong();
+                break;
+            case WIRE_STOP_BIT:
+                in.readStopBit();
+                break;
+            case WIRE_LENGTH:
+                in.readSkip(in.readInt());
+                break;
+            default:
+                throw new IORuntimeException("Unknown wire type " + wireType);
+        }
+    }
+
+    static final class TaggedField {
+        final int index;
+        final long tag;
+        final int wireType;
+        final FieldAccess access;
+
+        TaggedField(int index, int id, @NotNull FieldAccess access) {
+            this.index = index;
+            this.wireType = wireType(access.field.getType());
+            this.tag = (long) id << 3 | wireType;
+            this.access = access;
+        }
+
+        private static int wireType(Class<?> type) {
+            switch (type.getName()) {
+                case "boolean":
+                case "byte":
+                    return WIRE_BYTE;
+                case "short":
+                    return WIRE_SHORT;
+                case "int":
+                case "float":
+                    return WIRE_INT;
+                case "long":
+                case "double":
+                    return WIRE_LONG;
+                case "char":
+                    return WIRE_STOP_BIT;
+                default:
+                    return WIRE_LENGTH;
+            }
+        }
+
+        void write(Object o, BytesOut<?> out) {
+            out.writeHexDumpDescription(access.field.getName());
+            out.writeStopBit(tag);
+            if (wireType != WIRE_LENGTH) {
+                access.getValue(o, out);
+                return;
+            }
+            if (out instanceof RandomDataOutput) {
+                final long position = out.writePosition();
+                out.writeInt(0);
+                access.getValue(o, out);
+                final long length = out.lengthWritten(position) - 4;
+                ((RandomDataOutput<?>) out).writeInt(position, Maths.toInt32(length));
+                return;
+            }
+            // the length can't be written once the value is known, so the value is written to a buffer first
+            final Bytes<?> buffer = Bytes.allocateElasticOnHeap();
+            try {
+                access.getValue(o, buffer);
+                out.writeInt(Maths.toInt32(buffer.readRemaining()));
+                out.write(buffer);
+            } finally {
+                buffer.releaseLast();
+            }
+        }
+
+        void read(Object o, BytesIn<?> in) {
+            if (wireType == WIRE_LENGTH)
+                in.readInt();
+            access.read(o, in);
+        }
+    }
+
     abstract static class FieldAccess {
         final Field field;
+        // accessed directly rather than via Field.get/set to avoid boxing and access checks
+        final long offset;
 
         FieldAccess(@NotNull Field field) {
             this.field = field;
+            this.offset = UNSAFE.objectFieldOffset(field);
         }
 
         @NotNull
@@ -130,6 +401,8 @@ public class BytesMarshaller<T> {
                 return new BytesFieldAccess(field);
             if (BytesMarshallable.class.isAssignableFrom(type))
                 return new BytesMarshallableFieldAccess(field);
+            if (type == String.class)
+                return new StringFieldAccess(field);
             return new ScalarFieldAccess(field);
         }
 
@@ -143,6 +416,41 @@ public class BytesMarshaller<T> {
                 return Object.class;
         }
 
+        /**
+         * Sets the field to zero or null, as when it was not in a tagged message
+         */
+        void reset(Object o) {
+            switch (field.getType().getName()) {
+                case "boolean":
+                    UNSAFE.putBoolean(o, offset, false);
+                    break;
+                case "byte":
+                    UNSAFE.putByte(o, offset, (byte) 0);
+                    break;
+                case "char":
+                    UNSAFE.putChar(o, offset, (char) 0);
+                    break;
+                case "short":
+                    UNSAFE.putShort(o, offset, (short) 0);
+                    break;
+                case "int":
+                    UNSAFE.putInt(o, offset, 0);
+                    break;
+                case "float":
+                    UNSAFE.putFloat(o, offset, 0);
+                    break;
+                case "long":
+                    UNSAFE.putLong(o, offset, 0);
+                    break;
+                case "double":
+                    UNSAFE.putDouble(o, offset, 0);
+                    break;
+                default:
+                    UNSAFE.putObject(o, offset, null);
+                    break;
+            }
+        }
+
         @NotNull
         @Override
         public String toString() {
@@ -181,24 +489,34 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws BufferOverflowException, IllegalStateException {
-            try {
-                Object o2 = field.get(o);
-                @Nullable String s = o2 == null ? null : o2.toString();
-                write.writeUtf8(s);
-            } catch (IllegalArgumentException | IllegalAccessException | BufferUnderflowException e) {
-                throw new AssertionError(e);
-            }
+            Object o2 = UNSAFE.getObject(o, offset);
+            @Nullable String s = o2 == null ? null : o2.toString();
+            write.writeUtf8(s);
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IORuntimeException, BufferUnderflowException, IllegalStateException, ArithmeticException, IllegalArgumentException {
-            try {
-                @Nullable String s = read.readUtf8();
-                field.set(o, ObjectUtils.convertTo(field.getType(), s));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            @Nullable String s = read.readUtf8();
+            UNSAFE.putObject(o, offset, ObjectUtils.convertTo(field.getType(), s));
+        }
+    }
+
+    static class StringFieldAccess extends FieldAccess {
+        public StringFieldAccess(Field field) {
+            super(field);
+        }
+
+        @Override
+        protected void getValue(Object o, @NotNull BytesOut<?> write)
+                throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+            write.writeUtf8((String) UNSAFE.getObject(o, offset));
+        }
+
+        @Override
+        protected void setValue(Object o, @NotNull BytesIn<?> read)
+                throws IORuntimeException, BufferUnderflowException, IllegalStateException, ArithmeticException, IllegalArgumentException {
+            UNSAFE.putObject(o, offset, read.readUtf8());
         }
     }
 
@@ -210,29 +528,21 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws BufferUnderflowException, IllegalStateException, BufferOverflowException {
-            try {
-                @NotNull BytesMarshallable o2 = (BytesMarshallable) field.get(o);
-                assert o2 != null;
-                o2.writeMarshallable(write);
-            } catch (IllegalArgumentException | IllegalAccessException | ArithmeticException e) {
-                throw new AssertionError(e);
-            }
+            @NotNull BytesMarshallable o2 = (BytesMarshallable) UNSAFE.getObject(o, offset);
+            assert o2 != null;
+            o2.writeMarshallable(write);
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IORuntimeException, BufferUnderflowException, IllegalStateException {
-            try {
-                @NotNull BytesMarshallable o2 = (BytesMarshallable) field.get(o);
-                if (!field.getType().isInstance(o2)) {
-                    o2 = (BytesMarshallable) ObjectUtils.newInstance((Class) field.getType());
-                    field.set(o, o2);
-                }
-
-                o2.readMarshallable(read);
-            } catch (IllegalArgumentException | IllegalAccessException e) {
-                throw new AssertionError(e);
+            @NotNull BytesMarshallable o2 = (BytesMarshallable) UNSAFE.getObject(o, offset);
+            if (!field.getType().isInstance(o2)) {
+                o2 = (BytesMarshallable) ObjectUtils.newInstance((Class) field.getType());
+                UNSAFE.putObject(o, offset, o2);
             }
+
+            o2.readMarshallable(read);
         }
     }
 
@@ -244,21 +554,16 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
-            @NotNull BytesStore bytes;
-            try {
-                bytes = (BytesStore) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            @NotNull BytesStore bytes = (BytesStore) UNSAFE.getObject(o, offset);
             if (bytes == null) {
                 BytesInternal.writeStopBitNeg1(write);
                 return;
             }
-            long offset = bytes.readPosition();
+            long position = bytes.readPosition();
             long length = bytes.readRemaining();
             write.writeStopBit(length);
             try {
-                write.write(bytes, offset, length);
+                write.write(bytes, position, length);
             } catch (BufferUnderflowException e) {
                 throw new AssertionError(e);
             }
@@ -267,29 +572,25 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IORuntimeException, IllegalArgumentException, IllegalStateException, ArithmeticException, BufferUnderflowException, BufferOverflowException {
-            try {
-                @NotNull Bytes<?> bytes = (Bytes) field.get(o);
-                long stopBit = read.readStopBit();
-                if (stopBit == -1) {
-                    if (bytes != null)
-                        bytes.releaseLast();
-                    field.set(o, null);
-                    return;
-                }
-                int length = Maths.toUInt31(stopBit);
-                @NotNull Bytes<?> bs;
-                if (bytes == null) {
-                    bs = Bytes.allocateElasticOnHeap(length);
-                    field.set(o, bs);
-                } else {
-                    bs = bytes;
-                }
-                bs.clear();
-                read.read(bs, length);
-                bs.readLimit(length);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            @NotNull Bytes<?> bytes = (Bytes) UNSAFE.getObject(o, offset);
+            long stopBit = read.readStopBit();
+            if (stopBit == -1) {
+                if (bytes != null)
+                    bytes.releaseLast();
+                UNSAFE.putObject(o, offset, null);
+                return;
+            }
+            int length = Maths.toUInt31(stopBit);
+            @NotNull Bytes<?> bs;
+            if (bytes == null) {
+                bs = Bytes.allocateElasticOnHeap(length);
+                UNSAFE.putObject(o, offset, bs);
+            } else {
+                bs = bytes;
             }
+            bs.clear();
+            read.read(bs, length);
+            bs.readLimit(length);
         }
     }
 
@@ -304,48 +605,40 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            try {
-                Object[] c = (Object[]) field.get(o);
-                if (c == null) {
-                    BytesInternal.writeStopBitNeg1(write);
-                    return;
-                }
-                int size = c.length;
-                write.writeStopBit(size);
-                if (size == 0)
-                    return;
-                for (int i = 0; i < size; i++)
-                    write.writeObject(componentType, c[i]);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            Object[] c = (Object[]) UNSAFE.getObject(o, offset);
+            if (c == null) {
+                BytesInternal.writeStopBitNeg1(write);
+                return;
             }
+            int size = c.length;
+            write.writeStopBit(size);
+            if (size == 0)
+                return;
+            for (int i = 0; i < size; i++)
+                write.writeObject(componentType, c[i]);
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException, ArithmeticException, BufferOverflowException {
-            try {
-                Object[] c = (Object[]) field.get(o);
-                int length = Maths.toInt32(read.readStopBit());
-                if (length < 0) {
-                    if (c != null)
-                        field.set(o, null);
-                    return;
-                }
-                if (c == null) {
-                    c = (Object[]) Array.newInstance(field.getType().getComponentType(), length);
-                    field.set(o, c);
-                } else if (c.length != length)
-                    field.set(o, c = Arrays.copyOf(c, length));
-                for (int i = 0; i < length; i++) {
-                    Object o2 = c[i];
-                    if (o2 instanceof BytesMarshallable)
-                        ((BytesMarshallable) o2).readMarshallable(read);
-                    else
-                        c[i] = read.readObject(componentType);
-                }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            Object[] c = (Object[]) UNSAFE.getObject(o, offset);
+            int length = Maths.toInt32(read.readStopBit());
+            if (length < 0) {
+                if (c != null)
+                    UNSAFE.putObject(o, offset, null);
+                return;
+            }
+            if (c == null) {
+                c = (Object[]) Array.newInstance(field.getType().getComponentType(), length);
+                UNSAFE.putObject(o, offset, c);
+            } else if (c.length != length)
+                UNSAFE.putObject(o, offset, c = Arrays.copyOf(c, length));
+            for (int i = 0; i < length; i++) {
+                Object o2 = c[i];
+                if (o2 instanceof BytesMarshallable)
+                    ((BytesMarshallable) o2).readMarshallable(read);
+                else
+                    c[i] = read.readObject(componentType);
             }
         }
     }
@@ -380,51 +673,43 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            try {
-                Collection c = (Collection) field.get(o);
-                if (c == null) {
-                    BytesInternal.writeStopBitNeg1(write);
-                    return;
-                }
-                write.writeStopBit(c.size());
-                if (c.isEmpty())
-                    return;
-                if (c instanceof RandomAccess && c instanceof List) {
-                    List l = (List) c;
-                    for (int i = 0, size = l.size(); i < size; i++)
-                        write.writeObject(componentType, l.get(i));
-                } else {
-                    for (Object o2 : c) {
-                        write.writeObject(componentType, o2);
-                    }
+            Collection c = (Collection) UNSAFE.getObject(o, offset);
+            if (c == null) {
+                BytesInternal.writeStopBitNeg1(write);
+                return;
+            }
+            write.writeStopBit(c.size());
+            if (c.isEmpty())
+                return;
+            if (c instanceof RandomAccess && c instanceof List) {
+                List l = (List) c;
+                for (int i = 0, size = l.size(); i < size; i++)
+                    write.writeObject(componentType, l.get(i));
+            } else {
+                for (Object o2 : c) {
+                    write.writeObject(componentType, o2);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
             }
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, ArithmeticException, IllegalArgumentException, BufferUnderflowException, BufferOverflowException {
-            try {
-                Collection c = (Collection) field.get(o);
-                int length = Maths.toInt32(read.readStopBit());
-                if (length < 0) {
-                    if (c != null)
-                        field.set(o, null);
-                    return;
-                }
+            Collection c = (Collection) UNSAFE.getObject(o, offset);
+            int length = Maths.toInt32(read.readStopBit());
+            if (length < 0) {
+                if (c != null)
+                    UNSAFE.putObject(o, offset, null);
+                return;
+            }
 
-                if (c == null)
-                    field.set(o, c = collectionSupplier.get());
-                else
-                    c.clear();
+            if (c == null)
+                UNSAFE.putObject(o, offset, c = collectionSupplier.get());
+            else
+                c.clear();
 
-                for (int i = 0; i < length; i++)
-                    c.add(read.readObject(componentType));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            for (int i = 0; i < length; i++)
+                c.add(read.readObject(componentType));
         }
     }
 
@@ -461,12 +746,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            Map<?, ?> m = null;
-            try {
-                m = (Map) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            Map<?, ?> m = (Map) UNSAFE.getObject(o, offset);
             if (m == null) {
                 BytesInternal.writeStopBitNeg1(write);
                 return;
@@ -481,24 +761,20 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException, BufferUnderflowException, BufferOverflowException, ArithmeticException {
-            try {
-                Map m = (Map) field.get(o);
-                long length = read.readStopBit();
-                if (length < 0) {
-                    if (m != null)
-                        field.set(o, null);
-                    return;
-                }
-                if (m == null) {
-                    field.set(o, m = collectionSupplier.get());
-                } else {
-                    m.clear();
-                }
-                for (int i = 0; i < length; i++) {
-                    m.put(read.readObject(keyType), read.readObject(valueType));
-                }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            Map m = (Map) UNSAFE.getObject(o, offset);
+            long length = read.readStopBit();
+            if (length < 0) {
+                if (m != null)
+                    UNSAFE.putObject(o, offset, null);
+                return;
+            }
+            if (m == null) {
+                UNSAFE.putObject(o, offset, m = collectionSupplier.get());
+            } else {
+                m.clear();
+            }
+            for (int i = 0; i < length; i++) {
+                m.put(read.readObject(keyType), read.readObject(valueType));
             }
         }
     }
@@ -511,21 +787,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalArgumentException, BufferOverflowException, IllegalStateException {
-            try {
-                write.writeBoolean(field.getBoolean(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeBoolean(UNSAFE.getBoolean(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalArgumentException {
-            try {
-                field.setBoolean(o, read.readBoolean());
-            } catch (IllegalAccessException | IllegalStateException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putBoolean(o, offset, read.readBoolean());
         }
     }
 
@@ -537,21 +805,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeByte(field.getByte(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeByte(UNSAFE.getByte(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException {
-            try {
-                field.setByte(o, read.readByte());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putByte(o, offset, read.readByte());
         }
     }
 
@@ -563,36 +823,28 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                byte[] array = (byte[]) field.get(o);
-                if (array == null) {
-                    write.writeInt(~0);
-                } else {
-                    write.writeInt(array.length);
-                    write.write(array);
-                }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            byte[] array = (byte[]) UNSAFE.getObject(o, offset);
+            if (array == null) {
+                write.writeInt(~0);
+            } else {
+                write.writeInt(array.length);
+                write.write(array);
             }
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    byte[] array = (byte[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new byte[len];
-                        field.set(o, array);
-                    }
-                    read.read(array);
+            int len = read.readInt();
+            if (len == ~0) {
+                UNSAFE.putObject(o, offset, null);
+            } else if (len >= 0) {
+                byte[] array = (byte[]) UNSAFE.getObject(o, offset);
+                if (array == null || array.length != len) {
+                    array = new byte[len];
+                    UNSAFE.putObject(o, offset, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                read.read(array);
             }
         }
     }
@@ -605,25 +857,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                char aChar = field.getChar(o);
-                if (aChar >= 65536 - 127)
-                    write.writeStopBit(aChar - 65536L);
-                else
-                    write.writeStopBit(aChar);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            char aChar = UNSAFE.getChar(o, offset);
+            if (aChar >= 65536 - 127)
+                write.writeStopBit(aChar - 65536L);
+            else
+                write.writeStopBit(aChar);
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException, BufferUnderflowException {
-            try {
-                field.setChar(o, read.readStopBitChar());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putChar(o, offset, read.readStopBitChar());
         }
     }
 
@@ -635,21 +879,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalArgumentException, BufferOverflowException, IllegalStateException {
-            try {
-                write.writeShort(field.getShort(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeShort(UNSAFE.getShort(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setShort(o, read.readShort());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putShort(o, offset, read.readShort());
         }
     }
 
@@ -661,21 +897,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeInt(field.getInt(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeInt(UNSAFE.getInt(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setInt(o, read.readInt());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putInt(o, offset, read.readInt());
         }
     }
 
@@ -687,12 +915,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
-            int[] array;
-            try {
-                array = (int[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            int[] array = (int[]) UNSAFE.getObject(o, offset);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -705,21 +928,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    int[] array = (int[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new int[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readInt();
+            int len = read.readInt();
+            if (len == ~0) {
+                UNSAFE.putObject(o, offset, null);
+            } else if (len >= 0) {
+                int[] array = (int[]) UNSAFE.getObject(o, offset);
+                if (array == null || array.length != len) {
+                    array = new int[len];
+                    UNSAFE.putObject(o, offset, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readInt();
             }
         }
     }
@@ -732,21 +951,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeFloat(field.getFloat(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeFloat(UNSAFE.getFloat(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setFloat(o, read.readFloat());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putFloat(o, offset, read.readFloat());
         }
     }
 
@@ -758,12 +969,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            float[] array;
-            try {
-                array = (float[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            float[] array = (float[]) UNSAFE.getObject(o, offset);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -776,21 +982,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    float[] array = (float[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new float[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readFloat();
+            int len = read.readInt();
+            if (len == ~0) {
+                UNSAFE.putObject(o, offset, null);
+            } else if (len >= 0) {
+                float[] array = (float[]) UNSAFE.getObject(o, offset);
+                if (array == null || array.length != len) {
+                    array = new float[len];
+                    UNSAFE.putObject(o, offset, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readFloat();
             }
         }
     }
@@ -803,21 +1005,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeLong(field.getLong(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeLong(UNSAFE.getLong(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setLong(o, read.readLong());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putLong(o, offset, read.readLong());
         }
     }
 
@@ -829,12 +1023,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
-            long[] array;
-            try {
-                array = (long[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            long[] array = (long[]) UNSAFE.getObject(o, offset);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -847,21 +1036,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    long[] array = (long[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new long[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readLong();
+            int len = read.readInt();
+            if (len == ~0) {
+                UNSAFE.putObject(o, offset, null);
+            } else if (len >= 0) {
+                long[] array = (long[]) UNSAFE.getObject(o, offset);
+                if (array == null || array.length != len) {
+                    array = new long[len];
+                    UNSAFE.putObject(o, offset, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readLong();
             }
         }
     }
@@ -874,21 +1059,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeDouble(field.getDouble(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeDouble(UNSAFE.getDouble(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setDouble(o, read.readDouble());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            UNSAFE.putDouble(o, offset, read.readDouble());
         }
     }
 
@@ -900,12 +1077,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            double[] array;
-            try {
-                array = (double[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            double[] array = (double[]) UNSAFE.getObject(o, offset);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -918,21 +1090,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    double[] array = (double[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new double[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readDouble();
+            int len = read.readInt();
+            if (len == ~0) {
+                UNSAFE.putObject(o, offset, null);
+            } else if (len >= 0) {
+                double[] array = (double[]) UNSAFE.getObject(o, offset);
+                if (array == null || array.length != len) {
+                    array = new double[len];
+                    UNSAFE.putObject(o, offset, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readDouble();
             }
         }
     }
@@ -17,10 +17,11 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesMethodDispatcher;
+import net.openhft.chronicle.bytes.internal.BytesMethodReaderGenerator;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.io.SimpleCloseable;
 import net.openhft.chronicle.core.util.InvocationTargetRuntimeException;
-import net.openhft.chronicle.core.util.ObjectUtils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -28,10 +29,19 @@ import java.nio.BufferUnderflowException;
 import java.util.*;
 import java.util.function.Consumer;
 
+/**
+ * Reads messages written by a {@link BytesOut#bytesMethodWriter(Class, Class[])} or a {@link BatchingBytesMethodWriter}
+ * and calls the method of each.
+ * <p>
+ * A class is generated to read the arguments and call the methods directly, dispatching on the message id with a
+ * switch. If it cannot be generated, or {@code -Dbytes.method-reader.reflection=true} is set, the methods are called
+ * by reflection.
+ */
 @SuppressWarnings("rawtypes")
 public class BytesMethodReader extends SimpleCloseable implements MethodReader {
     private final BytesIn<?> in;
     private final BytesParselet defaultParselet;
+    private final BytesMethodDispatcher dispatcher;
     private final List<Consumer<BytesIn>> methodEncoders = new ArrayList<>();
     private final Map<Long, Consumer<BytesIn>> methodEncoderMap = new LinkedHashMap<>();
 
@@ -42,6 +52,9 @@ public class BytesMethodReader extends SimpleCloseable implements MethodReader {
 
         this.in = in;
         this.defaultParselet = defaultParselet;
+        this.dispatcher = BytesMethodReaderGenerator.newDispatcher(methodEncoderLookup, objects);
+        if (dispatcher != null)
+            return;
 
         for (Object object : objects) {
             for (Method method : object.getClass().getMethods()) {
@@ -55,15 +68,11 @@ public class BytesMethodReader extends SimpleCloseable implements MethodReader {
 
     private void addEncoder(Object object, Method method, MethodEncoder encoder) {
         Jvm.setAccessible(method);
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        int count = parameterTypes.length;
-        BytesMarshallable[][] array = new BytesMarshallable[1][count];
-        for (int i = 0; i < count; i++) {
-            array[0][i] = (BytesMarshallable) ObjectUtils.newInstance(parameterTypes[i]);
-        }
+        // the arguments are reused where the encoder can read into them
+        Object[][] array = {new Object[method.getParameterCount()]};
         Consumer<BytesIn> reader = bytesIn -> {
             try {
-                array[0] = (BytesMarshallable[]) encoder.decode(array[0], bytesIn);
+                array[0] = encoder.decode(array[0], bytesIn);
                 method.invoke(object, array[0]);
             } catch (IllegalAccessException | InvocationTargetException | BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
                 Jvm.warn().on(getClass(), "Exception calling " + method + " " + Arrays.toString(array[0]), e);
@@ -91,6 +100,16 @@ public class BytesMethodReader extends SimpleCloseable implements MethodReader {
         if (in.readRemaining() < 1)
             return false;
         long messageId = in.readStopBit();
+        if (messageId == BatchingBytesMethodWriter.BATCH_MESSAGE_ID) {
+            // the messages of a batch follow its length and are read one at a time
+            in.readStopBit();
+            messageId = in.readStopBit();
+        }
+        if (dispatcher != null) {
+            if (!dispatch(messageId))
+                defaultParselet.accept(messageId, in);
+            return true;
+        }
         Consumer<BytesIn> consumer;
         if (messageId >= 0 && messageId < methodEncoders.size())
             consumer = methodEncoders.get((int) messageId);
@@ -105,6 +124,15 @@ public class BytesMethodReader extends SimpleCloseable implements MethodReader {
         return true;
     }
 
+    private boolean dispatch(long messageId) {
+        try {
+            return dispatcher.dispatch(messageId, in);
+        } catch (RuntimeException e) {
+            Jvm.warn().on(getClass(), "Exception calling message id " + messageId, e);
+            return true;
+        }
+    }
+
     @Override
     public MethodReader closeIn(boolean closeIn) {
         return this;
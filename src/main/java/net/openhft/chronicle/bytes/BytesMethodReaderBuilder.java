@@ -26,6 +26,7 @@ public class BytesMethodReaderBuilder implements MethodReaderBuilder {
     private final BytesIn<?> in;
     private BytesParselet defaultParselet = createDefaultParselet();
     private MethodEncoderLookup methodEncoderLookup = MethodEncoderLookup.BY_ANNOTATION;
+    private MessagePartitioner partitioner;
 
     public BytesMethodReaderBuilder(BytesIn<?> in) {
         throwExceptionIfReleased(in);
@@ -64,6 +65,20 @@ public class BytesMethodReaderBuilder implements MethodReaderBuilder {
         return this;
     }
 
+    public MessagePartitioner partitioner() {
+        return partitioner;
+    }
+
+    /**
+     * @param partitioner which chooses the worker of a {@link #buildPipelined(int, Object...)} reader, or null to
+     *                    pass messages to each worker in turn
+     * @return this
+     */
+    public BytesMethodReaderBuilder partitioner(MessagePartitioner partitioner) {
+        this.partitioner = partitioner;
+        return this;
+    }
+
     @Override
     public MethodReaderBuilder methodReaderInterceptorReturns(MethodReaderInterceptorReturns methodReaderInterceptorReturns) {
         throw new UnsupportedOperationException();
@@ -77,4 +92,19 @@ public class BytesMethodReaderBuilder implements MethodReaderBuilder {
     public BytesMethodReader build(Object... objects) {
         return new BytesMethodReader(in, defaultParselet, methodEncoderLookup, objects);
     }
+
+    /**
+     * Builds a reader which calls the objects on worker threads, which must be closed to stop them.
+     *
+     * @param workers the number of worker threads
+     * @param objects to call, which must be thread safe
+     * @return the reader
+     * @throws IllegalArgumentException if the input is not a Bytes
+     */
+    public PipelinedBytesMethodReader buildPipelined(int workers, Object... objects)
+            throws IllegalArgumentException {
+        if (!(in instanceof Bytes))
+            throw new IllegalArgumentException("A pipelined reader needs a Bytes, was " + in.getClass());
+        return new PipelinedBytesMethodReader((Bytes<?>) in, defaultParselet, methodEncoderLookup, partitioner, workers, objects);
+    }
 }
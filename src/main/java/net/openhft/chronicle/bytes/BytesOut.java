@@ -17,6 +17,7 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesMethodWriterGenerator;
 import net.openhft.chronicle.core.io.ClosedIllegalStateException;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import org.jetbrains.annotations.NotNull;
@@ -36,6 +37,9 @@ public interface BytesOut<U> extends
 
     /**
      * Proxy an interface so each message called is written to a file for replay.
+     * <p>
+     * A class is generated to write each call without boxing or reflection. A Proxy is used if the interfaces are not
+     * accessible, or if {@code -Dbytes.method-writer.proxy=true} is set.
      *
      * @param tClass     primary interface
      * @param additional any additional interfaces
@@ -48,6 +52,9 @@ public interface BytesOut<U> extends
     default <T> T bytesMethodWriter(@NotNull Class<T> tClass, Class... additional)
             throws IllegalArgumentException {
         throwExceptionIfReleased(this);
+        T writer = BytesMethodWriterGenerator.newInstance(tClass, additional, this);
+        if (writer != null)
+            return writer;
         Class[] interfaces = ObjectUtils.addAll(tClass, additional);
 
         //noinspection unchecked
@@ -20,6 +20,7 @@ package net.openhft.chronicle.bytes;
 import net.openhft.chronicle.bytes.algo.OptimisedBytesStoreHash;
 import net.openhft.chronicle.bytes.algo.VanillaBytesStoreHash;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
+import net.openhft.chronicle.bytes.internal.BytesWaiters;
 import net.openhft.chronicle.bytes.internal.HeapBytesStore;
 import net.openhft.chronicle.bytes.internal.NativeBytesStore;
 import net.openhft.chronicle.bytes.internal.NoBytesStore;
@@ -750,6 +751,38 @@ public interface BytesStore<B extends BytesStore<B, U>, U>
         }
     }
 
+    /**
+     * Waits until the int at an offset is no longer {@code expected}, e.g. for a consumer of a shared
+     * {@link MappedBytesStore} to sleep instead of busy spinning. The writer should call {@link #wake(long, int)}
+     * after changing the value.
+     * <p>
+     * This spins briefly then sleeps. On Linux native memory is waited on with a futex, so {@link #wake(long, int)}
+     * from any process mapping the same memory wakes it at once. Elsewhere, a thread in the same process is woken by
+     * {@link #wake(long, int)} at once, a change made by another process is seen within {@code bytes.wait.max-park-us}
+     * microseconds.
+     *
+     * @param offset       of the int to wait on
+     * @param expected     the value to wait to change from
+     * @param timeoutNanos the longest time to wait
+     * @return true if the value is not {@code expected}, false if the timeout expired or the thread was interrupted
+     */
+    default boolean waitUntilChanged(@NonNegative long offset, int expected, long timeoutNanos)
+            throws BufferUnderflowException, IllegalStateException {
+        return BytesWaiters.waitUntilChanged(this, offset, expected, timeoutNanos);
+    }
+
+    /**
+     * Wakes threads waiting in {@link #waitUntilChanged(long, int, long)} on this offset, in any process on Linux
+     *
+     * @param offset of the int changed
+     * @param count  the most threads to wake
+     * @return the number of threads woken
+     */
+    default int wake(@NonNegative long offset, int count)
+            throws BufferUnderflowException, IllegalStateException {
+        return BytesWaiters.wake(this, offset, count);
+    }
+
     /**
      * @return <code>true</code> if the number of readable bytes of this BytesStore is zero.
      */
@@ -829,6 +862,39 @@ public interface BytesStore<B extends BytesStore<B, U>, U>
         return true;
     }
 
+    /**
+     * Returns if a specified portion of this BytesStore is well-formed UTF-8.
+     * <p>
+     * Overlong encodings, surrogates and code points above U+10FFFF are not valid. Runs of ASCII are checked
+     * eight bytes at a time.
+     *
+     * @param offset the portion offset
+     * @param length the number of bytes to check
+     * @return <code>true</code> if the portion is valid UTF-8
+     * @throws BufferUnderflowException if the portion is outside this BytesStore
+     * @throws IllegalStateException    if this BytesStore has been released
+     */
+    default boolean isValidUtf8(@NonNegative long offset, @NonNegative long length)
+            throws BufferUnderflowException, IllegalStateException {
+        return BytesInternal.isValidUtf8(this, offset, length);
+    }
+
+    /**
+     * Returns if the bytes from the readPosition to the readLimit are well-formed UTF-8.
+     *
+     * @return <code>true</code> if the readable bytes are valid UTF-8
+     * @throws IllegalStateException if this BytesStore has been released
+     * @see #isValidUtf8(long, long)
+     */
+    default boolean isValidUtf8()
+            throws IllegalStateException {
+        try {
+            return isValidUtf8(readPosition(), readRemaining());
+        } catch (BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     // Can be removed once RandomDataInput:compareAndSwapInt is removed
     // To be removed in x.25
     @SuppressWarnings("deprecation")
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import java.lang.annotation.*;
+
+/**
+ * Identifies a field of a {@link BytesMarshallable} so it can be written with a tag rather than by position.
+ * <p>
+ * If any field of a class has a FieldId, all its marshalled fields must have one, and the class is written in the
+ * tagged form described by {@link BytesMarshaller}. Fields can then be added or removed without breaking messages
+ * already written, provided an id is never reused for a field of another type.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FieldId {
+    /**
+     * @return a positive id, unique among the fields of the class and its super classes
+     */
+    int value();
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A sorted index of {@code long} keys to {@code long} values, e.g. time to offset in a journal, held as a B+tree of
+ * fixed size pages in a {@link MappedFile}.
+ * <p>
+ * Keys are appended in ascending order, duplicates allowed, so leaves and internal pages are filled completely and
+ * appending sorted input is a bulk load. Only the rightmost page of each level is changed by an append. Entries are
+ * written before the count of the page is updated with an ordered write, and a new root or leaf is linked in after
+ * it is written, so readers in other threads or processes need no lock while there is an append.
+ * <p>
+ * The first page holds the header; each other page has a level, 0 for a leaf, a count and, for a leaf, the next
+ * leaf followed by the keys then the values or child pages. The page size must divide the chunk size of the file so
+ * no page spans a chunk.
+ * <p>
+ * An instance is not thread safe. There can be one appender, which creates the tree if the file is empty, and readers
+ * in other threads or processes should each open their own instance on the same file with {@code appender} false.
+ */
+public class MappedBPlusTree extends AbstractCloseable {
+    private static final int MAGIC = 0x31545042; // BPT1
+    // while the first appender writes the header, an appender claiming it again after a timeout uses the next lower value
+    private static final int CREATING = -1;
+    private static final long CREATE_TIMEOUT_NS = 1_000_000_000L;
+    private static final long HEADER_MAGIC = 0;
+    private static final long HEADER_PAGE_SIZE = 4;
+    private static final long HEADER_ROOT = 8;
+    private static final long HEADER_PAGES = 16;
+    private static final long HEADER_SIZE = 24;
+    private static final long LEVEL = 0;
+    private static final long COUNT = 4;
+    private static final long NEXT = 8;
+    private static final long ENTRIES = 16;
+
+    @NotNull
+    private final MappedFile mappedFile;
+    private final int pageSize;
+    private final boolean appender;
+    // entries in a leaf
+    private final int leafCapacity;
+    // children of an internal page
+    private final int fanOut;
+    // the first chunk, which has the header, is held while open
+    @NotNull
+    private final MappedBytesStore header;
+    @Nullable
+    private MappedBytesStore store;
+    // the rightmost page of each level, from the leaf up, for appending
+    private long[] path = {};
+    private int height;
+    private long lastKey = Long.MIN_VALUE;
+    private long cursorPage;
+    private int cursorIndex;
+
+    /**
+     * Opens or creates a tree in a file, to append to unless the file is read only.
+     *
+     * @see #MappedBPlusTree(MappedFile, int, boolean)
+     */
+    public MappedBPlusTree(@NotNull MappedFile mappedFile, @NonNegative int pageSize)
+            throws IllegalArgumentException, IllegalStateException, IORuntimeException {
+        this(mappedFile, pageSize, !mappedFile.readOnly());
+    }
+
+    /**
+     * Opens a tree in a file, the caller remains responsible for closing the file.
+     *
+     * @param mappedFile to hold the tree
+     * @param pageSize   the size of each page in bytes, which must be the same each time the file is opened
+     * @param appender   true to append, creating the tree if the file is empty, false to only read an existing tree
+     * @throws IllegalArgumentException if the page size doesn't divide the chunk size or match an existing tree
+     * @throws IllegalStateException    if only reading and the tree has not been created yet
+     */
+    public MappedBPlusTree(@NotNull MappedFile mappedFile, @NonNegative int pageSize, boolean appender)
+            throws IllegalArgumentException, IllegalStateException, IORuntimeException {
+        if (pageSize < 64 || Integer.bitCount(pageSize) != 1 || mappedFile.chunkSize() % pageSize != 0)
+            throw new IllegalArgumentException("pageSize " + pageSize + " must be a power of 2 which divides the chunk size " + mappedFile.chunkSize());
+        if (appender && mappedFile.readOnly())
+            throw new IllegalArgumentException("Cannot append to a read only file");
+        this.mappedFile = mappedFile;
+        this.pageSize = pageSize;
+        this.appender = appender;
+        this.leafCapacity = (int) ((pageSize - ENTRIES) / 16);
+        this.fanOut = (int) ((pageSize - ENTRIES + 8) / 16);
+        try {
+            header = mappedFile.acquireByteStore(this, 0);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+
+        // only the appender which claims an empty file writes the header, anyone else waits until it has
+        if (appender && header.compareAndSwapInt(HEADER_MAGIC, 0, CREATING))
+            writeHeader(pageSize);
+        int magic;
+        while ((magic = awaitCreated()) < 0 && appender && onlyClaimed()) {
+            // the header wasn't written in time, e.g. the appender which claimed it died, so claim it again.
+            // Each claim is a different negative value, so only one appender can claim it from the last one
+            if (header.compareAndSwapInt(HEADER_MAGIC, magic, (magic - 1) | Integer.MIN_VALUE))
+                writeHeader(pageSize);
+        }
+        if (magic == 0 || magic < 0 && onlyClaimed()) {
+            close();
+            throw new IllegalStateException(magic == 0 ? "The B+tree has not been created yet" : "The B+tree was not created in time");
+        }
+        if (magic != MAGIC || header.readInt(HEADER_PAGE_SIZE) != pageSize) {
+            final String message = magic != MAGIC
+                    ? "Not a B+tree file, magic: " + Integer.toHexString(magic)
+                    : "pageSize " + pageSize + " != " + header.readInt(HEADER_PAGE_SIZE);
+            close();
+            throw new IllegalArgumentException(message);
+        }
+        findRightmostPath();
+    }
+
+    private void writeHeader(int pageSize) {
+        header.writeInt(HEADER_PAGE_SIZE, pageSize);
+        header.writeLong(HEADER_PAGES, 1);
+        header.writeOrderedInt(HEADER_MAGIC, MAGIC);
+    }
+
+    /**
+     * @return true if the header has nothing written but what an appender writes before the magic number
+     */
+    private boolean onlyClaimed() {
+        return header.readLong(HEADER_PAGES) <= 1 && header.readLong(HEADER_ROOT) == 0 && header.readLong(HEADER_SIZE) == 0;
+    }
+
+    /**
+     * Waits while the header is claimed, for up to {@link #CREATE_TIMEOUT_NS} after it was last claimed.
+     *
+     * @return the magic number, or the claim if the header was not written in time
+     */
+    private int awaitCreated() {
+        int claim = header.readVolatileInt(HEADER_MAGIC);
+        long start = System.nanoTime();
+        for (int i = 0; ; i++) {
+            final int magic = header.readVolatileInt(HEADER_MAGIC);
+            if (magic >= 0)
+                return magic;
+            if (magic != claim) {
+                claim = magic;
+                start = System.nanoTime();
+            } else if (System.nanoTime() - start >= CREATE_TIMEOUT_NS) {
+                return magic;
+            }
+            if (i > 100)
+                Jvm.nanoPause();
+        }
+    }
+
+    private void findRightmostPath() {
+        long page = header.readVolatileLong(HEADER_ROOT);
+        if (page == 0)
+            return;
+        height = storeFor(page).readInt(page + LEVEL) + 1;
+        path = new long[height];
+        for (int level = height - 1; level > 0; level--) {
+            path[level] = page;
+            page = child(page, storeFor(page).readVolatileInt(page + COUNT));
+        }
+        path[0] = page;
+        final int count = storeFor(page).readVolatileInt(page + COUNT);
+        if (count > 0)
+            lastKey = key(page, count - 1);
+    }
+
+    @NotNull
+    private MappedBytesStore storeFor(long position)
+            throws IllegalStateException, IORuntimeException {
+        if (header.inside(position))
+            return header;
+        final MappedBytesStore store = this.store;
+        if (store != null && store.inside(position))
+            return store;
+        throwExceptionIfClosed();
+
+        try {
+            final MappedBytesStore newStore = mappedFile.acquireByteStore(this, position, store);
+            if (newStore != store) {
+                if (store != null)
+                    store.release(this);
+                this.store = newStore;
+            }
+            return newStore;
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    private long key(long page, int index) {
+        return storeFor(page).readLong(page + ENTRIES + index * 8L);
+    }
+
+    private long leafValue(long page, int index) {
+        return storeFor(page).readLong(page + ENTRIES + (leafCapacity + index) * 8L);
+    }
+
+    private long child(long page, int index) {
+        return storeFor(page).readLong(page + ENTRIES + (fanOut - 1 + index) * 8L);
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public long size()
+            throws IllegalStateException {
+        return header.readVolatileLong(HEADER_SIZE);
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Appends an entry
+     *
+     * @throws IllegalArgumentException if the key is less than the last key appended
+     * @throws IllegalStateException    if opened only to read
+     */
+    public void append(long key, long value)
+            throws IllegalArgumentException, IllegalStateException, IORuntimeException {
+        throwExceptionIfClosed();
+        if (!appender)
+            throw new IllegalStateException("Opened to read only");
+
+        if (key < lastKey)
+            throw new IllegalArgumentException("Keys must be appended in order, " + key + " < " + lastKey);
+        if (height == 0) {
+            final long leaf = newPage(0);
+            writeLeafEntry(leaf, 0, key, value);
+            path = new long[]{leaf};
+            height = 1;
+            header.writeOrderedLong(HEADER_ROOT, leaf);
+
+        } else {
+            final long leaf = path[0];
+            final int count = storeFor(leaf).readInt(leaf + COUNT);
+            if (count < leafCapacity) {
+                writeLeafEntry(leaf, count, key, value);
+            } else {
+                final long newLeaf = newPage(0);
+                writeLeafEntry(newLeaf, 0, key, value);
+                storeFor(leaf).writeOrderedLong(leaf + NEXT, newLeaf);
+                path[0] = newLeaf;
+                addToParent(1, key, newLeaf);
+            }
+        }
+        lastKey = key;
+        header.writeOrderedLong(HEADER_SIZE, header.readLong(HEADER_SIZE) + 1);
+    }
+
+    /**
+     * Appends entries sorted by key, filling each page
+     *
+     * @throws IllegalArgumentException if the keys are not in order
+     */
+    public void appendAll(@NotNull long[] keys, @NotNull long[] values, @NonNegative int length)
+            throws IllegalArgumentException, IllegalStateException, IORuntimeException {
+        if (length > keys.length || length > values.length)
+            throw new IllegalArgumentException("length: " + length);
+        for (int i = 0; i < length; i++)
+            append(keys[i], values[i]);
+    }
+
+    private void writeLeafEntry(long leaf, int index, long key, long value) {
+        final MappedBytesStore bs = storeFor(leaf);
+        bs.writeLong(leaf + ENTRIES + index * 8L, key);
+        bs.writeLong(leaf + ENTRIES + (leafCapacity + index) * 8L, value);
+        bs.writeOrderedInt(leaf + COUNT, index + 1);
+    }
+
+    // adds a page which starts with key as the rightmost child at this level
+    private void addToParent(int level, long key, long page) {
+        if (level == height) {
+            final long oldRoot = header.readLong(HEADER_ROOT);
+            final long root = newPage(level);
+            final MappedBytesStore bs = storeFor(root);
+            bs.writeLong(root + ENTRIES, key);
+            bs.writeLong(root + ENTRIES + (fanOut - 1) * 8L, oldRoot);
+            bs.writeLong(root + ENTRIES + fanOut * 8L, page);
+            bs.writeOrderedInt(root + COUNT, 1);
+            final long[] newPath = new long[height + 1];
+            System.arraycopy(path, 0, newPath, 0, height);
+            newPath[height] = root;
+            path = newPath;
+            height++;
+            header.writeOrderedLong(HEADER_ROOT, root);
+            return;
+        }
+        final long parent = path[level];
+        final int count = storeFor(parent).readInt(parent + COUNT);
+        if (count < fanOut - 1) {
+            final MappedBytesStore bs = storeFor(parent);
+            bs.writeLong(parent + ENTRIES + count * 8L, key);
+            bs.writeLong(parent + ENTRIES + (fanOut + count) * 8L, page);
+            bs.writeOrderedInt(parent + COUNT, count + 1);
+        } else {
+            // a new page with only one child, the key to it is in the level above
+            final long newParent = newPage(level);
+            storeFor(newParent).writeLong(newParent + ENTRIES + (fanOut - 1) * 8L, page);
+            path[level] = newParent;
+            addToParent(level + 1, key, newParent);
+        }
+    }
+
+    private long newPage(int level) {
+        final long pages = header.readLong(HEADER_PAGES);
+        final long page = pages * pageSize;
+        final MappedBytesStore bs = storeFor(page);
+        bs.writeInt(page + LEVEL, level);
+        bs.writeInt(page + COUNT, 0);
+        bs.writeLong(page + NEXT, 0);
+        header.writeOrderedLong(HEADER_PAGES, pages + 1);
+        return page;
+    }
+
+    // the number of keys in the page which are less than the key, or less than or equal to it if inclusive
+    private int search(long page, int count, long key, boolean inclusive) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final long midKey = key(page, mid);
+            if (midKey < key || inclusive && midKey == key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private long findLeaf(long key, boolean inclusive) {
+        long page = header.readVolatileLong(HEADER_ROOT);
+        if (page == 0)
+            return 0;
+        while (storeFor(page).readInt(page + LEVEL) > 0) {
+            final int count = storeFor(page).readVolatileInt(page + COUNT);
+            page = child(page, search(page, count, key, inclusive));
+        }
+        return page;
+    }
+
+    // positions the cursor on the first entry with a key at or after the key given
+    private boolean seekCeiling(long key) {
+        throwExceptionIfClosed();
+
+        long leaf = findLeaf(key, false);
+        while (leaf != 0) {
+            final int count = storeFor(leaf).readVolatileInt(leaf + COUNT);
+            final int index = search(leaf, count, key, false);
+            if (index < count) {
+                cursorPage = leaf;
+                cursorIndex = index;
+                return true;
+            }
+            leaf = storeFor(leaf).readVolatileLong(leaf + NEXT);
+        }
+        return false;
+    }
+
+    /**
+     * @return the value of the first entry with this key, or {@code defaultValue} if there is none
+     */
+    public long get(long key, long defaultValue)
+            throws IllegalStateException, IORuntimeException {
+        return seekCeiling(key) && key(cursorPage, cursorIndex) == key
+                ? leafValue(cursorPage, cursorIndex)
+                : defaultValue;
+    }
+
+    /**
+     * @return the value of the first entry with a key greater than or equal to this key, or {@code defaultValue}
+     */
+    public long ceilingValue(long key, long defaultValue)
+            throws IllegalStateException, IORuntimeException {
+        return seekCeiling(key) ? leafValue(cursorPage, cursorIndex) : defaultValue;
+    }
+
+    /**
+     * @return the value of the last entry with a key less than or equal to this key, or {@code defaultValue}
+     */
+    public long floorValue(long key, long defaultValue)
+            throws IllegalStateException, IORuntimeException {
+        throwExceptionIfClosed();
+
+        final long leaf = findLeaf(key, true);
+        if (leaf == 0)
+            return defaultValue;
+        final int count = storeFor(leaf).readVolatileInt(leaf + COUNT);
+        final int index = search(leaf, count, key, true) - 1;
+        return index < 0 ? defaultValue : leafValue(leaf, index);
+    }
+
+    /**
+     * Passes each entry with a key from {@code fromKey} inclusive to {@code toKey} exclusive to the consumer in order
+     *
+     * @return the number of entries
+     */
+    public long forEach(long fromKey, long toKey, @NotNull EntryConsumer consumer)
+            throws IllegalStateException, IORuntimeException {
+        if (!seekCeiling(fromKey))
+            return 0;
+        long leaf = cursorPage;
+        int index = cursorIndex;
+        long entries = 0;
+        while (leaf != 0) {
+            final int count = storeFor(leaf).readVolatileInt(leaf + COUNT);
+            for (; index < count; index++) {
+                final long key = key(leaf, index);
+                if (key >= toKey)
+                    return entries;
+                consumer.accept(key, leafValue(leaf, index));
+                entries++;
+            }
+            leaf = storeFor(leaf).readVolatileLong(leaf + NEXT);
+            index = 0;
+        }
+        return entries;
+    }
+
+    @Override
+    protected void performClose() {
+        header.release(this);
+        if (store != null) {
+            store.release(this);
+            store = null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+/**
+ * Chooses the partition of a message for a {@link PipelinedBytesMethodReader}. Messages with the same key are called
+ * in the order written, by the same thread.
+ */
+@FunctionalInterface
+public interface MessagePartitioner {
+    /**
+     * @param messageId of the message
+     * @param in        positioned at the first argument, which can be read
+     * @return the partition key
+     */
+    long partition(long messageId, BytesIn<?> in);
+}
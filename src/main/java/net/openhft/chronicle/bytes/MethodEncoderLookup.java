@@ -18,12 +18,31 @@
 package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.core.util.Annotations;
+import net.openhft.chronicle.core.util.ObjectUtils;
 
 import java.lang.reflect.Method;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
+/**
+ * Looks up the {@link MethodId} of a method and encodes its arguments.
+ * <p>
+ * Each parameter is encoded by type, the same way the generated method writers and readers do
+ * <ul>
+ *     <li>primitives as their binary form, so a long timestamp is eight bytes and a char is stop bit encoded</li>
+ *     <li>marshallables with writeMarshallable, read into an instance reused for each message</li>
+ *     <li>enums by name, read back as the interned constant</li>
+ *     <li>a {@link BytesStore} as 8-bit text, read into a reused {@link Bytes}</li>
+ *     <li>String and other CharSequences as UTF-8, a CharSequence is read into a reused StringBuilder</li>
+ *     <li>Integer, Long and Double with {@link BytesOut#writeObject(Class, Object)} and {@link BytesIn#readObject(Class)}</li>
+ * </ul>
+ * A parameter type which could be written but not read back, e.g. a marshallable which is only a
+ * {@link WriteBytesMarshallable} or a {@link BytesStore} which is not a supertype of {@link Bytes}, is rejected
+ * with an IllegalArgumentException when the encoder is built.
+ */
 public enum MethodEncoderLookup implements Function<Method, MethodEncoder> {
     BY_ANNOTATION;
 
@@ -32,6 +51,10 @@ public enum MethodEncoderLookup implements Function<Method, MethodEncoder> {
         MethodId methodId = Annotations.getAnnotation(method, MethodId.class);
         if (methodId == null) return null;
         long messageId = methodId.value();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        ParameterEncoder[] encoders = new ParameterEncoder[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++)
+            encoders[i] = ParameterEncoder.of(parameterTypes[i]);
         return new MethodEncoder() {
             @Override
             public long messageId() {
@@ -42,23 +65,117 @@ public enum MethodEncoderLookup implements Function<Method, MethodEncoder> {
             @Override
             public void encode(Object[] objects, BytesOut<?> out)
                     throws IllegalArgumentException, BufferUnderflowException, IllegalStateException, BufferOverflowException, ArithmeticException {
-                for (Object object : objects) {
-                    if (object instanceof BytesMarshallable) {
-                        ((BytesMarshallable) object).writeMarshallable(out);
-                        continue;
-                    }
-                    throw new IllegalArgumentException("Object type " + object + " not supported");
-                }
+                // a Proxy passes null when there are no arguments
+                if (objects == null)
+                    return;
+                for (int i = 0; i < encoders.length; i++)
+                    encoders[i].writer.accept(objects[i], out);
             }
 
             @SuppressWarnings("rawtypes")
             @Override
             public Object[] decode(Object[] lastObjects, BytesIn<?> in)
                     throws BufferUnderflowException, IllegalStateException {
-                for (Object lastObject : lastObjects)
-                    ((BytesMarshallable) lastObject).readMarshallable(in);
+                for (int i = 0; i < encoders.length; i++)
+                    lastObjects[i] = encoders[i].reader.apply(lastObjects[i], in);
                 return lastObjects;
             }
         };
     }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class ParameterEncoder {
+        final BiConsumer<Object, BytesOut<?>> writer;
+        // given the last value read, which is reused where possible
+        final BiFunction<Object, BytesIn<?>, Object> reader;
+
+        private ParameterEncoder(BiConsumer<Object, BytesOut<?>> writer, BiFunction<Object, BytesIn<?>, Object> reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        static ParameterEncoder of(Class<?> type) {
+            if (type.isPrimitive())
+                return ofPrimitive(type);
+            if (!canReadBack(type))
+                throw new IllegalArgumentException("Unsupported parameter type " + type);
+            return new ParameterEncoder(writerFor(type), readerFor(type));
+        }
+
+        /**
+         * @return true if what {@link #writerFor(Class)} writes for this type, {@link #readerFor(Class)} can read
+         */
+        private static boolean canReadBack(Class<?> type) {
+            if (WriteBytesMarshallable.class.isAssignableFrom(type) || ReadBytesMarshallable.class.isAssignableFrom(type))
+                return WriteBytesMarshallable.class.isAssignableFrom(type) && ReadBytesMarshallable.class.isAssignableFrom(type);
+            if (type.isEnum() || type == String.class)
+                return true;
+            if (BytesStore.class.isAssignableFrom(type))
+                return type.isAssignableFrom(Bytes.class);
+            if (CharSequence.class.isAssignableFrom(type))
+                return type.isAssignableFrom(StringBuilder.class);
+            return type == Integer.class || type == Long.class || type == Double.class;
+        }
+
+        private static BiConsumer<Object, BytesOut<?>> writerFor(Class<?> type) {
+            if (WriteBytesMarshallable.class.isAssignableFrom(type))
+                return (o, out) -> ((WriteBytesMarshallable) o).writeMarshallable(out);
+            if (type.isEnum())
+                return (o, out) -> out.writeEnum((Enum) o);
+            if (BytesStore.class.isAssignableFrom(type))
+                return (o, out) -> out.write8bit((BytesStore) o);
+            if (type == String.class)
+                return (o, out) -> out.writeUtf8((String) o);
+            if (CharSequence.class.isAssignableFrom(type))
+                return (o, out) -> out.writeUtf8((CharSequence) o);
+            return (o, out) -> out.writeObject(type, o);
+        }
+
+        private static BiFunction<Object, BytesIn<?>, Object> readerFor(Class<?> type) {
+            if (ReadBytesMarshallable.class.isAssignableFrom(type))
+                return (last, in) -> {
+                    ReadBytesMarshallable rbm = last == null ? (ReadBytesMarshallable) ObjectUtils.newInstance(type) : (ReadBytesMarshallable) last;
+                    rbm.readMarshallable(in);
+                    return rbm;
+                };
+            if (type.isEnum())
+                return (last, in) -> in.readEnum((Class) type);
+            if (BytesStore.class.isAssignableFrom(type) && type.isAssignableFrom(Bytes.class))
+                return (last, in) -> {
+                    Bytes<?> bytes = last == null ? Bytes.allocateElasticOnHeap() : (Bytes<?>) last;
+                    return in.read8bit(bytes) ? bytes : null;
+                };
+            if (type == String.class)
+                return (last, in) -> in.readUtf8();
+            if (CharSequence.class.isAssignableFrom(type) && type.isAssignableFrom(StringBuilder.class))
+                return (last, in) -> {
+                    StringBuilder sb = last == null ? new StringBuilder() : (StringBuilder) last;
+                    return in.readUtf8(sb) ? sb : null;
+                };
+            return (last, in) -> in.readObject(type);
+        }
+
+        private static ParameterEncoder ofPrimitive(Class<?> type) {
+            switch (type.getName()) {
+                case "boolean":
+                    return new ParameterEncoder((o, out) -> out.writeBoolean((Boolean) o), (last, in) -> in.readBoolean());
+                case "byte":
+                    return new ParameterEncoder((o, out) -> out.writeByte((Byte) o), (last, in) -> in.readByte());
+                case "short":
+                    return new ParameterEncoder((o, out) -> out.writeShort((Short) o), (last, in) -> in.readShort());
+                case "char":
+                    return new ParameterEncoder((o, out) -> out.writeChar((Character) o), (last, in) -> in.readChar());
+                case "int":
+                    return new ParameterEncoder((o, out) -> out.writeInt((Integer) o), (last, in) -> in.readInt());
+                case "long":
+                    return new ParameterEncoder((o, out) -> out.writeLong((Long) o), (last, in) -> in.readLong());
+                case "float":
+                    return new ParameterEncoder((o, out) -> out.writeFloat((Float) o), (last, in) -> in.readFloat());
+                case "double":
+                    return new ParameterEncoder((o, out) -> out.writeDouble((Double) o), (last, in) -> in.readDouble());
+                default:
+                    throw new IllegalArgumentException("Unsupported parameter type " + type);
+            }
+        }
+    }
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.SimpleCloseable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A method reader which finds the end of each message on the thread calling {@link #readOne()} and passes its offset
+ * and length to a worker thread, which reads the arguments and calls the method.
+ * <p>
+ * The messages don't have a length so the caller skips the arguments. Primitives, text, BytesStores and enums are
+ * skipped by their length, other arguments are read to find their end. Each worker has a lock free single producer,
+ * single consumer queue of messages and its own {@link BytesMethodReader} viewing the same memory, so messages are
+ * not copied and the arguments reused are not shared. The objects called must be thread safe.
+ * <p>
+ * Without a {@link MessagePartitioner} messages are passed to the workers in turn, otherwise messages with the same
+ * key are called in order by the same worker.
+ * <p>
+ * The bytes read must not be overwritten until the workers have finished with them, see {@link #awaitIdle()}.
+ * If the underlying BytesStore changes, e.g. as elastic bytes grow, the workers are allowed to finish before
+ * continuing.
+ */
+public class PipelinedBytesMethodReader extends SimpleCloseable implements MethodReader {
+    private static final int QUEUE_CAPACITY = 1 << 12;
+    private static final int SMALL_IDS = 1000;
+
+    private final Bytes<?> in;
+    private final BytesParselet defaultParselet;
+    private final MethodEncoderLookup methodEncoderLookup;
+    private final Object[] objects;
+    @Nullable
+    private final MessagePartitioner partitioner;
+    private final Worker[] workers;
+    private final List<Skipper> smallIds = new ArrayList<>();
+    private final Map<Long, Skipper> largeIds = new HashMap<>();
+    private BytesStore<?, ?> bytesStore;
+    private int nextWorker;
+
+    public PipelinedBytesMethodReader(@NotNull Bytes<?> in,
+                                      @NotNull BytesParselet defaultParselet,
+                                      @NotNull MethodEncoderLookup methodEncoderLookup,
+                                      @Nullable MessagePartitioner partitioner,
+                                      int workers,
+                                      @NotNull Object... objects) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be positive, was " + workers);
+        this.in = in;
+        this.defaultParselet = defaultParselet;
+        this.methodEncoderLookup = methodEncoderLookup;
+        this.partitioner = partitioner;
+        this.objects = objects;
+
+        for (Object object : objects) {
+            for (Method method : object.getClass().getMethods()) {
+                MethodEncoder encoder = methodEncoderLookup.apply(method);
+                if (encoder == null)
+                    continue;
+                long messageId = encoder.messageId();
+                Skipper skipper = new Skipper(method.getParameterTypes(), encoder);
+                if (messageId >= 0 && messageId < SMALL_IDS) {
+                    while (smallIds.size() <= messageId)
+                        smallIds.add(null);
+                    smallIds.set((int) messageId, skipper);
+                } else {
+                    largeIds.put(messageId, skipper);
+                }
+            }
+        }
+
+        this.bytesStore = in.bytesStore();
+        this.workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Worker();
+            this.workers[i].bytesStore(bytesStore);
+        }
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this.workers[i], "pipelined-method-reader-" + i);
+            thread.setDaemon(true);
+            this.workers[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Passes the next message to a worker, waiting if its queue is full.
+     *
+     * @return true if there was a message
+     */
+    @Override
+    public boolean readOne()
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        if (in.readRemaining() < 1)
+            return false;
+        if (in.bytesStore() != bytesStore)
+            rebind();
+
+        long start = in.readPosition();
+        long messageId = in.readStopBit();
+        if (messageId == BatchingBytesMethodWriter.BATCH_MESSAGE_ID) {
+            in.readStopBit();
+            start = in.readPosition();
+            messageId = in.readStopBit();
+        }
+        Skipper skipper = messageId >= 0 && messageId < smallIds.size()
+                ? smallIds.get((int) messageId)
+                : largeIds.get(messageId);
+        if (skipper == null) {
+            defaultParselet.accept(messageId, in);
+            return true;
+        }
+
+        Worker worker;
+        if (partitioner == null) {
+            worker = workers[nextWorker];
+            if (++nextWorker == workers.length)
+                nextWorker = 0;
+        } else {
+            long position = in.readPosition();
+            long key = partitioner.partition(messageId, in);
+            in.readPosition(position);
+            worker = workers[(int) Math.floorMod(key, (long) workers.length)];
+        }
+        skipper.skip(in);
+        worker.offer(start, in.readPosition() - start);
+        return true;
+    }
+
+    /**
+     * Waits for the workers to call every message passed to them.
+     */
+    public void awaitIdle() {
+        for (Worker worker : workers) {
+            for (int i = 0; !worker.isIdle(); i++)
+                pause(i);
+        }
+    }
+
+    private void rebind() {
+        awaitIdle();
+        bytesStore = in.bytesStore();
+        for (Worker worker : workers)
+            worker.bytesStore(bytesStore);
+    }
+
+    /**
+     * Waits for the workers to call the messages passed to them, then stops them
+     */
+    @Override
+    protected void performClose() {
+        awaitIdle();
+        for (Worker worker : workers)
+            worker.running = false;
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.view.releaseLast();
+        }
+    }
+
+    @Override
+    public MethodReaderInterceptorReturns methodReaderInterceptorReturns() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MethodReader closeIn(boolean closeIn) {
+        return this;
+    }
+
+    static void pause(int count) {
+        if (count < 100)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(20_000);
+    }
+
+    /**
+     * Finds the end of a message, reading the arguments which can't be skipped
+     */
+    private static final class Skipper {
+        // the size of each fixed size argument
+        private final int[] fixedSizes;
+        // 1 for a stop bit char, 2 for a stop bit length followed by that many bytes
+        private final int[] lengthTypes;
+        private final MethodEncoder encoder;
+        private final Object[] arguments;
+        private final boolean skippable;
+
+        Skipper(Class<?>[] parameterTypes, MethodEncoder encoder) {
+            int n = parameterTypes.length;
+            this.fixedSizes = new int[n];
+            this.lengthTypes = new int[n];
+            boolean skippable = true;
+            for (int i = 0; i < n; i++) {
+                Class<?> type = parameterTypes[i];
+                if (type == boolean.class || type == byte.class) {
+                    fixedSizes[i] = 1;
+                } else if (type == short.class) {
+                    fixedSizes[i] = 2;
+                } else if (type == int.class || type == float.class) {
+                    fixedSizes[i] = 4;
+                } else if (type == long.class || type == double.class) {
+                    fixedSizes[i] = 8;
+                } else if (type == char.class) {
+                    lengthTypes[i] = 1;
+                } else if (!WriteBytesMarshallable.class.isAssignableFrom(type)
+                        && (type.isEnum() || CharSequence.class.isAssignableFrom(type))) {
+                    // enums, BytesStores, Strings and CharSequences are written with a stop bit length
+                    lengthTypes[i] = 2;
+                } else {
+                    skippable = false;
+                }
+            }
+            this.skippable = skippable;
+            this.encoder = encoder;
+            this.arguments = new Object[n];
+        }
+
+        void skip(Bytes<?> in) {
+            if (!skippable) {
+                encoder.decode(arguments, in);
+                return;
+            }
+            long skip = 0;
+            for (int i = 0; i < fixedSizes.length; i++) {
+                switch (lengthTypes[i]) {
+                    case 0:
+                        skip += fixedSizes[i];
+                        break;
+                    case 1:
+                        in.readSkip(skip);
+                        skip = 0;
+                        in.readStopBit();
+                        break;
+                    default:
+                        in.readSkip(skip);
+                        skip = Math.max(0, in.readStopBit());
+                        break;
+                }
+            }
+            in.readSkip(skip);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final long[] offsets = new long[QUEUE_CAPACITY];
+        private final long[] lengths = new long[QUEUE_CAPACITY];
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        volatile boolean running = true;
+        Thread thread;
+        Bytes<?> view;
+        BytesMethodReader reader;
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        void bytesStore(BytesStore bytesStore) {
+            if (view != null)
+                view.releaseLast();
+            view = bytesStore.bytesForRead();
+            reader = new BytesMethodReader(view, defaultParselet, methodEncoderLookup, objects);
+        }
+
+        void offer(long offset, long length) {
+            long h = head.get();
+            for (int i = 0; h - tail.get() >= QUEUE_CAPACITY; i++)
+                pause(i);
+            int index = (int) h & (QUEUE_CAPACITY - 1);
+            offsets[index] = offset;
+            lengths[index] = length;
+            head.lazySet(h + 1);
+        }
+
+        boolean isIdle() {
+            return tail.get() == head.get();
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running) {
+                long t = tail.get();
+                if (t == head.get()) {
+                    pause(idle++);
+                    continue;
+                }
+                idle = 0;
+                int index = (int) t & (QUEUE_CAPACITY - 1);
+                try {
+                    view.readPositionRemaining(offsets[index], lengths[index]);
+                    reader.readOne();
+                } catch (Throwable e) {
+                    // keep the worker running so the messages after this are still called
+                    Jvm.warn().on(PipelinedBytesMethodReader.class, "Exception reading message at " + offsets[index], e);
+                }
+                tail.lazySet(t + 1);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.bytes.internal.BytesInternal;
+import net.openhft.chronicle.bytes.util.MutableDecimal;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.UnsafeMemory;
@@ -581,6 +582,21 @@ public interface StreamingDataInput<S extends StreamingDataInput<S>> extends Str
         return new BigDecimal(readBigInteger(), Maths.toUInt31(readStopBit()));
     }
 
+    /**
+     * Reads a fixed point decimal written by {@link StreamingDataOutput#writeDecimal(MutableDecimal)} without creating objects.
+     *
+     * @param using to hold the result
+     * @return using
+     * @throws BufferUnderflowException if there isn't a complete decimal to read
+     * @throws IllegalStateException    if this Bytes object was previously released
+     */
+    @NotNull
+    default MutableDecimal readDecimal(@NotNull MutableDecimal using)
+            throws IORuntimeException, BufferUnderflowException, IllegalStateException {
+        long mantissa = readStopBit();
+        return using.set(mantissa, Maths.toUInt31(readStopBit()));
+    }
+
     /**
      * Creates and returns a new BigInteger representing the contents of this Bytes object or {@link BigInteger#ZERO}
      * if this Bytes object is empty.
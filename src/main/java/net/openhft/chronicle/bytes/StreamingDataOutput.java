@@ -19,6 +19,7 @@ package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.bytes.util.MutableDecimal;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.UnsafeMemory;
@@ -721,6 +722,20 @@ public interface StreamingDataOutput<S extends StreamingDataOutput<S>> extends S
         writeStopBit(bd.scale());
     }
 
+    /**
+     * Writes a fixed point decimal as a stop bit encoded mantissa followed by a stop bit encoded scale.
+     *
+     * @param decimal to write
+     * @return this
+     */
+    @NotNull
+    default S writeDecimal(@NotNull MutableDecimal decimal)
+            throws BufferOverflowException, IllegalStateException {
+        writeStopBit(decimal.mantissa());
+        writeStopBit(decimal.scale());
+        return (S) this;
+    }
+
     default void writeBigInteger(@NotNull BigInteger bi)
             throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
         byte[] bytes = bi.toByteArray();
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link StopCharTester} compiled to a 256-bit lookup table.
+ * <p>
+ * The parse loops in Bytes detect this class and test each byte with a table lookup rather than a virtual call.
+ * The {@link StopCharTesters} are compiled on first use. Where no more than three printable ASCII characters are stop
+ * characters, e.g. {@link StopCharTesters#COMMA_STOP} or {@link StopCharTesters#SPACE_STOP}, eight bytes at a time can
+ * be checked with {@link #mayStop(long)}, skipping the per byte test for runs of text without a stop character.
+ * <p>
+ * Only a stateless tester should be compiled, characters above 255 are passed to the original tester.
+ */
+public final class TableStopCharTester implements StopCharTester {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final int MAX_SWAR_VALUES = 3;
+    private static final TableStopCharTester[] STOP_CHAR_TESTERS;
+
+    static {
+        StopCharTesters[] values = StopCharTesters.values();
+        STOP_CHAR_TESTERS = new TableStopCharTester[values.length];
+        for (int i = 0; i < values.length; i++)
+            STOP_CHAR_TESTERS[i] = new TableStopCharTester(values[i]);
+    }
+
+    private final long[] table = new long[4];
+    @Nullable
+    private final StopCharTester wideTester;
+    private final boolean swar;
+    // a byte below this might be a stop character
+    private final long belowOnes;
+    private final long value1Ones;
+    private final long value2Ones;
+    private final long value3Ones;
+
+    private TableStopCharTester(@Nullable StopCharTester tester, boolean[] stops) {
+        for (int ch = 0; ch < 256; ch++)
+            if (stops[ch])
+                table[ch >>> 6] |= 1L << ch;
+        wideTester = tester;
+
+        int below = 0;
+        while (below < 128 && stops[below])
+            below++;
+        // treat all control characters as possible stops rather than list them, they are rare in text
+        for (int ch = below; ch < ' '; ch++) {
+            if (stops[ch]) {
+                below = ' ';
+                break;
+            }
+        }
+        long[] values = {HIGHS, HIGHS, HIGHS};
+        int count = 0;
+        for (int ch = below; ch < 128; ch++) {
+            if (!stops[ch])
+                continue;
+            if (count == MAX_SWAR_VALUES) {
+                count = -1;
+                break;
+            }
+            values[count++] = ONES * ch;
+        }
+        swar = count >= 0;
+        belowOnes = ONES * below;
+        value1Ones = values[0];
+        value2Ones = values[1];
+        value3Ones = values[2];
+    }
+
+    private TableStopCharTester(@NotNull StopCharTester tester) {
+        this(tester, stops(tester));
+    }
+
+    private static boolean[] stops(@NotNull StopCharTester tester) {
+        boolean[] stops = new boolean[256];
+        for (int ch = 0; ch < 256; ch++)
+            stops[ch] = tester.isStopChar(ch);
+        return stops;
+    }
+
+    /**
+     * Compiles a stateless tester, the tester is still used for characters above 255.
+     *
+     * @param tester to compile
+     * @return a table driven equivalent
+     */
+    @NotNull
+    public static TableStopCharTester of(@NotNull StopCharTester tester) {
+        TableStopCharTester table = tableFor(tester);
+        return table == null ? new TableStopCharTester(tester) : table;
+    }
+
+    /**
+     * A tester which stops on any of the characters given or a 0 byte.
+     *
+     * @param stopChars the characters to stop on, which must be 8-bit
+     * @return the tester
+     * @throws IllegalArgumentException if a character is above 255
+     */
+    @NotNull
+    public static TableStopCharTester ofChars(@NotNull CharSequence stopChars)
+            throws IllegalArgumentException {
+        boolean[] stops = new boolean[256];
+        stops[0] = true;
+        for (int i = 0; i < stopChars.length(); i++) {
+            char ch = stopChars.charAt(i);
+            if (ch > 255)
+                throw new IllegalArgumentException("Only 8-bit stop characters are supported, was " + (int) ch);
+            stops[ch] = true;
+        }
+        return new TableStopCharTester(null, stops);
+    }
+
+    /**
+     * @return the table driven form of this tester if it is already compiled or one of the {@link StopCharTesters}, otherwise null
+     */
+    @Nullable
+    public static TableStopCharTester tableFor(@NotNull StopCharTester tester) {
+        if (tester instanceof TableStopCharTester)
+            return (TableStopCharTester) tester;
+        if (tester instanceof StopCharTesters)
+            return STOP_CHAR_TESTERS[((StopCharTesters) tester).ordinal()];
+        return null;
+    }
+
+    @Override
+    public boolean isStopChar(int ch) {
+        if ((ch & ~0xFF) == 0)
+            return (table[ch >>> 6] & (1L << ch)) != 0;
+        return wideTester != null && wideTester.isStopChar(ch);
+    }
+
+    /**
+     * @return whether {@link #mayStop(long)} can be used
+     */
+    public boolean swar() {
+        return swar;
+    }
+
+    /**
+     * Tests eight bytes at once. This may return true when there is no stop character but not the reverse.
+     * A byte of 128 or more always returns true so this can also be used to find the end of ASCII text.
+     *
+     * @param word eight bytes in either byte order
+     * @return false if none of the bytes are stop characters or 128 and above.
+     */
+    public boolean mayStop(long word) {
+        long mask = word | (word - belowOnes) & ~word;
+        long y1 = word ^ value1Ones;
+        long y2 = word ^ value2Ones;
+        long y3 = word ^ value3Ones;
+        mask |= (y1 - ONES) & ~y1 | (y2 - ONES) & ~y2 | (y3 - ONES) & ~y3;
+        return (mask & HIGHS) != 0;
+    }
+}
@@ -550,6 +550,8 @@ import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
             @Nullable final Memory memory = bytesStore.memory;
             int length = (int)
                     Math.min(Bytes.MAX_HEAP_CAPACITY, realReadRemaining());
+            if (Jvm.isJava9Plus())
+                return BytesInternal.read8bitString(bytesStore, readPosition(), length);
             @NotNull char[] chars = new char[length];
             final long address = bytesStore.address + bytesStore.translate(readPosition());
             for (int i = 0; i < length && i < realCapacity(); i++)
@@ -562,6 +564,8 @@ import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
         protected String toString0()
                 throws IllegalStateException {
             int length = (int) Math.min(Bytes.MAX_HEAP_CAPACITY, readRemaining());
+            if (Jvm.isJava9Plus())
+                return BytesInternal.read8bitString(bytesStore, readPosition(), length);
             @NotNull char[] chars = new char[length];
             try {
                 for (int i = 0; i < length; i++) {
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesUtil;
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.bytes.RandomDataOutput;
+import net.openhft.chronicle.bytes.ref.BinaryStructReference;
+import net.openhft.chronicle.bytes.ref.FieldOffset;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.openhft.chronicle.bytes.internal.ClassFileWriter.*;
+
+/**
+ * Generates the {@link BinaryStructReference} for an interface of accessors.
+ */
+public final class BinaryStructGenerator {
+    private static final String SUFFIX = "$$BinaryStruct";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(type);
+        }
+    };
+    private static final Map<Class<?>, String> TYPE_NAMES = new HashMap<>();
+    private static final Method UNBOUND;
+    private static final Method TO_BYTE;
+    private static final Method BYTE_TO_BOOLEAN;
+
+    static {
+        TYPE_NAMES.put(boolean.class, "Boolean");
+        TYPE_NAMES.put(byte.class, "Byte");
+        TYPE_NAMES.put(short.class, "Short");
+        TYPE_NAMES.put(char.class, "Short");
+        TYPE_NAMES.put(int.class, "Int");
+        TYPE_NAMES.put(long.class, "Long");
+        TYPE_NAMES.put(float.class, "Float");
+        TYPE_NAMES.put(double.class, "Double");
+        try {
+            UNBOUND = BinaryStructReference.class.getDeclaredMethod("unbound", NullPointerException.class);
+            TO_BYTE = BinaryStructReference.class.getDeclaredMethod("toByte", boolean.class);
+            BYTE_TO_BOOLEAN = BytesUtil.class.getMethod("byteToBoolean", byte.class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private BinaryStructGenerator() {
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <T> T newInstance(@NotNull Class<T> structInterface)
+            throws IllegalArgumentException {
+        try {
+            return (T) LAYOUTS.get(structInterface).constructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static long sizeOf(@NotNull Class<?> structInterface)
+            throws IllegalArgumentException {
+        return LAYOUTS.get(structInterface).size;
+    }
+
+    enum Kind {
+        GET, SET, GET_VOLATILE, SET_VOLATILE, SET_ORDERED, COMPARE_AND_SWAP, ADD
+    }
+
+    static final class Accessor {
+        final Method method;
+        final Kind kind;
+        final String field;
+        final Class<?> type;
+
+        Accessor(Method method, Kind kind, String field, Class<?> type) {
+            this.method = method;
+            this.kind = kind;
+            this.field = field;
+            this.type = type;
+        }
+    }
+
+    static final class Layout {
+        final Class<?> structInterface;
+        final List<Accessor> accessors = new ArrayList<>();
+        final Map<String, Long> offsets = new LinkedHashMap<>();
+        final long size;
+        private Constructor<?> constructor;
+
+        Layout(Class<?> structInterface) {
+            this.structInterface = structInterface;
+            if (!structInterface.isInterface())
+                throw new IllegalArgumentException(structInterface.getName() + " is not an interface");
+
+            final Map<String, Class<?>> types = new TreeMap<>();
+            final Map<String, Integer> fixed = new HashMap<>();
+            for (Method method : structInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isDefault())
+                    continue;
+                final Accessor accessor = accessor(method);
+                final Class<?> previous = types.put(accessor.field, accessor.type);
+                if (previous != null && previous != accessor.type)
+                    throw new IllegalArgumentException("Field " + accessor.field + " is both a " + previous + " and a " + accessor.type + " in " + structInterface.getName());
+                final FieldOffset fieldOffset = method.getAnnotation(FieldOffset.class);
+                if (fieldOffset != null) {
+                    final Integer previousOffset = fixed.put(accessor.field, fieldOffset.value());
+                    if (fieldOffset.value() < 0 || previousOffset != null && previousOffset != fieldOffset.value())
+                        throw new IllegalArgumentException("Invalid FieldOffset " + fieldOffset.value() + " for " + accessor.field + " in " + structInterface.getName());
+                }
+                accessors.add(accessor);
+            }
+
+            long end = 0;
+            for (Map.Entry<String, Integer> entry : fixed.entrySet()) {
+                offsets.put(entry.getKey(), (long) entry.getValue());
+                end = Math.max(end, entry.getValue() + (long) sizeOf(types.get(entry.getKey())));
+            }
+            final List<String> free = new ArrayList<>(types.keySet());
+            free.removeAll(fixed.keySet());
+            // largest first so each field is naturally aligned after the first
+            free.sort(Comparator.comparingInt((String field) -> -sizeOf(types.get(field))));
+            for (String field : free) {
+                final int fieldSize = sizeOf(types.get(field));
+                end = (end + fieldSize - 1) / fieldSize * fieldSize;
+                offsets.put(field, end);
+                end += fieldSize;
+            }
+            size = BytesUtil.roundUpTo8ByteAlign(end);
+        }
+
+        @NotNull
+        private Accessor accessor(Method method) {
+            final String name = method.getName();
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final Class<?> returnType = method.getReturnType();
+            Accessor accessor = null;
+            if (parameterTypes.length == 0) {
+                if (name.startsWith("getVolatile"))
+                    accessor = new Accessor(method, Kind.GET_VOLATILE, name.substring(11), returnType);
+                else if (name.startsWith("get"))
+                    accessor = new Accessor(method, Kind.GET, name.substring(3), returnType);
+                else if (name.startsWith("is") && returnType == boolean.class)
+                    accessor = new Accessor(method, Kind.GET, name.substring(2), returnType);
+
+            } else if (parameterTypes.length == 1) {
+                final Class<?> type = parameterTypes[0];
+                if (name.startsWith("setVolatile") && returnType == void.class)
+                    accessor = new Accessor(method, Kind.SET_VOLATILE, name.substring(11), type);
+                else if (name.startsWith("setOrdered") && returnType == void.class)
+                    accessor = new Accessor(method, Kind.SET_ORDERED, name.substring(10), type);
+                else if (name.startsWith("set") && returnType == void.class)
+                    accessor = new Accessor(method, Kind.SET, name.substring(3), type);
+                else if (name.startsWith("addAtomic") && isNumber(type) && (returnType == type || returnType == void.class))
+                    accessor = new Accessor(method, Kind.ADD, name.substring(9), type);
+                else if (name.startsWith("add") && isNumber(type) && (returnType == type || returnType == void.class))
+                    accessor = new Accessor(method, Kind.ADD, name.substring(3), type);
+
+            } else if (parameterTypes.length == 2 && name.startsWith("compareAndSwap") && returnType == boolean.class
+                    && parameterTypes[0] == parameterTypes[1] && isNumber(parameterTypes[0])) {
+                accessor = new Accessor(method, Kind.COMPARE_AND_SWAP, name.substring(14), parameterTypes[0]);
+            }
+            if (accessor == null || accessor.field.isEmpty() || !TYPE_NAMES.containsKey(accessor.type))
+                throw new IllegalArgumentException("Unsupported accessor " + method);
+            return accessor;
+        }
+
+        private static boolean isNumber(Class<?> type) {
+            return type == int.class || type == long.class || type == float.class || type == double.class;
+        }
+
+        private static int sizeOf(Class<?> type) {
+            if (type == boolean.class || type == byte.class)
+                return 1;
+            if (type == short.class || type == char.class)
+                return 2;
+            if (type == int.class || type == float.class)
+                return 4;
+            return 8;
+        }
+
+        synchronized Constructor<?> constructor() {
+            if (constructor == null)
+                constructor = generate();
+            return constructor;
+        }
+
+        private Constructor<?> generate() {
+            final ClassFileWriter cfw = new ClassFileWriter(structInterface.getName() + SUFFIX + COUNTER.incrementAndGet(),
+                    BinaryStructReference.class, structInterface);
+            cfw.constructor(ACC_PUBLIC).returnValue(void.class);
+            cfw.method(ACC_PUBLIC, "maxSize", long.class)
+                    .lconst(size)
+                    .returnValue(long.class);
+            for (Accessor accessor : accessors)
+                generate(cfw, accessor);
+            try {
+                return cfw.define(structInterface).getConstructor();
+            } catch (IllegalStateException | NoSuchMethodException | LinkageError e) {
+                throw new IllegalArgumentException("Unable to generate a BinaryStructReference for " + structInterface.getName(), e);
+            }
+        }
+
+        private void generate(ClassFileWriter cfw, Accessor accessor) {
+            final Method method = accessor.method;
+            final Class<?> type = accessor.type;
+            final String typeName = TYPE_NAMES.get(type);
+            final ClassFileWriter.Code code = cfw.method(ACC_PUBLIC, method.getName(), method.getReturnType(), method.getParameterTypes());
+            final ClassFileWriter.Label start = code.newLabel();
+            final ClassFileWriter.Label end = code.newLabel();
+            final ClassFileWriter.Label handler = code.newLabel();
+            code.tryCatch(start, end, handler, NullPointerException.class);
+
+            code.mark(start)
+                    .aload(0).getField("bytes", BytesStore.class)
+                    .aload(0).getField("offset", long.class)
+                    .lconst(offsets.get(accessor.field))
+                    .insn(LADD, -2);
+            switch (accessor.kind) {
+                case GET:
+                    code.invoke(BytesStore.class, readMethod(type == char.class ? "readUnsignedShort" : "read" + typeName));
+                    break;
+                case GET_VOLATILE:
+                    code.invoke(BytesStore.class, readMethod("readVolatile" + (type == boolean.class ? "Byte" : typeName)));
+                    if (type == boolean.class)
+                        code.invoke(BYTE_TO_BOOLEAN);
+                    else if (type == char.class)
+                        code.insn(I2C, 0);
+                    break;
+                case SET:
+                    code.load(type, 1)
+                            .invoke(BytesStore.class, writeMethod("write" + typeName, type == char.class ? short.class : type))
+                            .pop(Object.class);
+                    break;
+                case SET_VOLATILE:
+                case SET_ORDERED:
+                    code.load(type, 1);
+                    if (type == boolean.class)
+                        code.invoke(TO_BYTE);
+                    final Class<?> storedType = type == boolean.class ? byte.class : type == char.class ? short.class : type;
+                    final String writer = accessor.kind == Kind.SET_ORDERED && isNumber(type) ? "writeOrdered" : "writeVolatile";
+                    code.invoke(BytesStore.class, writeMethod(writer + TYPE_NAMES.get(storedType), storedType))
+                            .pop(Object.class);
+                    break;
+                case COMPARE_AND_SWAP:
+                    code.load(type, 1)
+                            .load(type, 1 + size(type))
+                            .invoke(BytesStore.class, writeMethod("compareAndSwap" + typeName, type, type));
+                    break;
+                case ADD:
+                    code.load(type, 1)
+                            .invoke(BytesStore.class, writeMethod("addAndGet" + typeName, type));
+                    if (method.getReturnType() == void.class)
+                        code.pop(type);
+                    break;
+                default:
+                    throw new AssertionError(accessor.kind);
+            }
+            code.mark(end)
+                    .returnValue(method.getReturnType());
+            code.mark(handler)
+                    .aload(0)
+                    .swap()
+                    .invoke(UNBOUND)
+                    .athrow();
+        }
+
+        private static Method readMethod(String name) {
+            try {
+                return RandomDataInput.class.getMethod(name, long.class);
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private static Method writeMethod(String name, Class<?>... types) {
+            final Class<?>[] parameterTypes = new Class<?>[types.length + 1];
+            parameterTypes[0] = long.class;
+            System.arraycopy(types, 0, parameterTypes, 1, types.length);
+            try {
+                return RandomDataOutput.class.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import net.openhft.chronicle.bytes.*;
 import net.openhft.chronicle.bytes.pool.BytesPool;
 import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
 import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
+import net.openhft.chronicle.bytes.util.MutableDecimal;
 import net.openhft.chronicle.bytes.util.StringInternerBytes;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
@@ -51,9 +52,7 @@ import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static net.openhft.chronicle.assertions.AssertUtil.SKIP_ASSERTIONS;
@@ -88,14 +87,16 @@ enum BytesInternal {
     private static final byte[] MIN_VALUE_TEXT = ("" + Long.MIN_VALUE).getBytes(ISO_8859_1);
     private static final StringBuilderPool SBP = new StringBuilderPool();
     private static final BytesPool BP = new BytesPool();
-    private static final byte[] INFINITY_BYTES = INFINITY.getBytes(ISO_8859_1);
-    private static final byte[] NAN_BYTES = NAN.getBytes(ISO_8859_1);
-    private static final long MAX_VALUE_DIVIDE_5 = Long.MAX_VALUE / 5;
     private static final ThreadLocal<byte[]> NUMBER_BUFFER = ThreadLocal.withInitial(() -> new byte[20]);
     private static final long MAX_VALUE_DIVIDE_10 = Long.MAX_VALUE / 10;
-    private static final ThreadLocal<DateCache> dateCacheTL = new ThreadLocal<>();
     private static final int MAX_STRING_LEN = Jvm.getInteger("bytes.max-string-len", 128 * 1024);
+    // larger Strings use a temporary buffer rather than retaining one per thread
+    private static final int MAX_LATIN1_BUFFER = 1 << 16;
+    private static final ThreadLocal<byte[]> LATIN1_BUFFER_TL = ThreadLocal.withInitial(() -> new byte[256]);
     private static final int NEG_ONE = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0x80 : 0x8000;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    // the top bit of each of eight bytes, none are set for ASCII text
+    private static final long HIGH_BITS = 0x8080808080808080L;
 
     private static final MethodHandle VECTORIZED_MISMATCH_METHOD_HANDLE;
 
@@ -712,6 +713,14 @@ enum BytesInternal {
         try {
             int count = 0;
             assert bytes.readRemaining() >= length;
+            for (; count < length - 7; count += 8) {
+                long word = bytes.readLong();
+                if ((word & HIGH_BITS) != 0) {
+                    bytes.readSkip(-8);
+                    break;
+                }
+                appendAscii8(appendable, word);
+            }
             while (count < length) {
                 int c = bytes.readUnsignedByte();
                 if (c >= 128) {
@@ -740,6 +749,12 @@ enum BytesInternal {
         try {
             assert input.realCapacity() >= offset + utflen;
             long limit = offset + utflen;
+            for (; offset < limit - 7; offset += 8) {
+                long word = input.readLong(offset);
+                if ((word & HIGH_BITS) != 0)
+                    break;
+                appendAscii8(appendable, word);
+            }
             while (offset < limit) {
                 int c = input.readUnsignedByte(offset++);
                 if (c >= 128) {
@@ -759,6 +774,78 @@ enum BytesInternal {
         }
     }
 
+    // appends eight ASCII bytes read as a native order long
+    private static void appendAscii8(@NotNull Appendable appendable, long word)
+            throws IOException {
+        if (!LITTLE_ENDIAN)
+            word = Long.reverseBytes(word);
+        for (int i = 0; i < 8; i++, word >>>= 8)
+            appendable.append((char) (word & 0x7F));
+    }
+
+    private static void widenAscii8(@NotNull char[] chars, @NonNegative int index, long word) {
+        if (!LITTLE_ENDIAN)
+            word = Long.reverseBytes(word);
+        for (int i = 0; i < 8; i++, word >>>= 8)
+            chars[index + i] = (char) (word & 0x7F);
+    }
+
+    /**
+     * Checks the bytes are well-formed UTF-8 as defined by RFC 3629, i.e. no overlong encodings, surrogates or
+     * code points above U+10FFFF. ASCII is checked eight bytes at a time.
+     */
+    public static boolean isValidUtf8(@NotNull RandomDataInput input, @NonNegative long offset, @NonNegative long length)
+            throws BufferUnderflowException, IllegalStateException {
+        throwExceptionIfReleased(input);
+        requireNonNegative(offset);
+        requireNonNegative(length);
+        final long limit = offset + length;
+        while (offset < limit) {
+            while (offset < limit - 7 && (input.readLong(offset) & HIGH_BITS) == 0)
+                offset += 8;
+            if (offset == limit)
+                break;
+            int c = input.readUnsignedByte(offset);
+            if (c < 0x80) {
+                offset++;
+                continue;
+            }
+            int trailing;
+            int min2 = 0x80;
+            int max2 = 0xBF;
+            if (c < 0xC2) {
+                // a continuation byte or an overlong two byte encoding
+                return false;
+            } else if (c < 0xE0) {
+                trailing = 1;
+            } else if (c < 0xF0) {
+                trailing = 2;
+                if (c == 0xE0)
+                    min2 = 0xA0; // overlong
+                else if (c == 0xED)
+                    max2 = 0x9F; // surrogates
+            } else if (c < 0xF5) {
+                trailing = 3;
+                if (c == 0xF0)
+                    min2 = 0x90; // overlong
+                else if (c == 0xF4)
+                    max2 = 0x8F; // above U+10FFFF
+            } else {
+                return false;
+            }
+            if (limit - offset <= trailing)
+                return false;
+            int c2 = input.readUnsignedByte(offset + 1);
+            if (c2 < min2 || c2 > max2)
+                return false;
+            for (int i = 2; i <= trailing; i++)
+                if ((input.readUnsignedByte(offset + i) & 0xC0) != 0x80)
+                    return false;
+            offset += trailing + 1;
+        }
+        return true;
+    }
+
     public static void parse8bit1(@NotNull StreamingDataInput bytes, @NotNull StringBuilder sb, @NonNegative int utflen)
             throws IllegalStateException {
         throwExceptionIfReleased(bytes);
@@ -844,14 +931,37 @@ enum BytesInternal {
         int count = 0;
         if (Jvm.isJava9Plus()) {
             sb.setLength(utflen);
-            while (count < utflen) {
-                byte c = bytes.readByte(readPosition + count);
-                if (c < 0)
-                    break;
-                sb.setCharAt(count++, (char) c); // This is not as fast as it could be.
+            if (getStringCoder(sb) == JAVA9_STRING_CODER_LATIN) {
+                // ASCII is the same in Latin-1 so it can be copied eight bytes at a time
+                final byte[] sbBytes = extractBytes(sb);
+                for (; count < utflen - 7; count += 8) {
+                    long word = bytes.readLong(readPosition + count);
+                    if ((word & HIGH_BITS) != 0)
+                        break;
+                    UnsafeMemory.unsafePutLong(sbBytes, count, word);
+                }
+                while (count < utflen) {
+                    byte c = bytes.readByte(readPosition + count);
+                    if (c < 0)
+                        break;
+                    sbBytes[count++] = c;
+                }
+            } else {
+                while (count < utflen) {
+                    byte c = bytes.readByte(readPosition + count);
+                    if (c < 0)
+                        break;
+                    sb.setCharAt(count++, (char) c);
+                }
             }
         } else {
             final char[] chars = extractChars(sb);
+            for (; count < utflen - 7; count += 8) {
+                long word = bytes.readLong(readPosition + count);
+                if ((word & HIGH_BITS) != 0)
+                    break;
+                widenAscii8(chars, count, word);
+            }
             while (count < utflen) {
                 int c = bytes.readByte(readPosition + count);
                 if (c < 0)
@@ -877,14 +987,36 @@ enum BytesInternal {
 
             if (Jvm.isJava9Plus()) {
                 sb.setLength(utflen);
-                while (count < utflen) {
-                    byte c = memory.readByte(address + count);
-                    if (c < 0)
-                        break;
-                    sb.setCharAt(count++, (char) c);
+                if (getStringCoder(sb) == JAVA9_STRING_CODER_LATIN) {
+                    final byte[] sbBytes = extractBytes(sb);
+                    for (; count < utflen - 7; count += 8) {
+                        long word = memory.readLong(address + count);
+                        if ((word & HIGH_BITS) != 0)
+                            break;
+                        UnsafeMemory.unsafePutLong(sbBytes, count, word);
+                    }
+                    while (count < utflen) {
+                        byte c = memory.readByte(address + count);
+                        if (c < 0)
+                            break;
+                        sbBytes[count++] = c;
+                    }
+                } else {
+                    while (count < utflen) {
+                        byte c = memory.readByte(address + count);
+                        if (c < 0)
+                            break;
+                        sb.setCharAt(count++, (char) c);
+                    }
                 }
             } else {
                 char[] chars = extractChars(sb);
+                for (; count < utflen - 7; count += 8) {
+                    long word = memory.readLong(address + count);
+                    if ((word & HIGH_BITS) != 0)
+                        break;
+                    widenAscii8(chars, count, word);
+                }
                 while (count < utflen) {
                     int c = memory.readByte(address + count);
                     if (c < 0)
@@ -1543,6 +1675,8 @@ enum BytesInternal {
         final long pos = bytes.readPosition();
         throwExceptionIfReleased(bytes);
         int len = (int) Math.min(Integer.MAX_VALUE, bytes.readRemaining());
+        if (Jvm.isJava9Plus())
+            return read8bitString(bytes, pos, len);
         char[] chars = new char[len];
         if (bytes instanceof VanillaBytes) {
             try {
@@ -1561,6 +1695,45 @@ enum BytesInternal {
         return StringUtils.newString(chars);
     }
 
+    /**
+     * Creates a String of the 8-bit chars at an offset.
+     * <p>
+     * On Java 9+ the bytes are bulk copied to a byte[] reused by the thread, and the String takes a single copy of
+     * that as its Latin-1 value. This avoids widening each byte to a char[] which the String has to compress again.
+     *
+     * @param input  to read from
+     * @param offset of the first byte
+     * @param length the maximum number of bytes to read, fewer are read if the readLimit is reached first
+     * @return the String
+     */
+    @NotNull
+    @SuppressWarnings("deprecation")
+    public static String read8bitString(@NotNull RandomDataInput input, @NonNegative long offset, @NonNegative int length)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfReleased(input);
+        if (length == 0)
+            return "";
+        if (Jvm.isJava9Plus()) {
+            byte[] buffer = length <= MAX_LATIN1_BUFFER ? latin1Buffer(length) : new byte[length];
+            int read = (int) input.read(offset, buffer, 0, length);
+            // a hibyte of 0 is a copy of the bytes as Latin-1
+            return new String(buffer, 0, 0, read);
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) input.readUnsignedByte(offset + i);
+        return StringUtils.newString(chars);
+    }
+
+    private static byte[] latin1Buffer(@NonNegative int length) {
+        byte[] buffer = LATIN1_BUFFER_TL.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.min(MAX_LATIN1_BUFFER, Math.max(length, buffer.length * 2))];
+            LATIN1_BUFFER_TL.set(buffer);
+        }
+        return buffer;
+    }
+
     @NotNull
     public static String toString(@NotNull RandomDataInput bytes) {
         throwExceptionIfReleased(bytes);
@@ -2014,168 +2187,22 @@ enum BytesInternal {
         return 1;
     }
 
+    /**
+     * Appends the shortest text which parses back to the same double, in plain notation from 1e-18 up to 1e20
+     * and with an exponent outside that.
+     */
     public static void append(@NotNull StreamingDataOutput out, double d)
             throws BufferOverflowException, IllegalStateException {
-        long val = Double.doubleToRawLongBits(d);
-        int sign = (int) (val >>> 63);
-        int exp = (int) ((val >>> 52) & 2047);
-        long mantissa = val & ((1L << 52) - 1);
-        if (sign != 0) {
-            out.rawWriteByte((byte) '-');
-        }
-        if (exp == 0 && mantissa == 0) {
-            out.rawWriteByte((byte) '0');
-            out.rawWriteByte((byte) '.');
-            out.rawWriteByte((byte) '0');
-            return;
-
-        } else if (exp == 2047) {
-            if (mantissa == 0) {
-                out.write(INFINITY_BYTES);
-
-            } else {
-                out.write(NAN_BYTES);
-            }
-            return;
-
-        } else if (exp > 0) {
-            mantissa += 1L << 52;
-        }
-        final int shift = (1023 + 52) - exp;
-        if (shift > 0) {
-            // integer and faction
-            if (shift < 53) {
-                long intValue = mantissa >> shift;
-                appendLong0(out, intValue);
-                mantissa -= intValue << shift;
-                if (mantissa > 0) {
-                    out.rawWriteByte((byte) '.');
-                    mantissa <<= 1;
-                    mantissa++;
-                    int precision = shift + 1;
-                    long error = 1;
-
-                    long value = intValue;
-                    int decimalPlaces = 0;
-                    while (mantissa > error) {
-                        // times 5*2 = 10
-                        mantissa *= 5;
-                        error *= 5;
-                        precision--;
-                        long num = (mantissa >> precision);
-                        value = value * 10 + num;
-                        out.rawWriteByte((byte) ('0' + num));
-                        mantissa -= num << precision;
-
-                        final double parsedValue = asDouble(value, 0, sign != 0, ++decimalPlaces);
-                        if (parsedValue == d)
-                            break;
-                    }
-                } else {
-                    out.rawWriteByte((byte) '.');
-                    out.rawWriteByte((byte) '0');
-                }
-                return;
-
-            } else {
-                // faction.
-                out.rawWriteByte((byte) '0');
-                out.rawWriteByte((byte) '.');
-                mantissa <<= 6;
-                mantissa += (1 << 5);
-                int precision = shift + 6;
-
-                long error = (1 << 5);
-
-                long value = 0;
-                int decimalPlaces = 0;
-                while (mantissa > error) {
-                    while (mantissa > MAX_VALUE_DIVIDE_5) {
-                        mantissa >>>= 1;
-                        error = (error + 1) >>> 1;
-                        precision--;
-                    }
-                    // times 5*2 = 10
-                    mantissa *= 5;
-                    error *= 5;
-                    precision--;
-                    if (precision >= 64) {
-                        decimalPlaces++;
-                        out.rawWriteByte((byte) '0');
-                        continue;
-                    }
-                    long num = (mantissa >>> precision);
-                    value = value * 10 + num;
-                    final char c = (char) ('0' + num);
-                    assert !(c < '0' || c > '9');
-                    out.rawWriteByte((byte) c);
-                    mantissa -= num << precision;
-                    final double parsedValue = asDouble(value, 0, sign != 0, ++decimalPlaces);
-                    if (parsedValue == d)
-                        break;
-                }
-                return;
-            }
-        }
-        // large number
-        mantissa <<= 10;
-        int precision = -10 - shift;
-        int digits = 0;
-        while ((precision > 53 || mantissa > Long.MAX_VALUE >> precision) && precision > 0) {
-            digits++;
-            precision--;
-            long mod = mantissa % 5;
-            mantissa /= 5;
-            int modDiv = 1;
-            while (mantissa < MAX_VALUE_DIVIDE_5 && precision > 1) {
-                precision -= 1;
-                mantissa <<= 1;
-                modDiv <<= 1;
-            }
-            mantissa += modDiv * mod / 5;
-        }
-        long val2 = precision > 0 ? mantissa << precision : mantissa >>> -precision;
-
-        appendLong0(out, val2);
-        for (int i = 0; i < digits; i++)
-            out.rawWriteByte((byte) '0');
+        DoubleFormatter.append(out, d);
     }
 
-    private static double asDouble(long value, int exp, boolean negative, int deci) {
-        // these numbers were determined empirically.
-        int leading =
-                Long.numberOfLeadingZeros(value) - 1;
-        if (leading > 9)
-            leading = (27 + leading) >>> 2;
-
-        int scale2 = 0;
-        if (leading > 0) {
-            scale2 = leading;
-            value <<= scale2;
-        }
-        double d;
-        if (deci > 0) {
-            if (deci < 28) {
-                long fives = Maths.fives(deci);
-                long whole = value / fives;
-                long rem = value % fives;
-                d = whole + (double) rem / fives;
-            } else {
-                d = value / Math.pow(5, deci);
-            }
-        } else if (deci < -27) {
-            d = value * Math.pow(5, -deci);
-
-        } else if (deci < 0) {
-            double fives = Maths.fives(-deci);
-            d = value * fives;
-
-        } else {
-            d = value;
-        }
-
-        double scalb = Math.scalb(d, exp - deci - scale2);
-        return negative ? -scalb : scalb;
+    /**
+     * Appends the shortest text which parses back to the same float, in plain notation from 1e-3 up to 1e7
+     * and with an exponent outside that, as Float.toString does.
+     */
+    public static void append(@NotNull StreamingDataOutput out, float f)
+            throws BufferOverflowException, IllegalStateException {
+        DoubleFormatter.append(out, f);
     }
 
     @Nullable
@@ -2279,14 +2306,24 @@ enum BytesInternal {
             final int len = Math.toIntExact(bytes.realReadRemaining());
             final long address = nb.address + nb.translate(bytes.readPosition());
             @Nullable final Memory memory = nb.memory;
+            @Nullable final TableStopCharTester table = TableStopCharTester.tableFor(tester);
 
             if (Jvm.isJava9Plus()) {
                 final int appendableLength = appendable.capacity();
+                if (table != null && table.swar()) {
+                    // append eight bytes at a time until there might be a stop or non-ASCII character
+                    for (final int end = Math.min(len, appendableLength) - 7; i < end; i += 8) {
+                        if (table.mayStop(memory.readLong(address + i)))
+                            break;
+                        for (int j = 0; j < 8; j++)
+                            appendable.append((char) memory.readByte(address + i + j));
+                    }
+                }
                 for (; i < len && i < appendableLength; i++) {
                     int c = memory.readByte(address + i);
                     if (c < 0) // we have hit a non-ASCII character.
                         break;
-                    if (tester.isStopChar(c)) {
+                    if (table != null ? table.isStopChar(c) : tester.isStopChar(c)) {
                         bytes.readSkip(i + 1L);
                         StringUtils.setCount(appendable, i);
                         return;
@@ -2295,11 +2332,19 @@ enum BytesInternal {
                 }
             } else {
                 final char[] chars = StringUtils.extractChars(appendable);
+                if (table != null && table.swar()) {
+                    for (final int end = Math.min(len, chars.length) - 7; i < end; i += 8) {
+                        if (table.mayStop(memory.readLong(address + i)))
+                            break;
+                        for (int j = 0; j < 8; j++)
+                            chars[i + j] = (char) memory.readByte(address + i + j);
+                    }
+                }
                 for (; i < len && i < chars.length; i++) {
                     int c = memory.readByte(address + i);
                     if (c < 0) // we have hit a non-ASCII character.
                         break;
-                    if (tester.isStopChar(c)) {
+                    if (table != null ? table.isStopChar(c) : tester.isStopChar(c)) {
                         bytes.readSkip(i + 1L);
                         StringUtils.setCount(appendable, i);
                         return;
@@ -2384,13 +2429,14 @@ enum BytesInternal {
     private static void readUtf81(@NotNull StreamingDataInput bytes, @NotNull Appendable appendable, @NotNull StopCharTester tester)
             throws IOException, BufferUnderflowException, ArithmeticException, IllegalStateException {
         int len = Maths.toInt32(bytes.readRemaining());
+        @Nullable final TableStopCharTester table = TableStopCharTester.tableFor(tester);
         while (len-- > 0) {
             int c = bytes.rawReadByte() & 0xff;
             if (c >= 128) {
                 bytes.readSkip(-1);
                 break;
             }
-            if (tester.isStopChar(c))
+            if (table != null ? table.isStopChar(c) : tester.isStopChar(c))
                 return;
             appendable.append((char) c);
         }
@@ -2510,9 +2556,10 @@ enum BytesInternal {
         throwExceptionIfReleased(bytes);
         throwExceptionIfReleased(appendable);
         requireNonNull(tester);
+        @Nullable final TableStopCharTester table = TableStopCharTester.tableFor(tester);
         while (true) {
             int c = bytes.readUnsignedByte();
-            if (tester.isStopChar(c))
+            if (table != null ? table.isStopChar(c) : tester.isStopChar(c))
                 return;
             appendable.append((char) c);
             if (bytes.readRemaining() == 0)
@@ -2525,9 +2572,10 @@ enum BytesInternal {
         throwExceptionIfReleased(bytes);
         throwExceptionIfReleased(bytes2);
         requireNonNull(tester);
+        @Nullable final TableStopCharTester table = TableStopCharTester.tableFor(tester);
         while (true) {
             int c = bytes.readUnsignedByte();
-            if (tester.isStopChar(c))
+            if (table != null ? table.isStopChar(c) : tester.isStopChar(c))
                 return;
             bytes2.writeUnsignedByte(c);
             if (bytes.readRemaining() == 0)
@@ -2686,8 +2734,11 @@ enum BytesInternal {
 
     public static double parseDouble(@NotNull StreamingDataInput in)
             throws BufferUnderflowException, IllegalStateException {
+        // the first 19 significant digits as an unsigned long
         long value = 0;
-        int exp = 0;
+        int significant = 0;
+        int dropped = 0;
+        boolean truncated = false;
         boolean negative = false;
         int decimalPlaces = Integer.MIN_VALUE;
         boolean digits = false;
@@ -2726,15 +2777,21 @@ enum BytesInternal {
                 default:
                     // do nothing
             }
+            final long start = in.readPosition();
             int tens = 0;
             while (in.readRemaining() > 0) {
                 ch = in.readUnsignedByte() & 0xFF;
                 if (ch >= '0' && ch <= '9') {
-                    while (value >= MAX_VALUE_DIVIDE_10) {
-                        value >>>= 1;
-                        exp++;
+                    if (significant < DoubleParser.MAX_MANTISSA_DIGITS) {
+                        value = value * 10 + (ch - '0');
+                        // leading zeros are not significant
+                        if (value != 0)
+                            significant++;
+                    } else {
+                        dropped++;
+                        if (ch != '0')
+                            truncated = true;
                     }
-                    value = value * 10 + (ch - '0');
                     decimalPlaces++;
                     digits = true;
 
@@ -2755,9 +2812,10 @@ enum BytesInternal {
             if (decimalPlaces < 0)
                 decimalPlaces = 0;
 
+            final long exp10 = (long) dropped - decimalPlaces + tens;
             decimalPlaces = decimalPlaces - tens;
 
-            return asDouble(value, exp, negative, decimalPlaces);
+            return DoubleParser.toDouble(value, exp10, negative, truncated, in, start, tens);
         } finally {
             final ByteStringParser bsp = (ByteStringParser) in;
             bsp.lastDecimalPlaces(decimalPlaces);
@@ -2901,6 +2959,48 @@ enum BytesInternal {
         return negative ? -num : num;
     }
 
+    public static void parseDecimal(@NotNull StreamingDataInput in, @NotNull MutableDecimal decimal)
+            throws BufferUnderflowException, IllegalStateException, ArithmeticException {
+        long num = 0;
+        boolean negative = false;
+        int decimalPlaces = Integer.MIN_VALUE;
+        boolean digits = false;
+        boolean first = true;
+        while (in.readRemaining() > 0) {
+            int b = in.readUnsignedByte();
+            if ((b - ('0' + Integer.MIN_VALUE)) <= 9 + Integer.MIN_VALUE) {
+                int digit = b - '0';
+                if (num <= (Long.MAX_VALUE - digit) / 10) {
+                    num = num * 10 + digit;
+                    decimalPlaces++;
+                } else if (digit != 0 || decimalPlaces < 0) {
+                    throw new ArithmeticException("Too many digits for a decimal with a long mantissa");
+                }
+                // otherwise a trailing zero after the decimal point which doesn't change the value
+                digits = true;
+                first = false;
+            } else if (b == '.') {
+                decimalPlaces = 0;
+                first = false;
+            } else if (b == '-') {
+                negative = true;
+                first = false;
+            } else if (b == ']' || b == '}') {
+                in.readSkip(-1);
+                break;
+            } else if (b == '_' || b == '+') {
+                // ignore
+                first = false;
+            } else if (!first || b > ' ') {
+                break;
+            }
+        }
+        final ByteStringParser bsp = (ByteStringParser) in;
+        bsp.lastDecimalPlaces(decimalPlaces);
+        bsp.lastNumberHadDigits(digits);
+        decimal.set(negative ? -num : num, Math.max(0, decimalPlaces));
+    }
+
     public static long parseHexLong(@NotNull StreamingDataInput in)
             throws BufferUnderflowException, IllegalStateException {
         long num = 0;
@@ -2942,9 +3042,10 @@ enum BytesInternal {
 
     public static boolean skipTo(@NotNull ByteStringParser parser, @NotNull StopCharTester tester)
             throws IllegalStateException {
+        @Nullable final TableStopCharTester table = TableStopCharTester.tableFor(tester);
         while (parser.readRemaining() > 0) {
             int ch = parser.readUnsignedByte();
-            if (tester.isStopChar(ch))
+            if (table != null ? table.isStopChar(ch) : tester.isStopChar(ch))
                 return true;
         }
         return false;
@@ -3143,20 +3244,27 @@ enum BytesInternal {
 
     public static void appendDateMillis(@NotNull ByteStringAppender b, long timeInMS)
             throws BufferOverflowException, IllegalStateException {
-        DateCache dateCache = dateCacheTL.get();
-        if (dateCache == null) {
-            dateCache = new DateCache();
-            dateCacheTL.set(dateCache);
-        }
-        final long date = timeInMS / 86400000;
-        if (dateCache.lastDay != date) {
-            dateCache.lastDateStr = dateCache.dateFormat.format(new Date(timeInMS)).getBytes(ISO_8859_1);
-            dateCache.lastDay = date;
+        TimestampCodec.appendDate(b, Math.floorDiv(timeInMS, 86400_000L), false);
+    }
 
-        } else {
-            assert dateCache.lastDateStr != null;
-        }
-        b.write(dateCache.lastDateStr);
+    public static void appendIsoDateTime(@NotNull ByteStringAppender b, long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        TimestampCodec.appendIsoDateTime(b, time, unit);
+    }
+
+    public static void appendFixTimestamp(@NotNull ByteStringAppender b, long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        TimestampCodec.appendFixTimestamp(b, time, unit);
+    }
+
+    public static long parseIsoDateTime(@NotNull StreamingDataInput in, @NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        return TimestampCodec.parseIsoDateTime(in, unit);
+    }
+
+    public static long parseFixTimestamp(@NotNull StreamingDataInput in, @NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        return TimestampCodec.parseFixTimestamp(in, unit);
     }
 
     @NotNull
@@ -3407,16 +3515,6 @@ enum BytesInternal {
             MEMORY.writeByte(addressForWrite + i, bs.readByte(i));
     }
 
-    static class DateCache {
-        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
-        private long lastDay = Long.MIN_VALUE;
-        private byte[] lastDateStr = null;
-
-        DateCache() {
-            dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-        }
-    }
-
     public static <B extends BytesStore<B, U>, U> BytesStore<B, U> failIfBytesOnBytes(BytesStore<B, U> bytesStore) {
         // MappedBytes don't have a backing BytesStore so we have to allow them to be used this way
         if (bytesStore instanceof Bytes && ! (bytesStore instanceof MappedBytes)) {
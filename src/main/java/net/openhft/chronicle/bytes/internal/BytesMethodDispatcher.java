@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.BytesIn;
+
+/**
+ * Decodes the arguments of a message and calls the method it is for, generated by {@link BytesMethodReaderGenerator}
+ */
+@FunctionalInterface
+public interface BytesMethodDispatcher {
+    /**
+     * @param messageId the id read
+     * @param in        to read the arguments from
+     * @return true if a method was called, false if the message id is unknown and nothing was read
+     */
+    boolean dispatch(long messageId, BytesIn<?> in);
+}
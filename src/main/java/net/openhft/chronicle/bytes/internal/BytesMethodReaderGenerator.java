@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.*;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.util.ObjectUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.bytes.internal.ClassFileWriter.*;
+
+/**
+ * Generates a {@link BytesMethodDispatcher} for the objects passed to a {@link BytesMethodReader}, in place of a
+ * map of lambdas which call each method reflectively.
+ * <p>
+ * The message id is dispatched with a {@code tableswitch} or {@code lookupswitch} to a method per message which reads
+ * the arguments and calls the target method directly. Arguments are read as {@link MethodEncoderLookup} describes,
+ * marshallables, StringBuilders and Bytes are read into an instance reused for every message.
+ */
+public final class BytesMethodReaderGenerator {
+    private static final boolean REFLECTION = Jvm.getBoolean("bytes.method-reader.reflection");
+    private static final String SUFFIX = "$$BytesMethodReader";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ClassValue<Map<List<Object>, Optional<ReaderClass>>> READERS = new ClassValue<Map<List<Object>, Optional<ReaderClass>>>() {
+        @Override
+        protected Map<List<Object>, Optional<ReaderClass>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Map<Class<?>, Method> PRIMITIVE_READERS = new HashMap<>();
+    private static final Method READ_UTF8;
+    private static final Method READ_MARSHALLABLE;
+    private static final Method READ_UTF8_STRING_BUILDER;
+    private static final Method READ_8BIT;
+    private static final Method READ_ENUM;
+    private static final Method READ_OBJECT;
+
+    static {
+        try {
+            PRIMITIVE_READERS.put(boolean.class, StreamingDataInput.class.getMethod("readBoolean"));
+            PRIMITIVE_READERS.put(byte.class, StreamingDataInput.class.getMethod("readByte"));
+            PRIMITIVE_READERS.put(short.class, StreamingDataInput.class.getMethod("readShort"));
+            PRIMITIVE_READERS.put(char.class, StreamingDataInput.class.getMethod("readChar"));
+            PRIMITIVE_READERS.put(int.class, StreamingDataInput.class.getMethod("readInt"));
+            PRIMITIVE_READERS.put(long.class, StreamingDataInput.class.getMethod("readLong"));
+            PRIMITIVE_READERS.put(float.class, StreamingDataInput.class.getMethod("readFloat"));
+            PRIMITIVE_READERS.put(double.class, StreamingDataInput.class.getMethod("readDouble"));
+            READ_UTF8 = StreamingDataInput.class.getMethod("readUtf8");
+            READ_MARSHALLABLE = ReadBytesMarshallable.class.getMethod("readMarshallable", BytesIn.class);
+            READ_UTF8_STRING_BUILDER = StreamingDataInput.class.getMethod("readUtf8", StringBuilder.class);
+            READ_8BIT = StreamingDataInput.class.getMethod("read8bit", Bytes.class);
+            READ_ENUM = StreamingDataInput.class.getMethod("readEnum", Class.class);
+            READ_OBJECT = BytesIn.class.getMethod("readObject", Class.class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private BytesMethodReaderGenerator() {
+    }
+
+    /**
+     * Creates a dispatcher to the methods of the objects with a message id. Where two methods have the same id, the
+     * last one is called.
+     *
+     * @param methodEncoderLookup gives the message id of each method
+     * @param objects             to call
+     * @return the dispatcher, or null if the methods should be called by reflection
+     */
+    @Nullable
+    public static BytesMethodDispatcher newDispatcher(@NotNull Function<Method, MethodEncoder> methodEncoderLookup, @NotNull Object... objects) {
+        if (REFLECTION || objects.length == 0)
+            return null;
+        List<Object> key = new ArrayList<>(objects.length + 1);
+        key.add(methodEncoderLookup);
+        for (Object object : objects)
+            key.add(object.getClass());
+        Optional<ReaderClass> readerClass = READERS.get(objects[0].getClass())
+                .computeIfAbsent(key, k -> Optional.ofNullable(generate(methodEncoderLookup, objects)));
+        if (!readerClass.isPresent())
+            return null;
+
+        Class<?>[] argumentTypes = readerClass.get().argumentTypes;
+        Object[] arguments = new Object[argumentTypes.length];
+        for (int i = 0; i < argumentTypes.length; i++)
+            arguments[i] = argumentTypes[i] == Bytes.class
+                    ? Bytes.allocateElasticOnHeap()
+                    : ObjectUtils.newInstance(argumentTypes[i]);
+        try {
+            return (BytesMethodDispatcher) readerClass.get().constructor.newInstance(objects, arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } catch (LinkageError e) {
+            // the class is verified when first used, use reflection from now on
+            Jvm.debug().on(BytesMethodReaderGenerator.class, "Using reflection to call " + Arrays.toString(objects) + ", " + e);
+            READERS.get(objects[0].getClass()).put(key, Optional.empty());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static ReaderClass generate(@NotNull Function<Method, MethodEncoder> methodEncoderLookup, @NotNull Object[] objects) {
+        Map<Long, Handler> handlers = new LinkedHashMap<>();
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (int i = 0; i < objects.length; i++) {
+            Class<?> objectClass = objects[i].getClass();
+            for (Method method : objectClass.getMethods()) {
+                if (method.isBridge() || Modifier.isStatic(method.getModifiers()))
+                    continue;
+                MethodEncoder encoder = methodEncoderLookup.apply(method);
+                if (encoder == null)
+                    continue;
+                Handler handler = handlerFor(i, objectClass, method);
+                types.add(handler.owner);
+                Collections.addAll(types, method.getParameterTypes());
+                handlers.put(encoder.messageId(), handler);
+            }
+        }
+
+        // define the class next to a type it might not otherwise be able to access
+        Class<?> neighbour = BytesMethodReaderGenerator.class;
+        for (Class<?> type : types) {
+            if (!isAccessibleFrom(type, BytesMethodReaderGenerator.class)) {
+                neighbour = type;
+                break;
+            }
+        }
+        for (Class<?> type : types)
+            if (!isAccessibleFrom(type, neighbour))
+                return null;
+
+        ClassFileWriter cfw = new ClassFileWriter(neighbour.getName() + SUFFIX + COUNTER.incrementAndGet(), Object.class, BytesMethodDispatcher.class);
+        for (int i = 0; i < objects.length; i++)
+            cfw.field(ACC_PRIVATE | ACC_FINAL, "target" + i, Object.class);
+        List<Class<?>> argumentTypes = new ArrayList<>();
+        ClassFileWriter.Code constructor = cfw.constructor(ACC_PUBLIC, Object[].class, Object[].class);
+        for (int i = 0; i < objects.length; i++)
+            constructor.aload(0).aload(1).iconst(i).aaload().putField("target" + i, Object.class);
+
+        int index = 0;
+        for (Handler handler : handlers.values()) {
+            ClassFileWriter.Code code = cfw.method(ACC_PRIVATE, "call" + index++, void.class, BytesIn.class);
+            code.aload(0).getField("target" + handler.target, Object.class).checkcast(handler.owner);
+            for (Class<?> type : handler.method.getParameterTypes()) {
+                Method reader = PRIMITIVE_READERS.get(type);
+                if (reader != null) {
+                    code.aload(1).invoke(reader);
+
+                } else if (ReadBytesMarshallable.class.isAssignableFrom(type)) {
+                    code.aload(0).getField(argument(cfw, constructor, argumentTypes, type), type)
+                            .dup()
+                            .aload(1)
+                            .invoke(type, READ_MARSHALLABLE);
+
+                } else if (type.isEnum()) {
+                    code.aload(1).ldc(type).invoke(READ_ENUM).checkcast(type);
+
+                } else if (BytesStore.class.isAssignableFrom(type) && type.isAssignableFrom(Bytes.class)) {
+                    readOrNull(code, argument(cfw, constructor, argumentTypes, Bytes.class), Bytes.class, READ_8BIT);
+
+                } else if (type == String.class) {
+                    code.aload(1).invoke(READ_UTF8);
+
+                } else if (CharSequence.class.isAssignableFrom(type) && type.isAssignableFrom(StringBuilder.class)) {
+                    readOrNull(code, argument(cfw, constructor, argumentTypes, StringBuilder.class), StringBuilder.class, READ_UTF8_STRING_BUILDER);
+
+                } else {
+                    // only Integer, Long or Double, the lookup rejects the types readObject cannot read
+                    code.aload(1).ldc(type).invoke(READ_OBJECT).checkcast(type);
+                }
+            }
+            code.invoke(handler.owner, handler.method)
+                    .pop(handler.method.getReturnType())
+                    .returnValue(void.class);
+        }
+        constructor.returnValue(void.class);
+
+        ClassFileWriter.Code dispatch = cfw.method(ACC_PUBLIC, "dispatch", boolean.class, long.class, BytesIn.class);
+        int key = dispatch.newLocal(int.class);
+        ClassFileWriter.Label notInt = dispatch.newLabel();
+        List<Integer> intCalls = new ArrayList<>();
+        List<Integer> longCalls = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(handlers.keySet());
+        for (int i = 0; i < ids.size(); i++)
+            (ids.get(i) == ids.get(i).intValue() ? intCalls : longCalls).add(i);
+
+        dispatch.load(long.class, 1).insn(L2I, -1).store(int.class, key)
+                .load(int.class, key).insn(I2L, 1).load(long.class, 1).insn(LCMP, -3)
+                .jump(IFNE, notInt);
+        if (!intCalls.isEmpty()) {
+            int[] keys = new int[intCalls.size()];
+            ClassFileWriter.Label[] labels = new ClassFileWriter.Label[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ids.get(intCalls.get(i)).intValue();
+                labels[i] = dispatch.newLabel();
+            }
+            dispatch.load(int.class, key).switchInt(keys, labels, notInt);
+            for (int i = 0; i < keys.length; i++) {
+                dispatch.mark(labels[i]);
+                callAndReturn(dispatch, intCalls.get(i));
+            }
+        }
+        dispatch.mark(notInt);
+        for (int call : longCalls) {
+            ClassFileWriter.Label next = dispatch.newLabel();
+            dispatch.load(long.class, 1).ldc(ids.get(call)).insn(LCMP, -3)
+                    .jump(IFNE, next);
+            callAndReturn(dispatch, call);
+            dispatch.mark(next);
+        }
+        dispatch.iconst(0).returnValue(boolean.class);
+
+        try {
+            Class<?> generated = cfw.define(neighbour);
+            return new ReaderClass(generated.getConstructor(Object[].class, Object[].class), argumentTypes.toArray(new Class<?>[0]));
+        } catch (IllegalStateException | NoSuchMethodException | LinkageError e) {
+            Jvm.debug().on(BytesMethodReaderGenerator.class, "Using reflection to call " + Arrays.toString(objects) + ", " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds a field for an argument which is reused for each message
+     */
+    private static String argument(ClassFileWriter cfw, ClassFileWriter.Code constructor, List<Class<?>> argumentTypes, Class<?> type) {
+        String name = "argument" + argumentTypes.size();
+        cfw.field(ACC_PRIVATE | ACC_FINAL, name, type);
+        constructor.aload(0).aload(2).iconst(argumentTypes.size()).aaload().checkcast(type).putField(name, type);
+        argumentTypes.add(type);
+        return name;
+    }
+
+    /**
+     * Reads into a reused argument, passing null instead if a null was written
+     */
+    private static void readOrNull(ClassFileWriter.Code code, String name, Class<?> type, Method reader) {
+        ClassFileWriter.Label notNull = code.newLabel();
+        code.aload(0).getField(name, type)
+                .dup()
+                .aload(1)
+                .swap()
+                .invoke(reader)
+                .jump(IFNE, notNull)
+                .pop(Object.class)
+                .aconstNull()
+                .mark(notNull);
+    }
+
+    private static void callAndReturn(ClassFileWriter.Code dispatch, int call) {
+        dispatch.aload(0).aload(3)
+                .invokeThis("call" + call, false, void.class, BytesIn.class)
+                .iconst(1).returnValue(boolean.class);
+    }
+
+    /**
+     * Prefer calling a method through an interface, the class of the object might be a lambda or Proxy which cannot be
+     * named.
+     */
+    @NotNull
+    private static Handler handlerFor(int target, @NotNull Class<?> objectClass, @NotNull Method method) {
+        for (Class<?> c = objectClass; c != null; c = c.getSuperclass()) {
+            for (Class<?> anInterface : c.getInterfaces()) {
+                try {
+                    return new Handler(target, anInterface, anInterface.getMethod(method.getName(), method.getParameterTypes()));
+                } catch (NoSuchMethodException e) {
+                    // not declared by this interface
+                }
+            }
+        }
+        return new Handler(target, method.getDeclaringClass(), method);
+    }
+
+    private static final class Handler {
+        final int target;
+        final Class<?> owner;
+        final Method method;
+
+        Handler(int target, Class<?> owner, Method method) {
+            this.target = target;
+            this.owner = owner;
+            this.method = method;
+        }
+    }
+
+    private static final class ReaderClass {
+        final Constructor<?> constructor;
+        final Class<?>[] argumentTypes;
+
+        ReaderClass(Constructor<?> constructor, Class<?>[] argumentTypes) {
+            this.constructor = constructor;
+            this.argumentTypes = argumentTypes;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.*;
+import net.openhft.chronicle.core.Jvm;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.openhft.chronicle.bytes.internal.ClassFileWriter.*;
+
+/**
+ * Generates a class per interface which writes each call to a {@link BytesOut}, in place of a
+ * {@link java.lang.reflect.Proxy} and {@link net.openhft.chronicle.bytes.BinaryBytesMethodWriterInvocationHandler}.
+ * <p>
+ * Each method with a {@link MethodId} writes the stop bit encoded id followed by its arguments. Primitives are written
+ * directly, e.g. an int as four bytes and a char as a stop bit, without boxing or an {@code Object[]}. Other types are
+ * encoded as {@link MethodEncoderLookup} describes.
+ * <p>
+ * A method which returns a type the interface can be assigned to returns the writer so calls can be chained.
+ */
+public final class BytesMethodWriterGenerator {
+    private static final boolean PROXY = Jvm.getBoolean("bytes.method-writer.proxy");
+    private static final String SUFFIX = "$$BytesMethodWriter";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ClassValue<Map<List<Object>, Optional<Constructor<?>>>> WRITERS = new ClassValue<Map<List<Object>, Optional<Constructor<?>>>>() {
+        @Override
+        protected Map<List<Object>, Optional<Constructor<?>>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Map<Class<?>, Method> PRIMITIVE_WRITERS = new HashMap<>();
+    private static final Method WRITE_HEX_DUMP_DESCRIPTION;
+    private static final Method WRITE_STOP_BIT;
+    private static final Method WRITE_UTF8;
+    private static final Method WRITE_UTF8_CHAR_SEQUENCE;
+    private static final Method WRITE_8BIT;
+    private static final Method WRITE_ENUM;
+    private static final Method WRITE_MARSHALLABLE;
+    private static final Method WRITE_OBJECT;
+    private static final Method UNKNOWN_METHOD;
+    private static final Method RUN;
+
+    static {
+        try {
+            PRIMITIVE_WRITERS.put(boolean.class, StreamingDataOutput.class.getMethod("writeBoolean", boolean.class));
+            PRIMITIVE_WRITERS.put(byte.class, StreamingDataOutput.class.getMethod("writeByte", byte.class));
+            PRIMITIVE_WRITERS.put(short.class, StreamingDataOutput.class.getMethod("writeShort", short.class));
+            PRIMITIVE_WRITERS.put(char.class, StreamingDataOutput.class.getMethod("writeChar", char.class));
+            PRIMITIVE_WRITERS.put(int.class, StreamingDataOutput.class.getMethod("writeInt", int.class));
+            PRIMITIVE_WRITERS.put(long.class, StreamingDataOutput.class.getMethod("writeLong", long.class));
+            PRIMITIVE_WRITERS.put(float.class, StreamingDataOutput.class.getMethod("writeFloat", float.class));
+            PRIMITIVE_WRITERS.put(double.class, StreamingDataOutput.class.getMethod("writeDouble", double.class));
+            WRITE_HEX_DUMP_DESCRIPTION = HexDumpBytesDescription.class.getMethod("writeHexDumpDescription", CharSequence.class);
+            WRITE_STOP_BIT = StreamingDataOutput.class.getMethod("writeStopBit", long.class);
+            WRITE_UTF8 = StreamingDataOutput.class.getMethod("writeUtf8", String.class);
+            WRITE_UTF8_CHAR_SEQUENCE = StreamingDataOutput.class.getMethod("writeUtf8", CharSequence.class);
+            WRITE_8BIT = StreamingDataOutput.class.getMethod("write8bit", CharSequence.class);
+            WRITE_ENUM = StreamingDataOutput.class.getMethod("writeEnum", Enum.class);
+            WRITE_MARSHALLABLE = WriteBytesMarshallable.class.getMethod("writeMarshallable", BytesOut.class);
+            WRITE_OBJECT = BytesOut.class.getMethod("writeObject", Class.class, Object.class);
+            UNKNOWN_METHOD = BytesMethodWriterGenerator.class.getMethod("unknownMethod", String.class);
+            RUN = Runnable.class.getMethod("run");
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private BytesMethodWriterGenerator() {
+    }
+
+    /**
+     * Creates a generated method writer for the interfaces
+     *
+     * @param tClass     the primary interface
+     * @param additional any additional interfaces
+     * @param out        to write to
+     * @return the writer, or null if a Proxy should be used
+     */
+    @Nullable
+    public static <T> T newInstance(@NotNull Class<T> tClass, @NotNull Class<?>[] additional, @NotNull BytesOut<?> out) {
+        return newInstance(tClass, additional, out, null);
+    }
+
+    /**
+     * Creates a generated method writer for the interfaces
+     *
+     * @param tClass       the primary interface
+     * @param additional   any additional interfaces
+     * @param out          to write to
+     * @param afterMessage if not null, called after each message is written
+     * @return the writer, or null if a Proxy should be used
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> T newInstance(@NotNull Class<T> tClass, @NotNull Class<?>[] additional, @NotNull BytesOut<?> out, @Nullable Runnable afterMessage) {
+        if (PROXY)
+            return null;
+        List<Object> key = new ArrayList<>(additional.length + 1);
+        Collections.addAll(key, additional);
+        key.add(afterMessage != null);
+        Optional<Constructor<?>> constructor = WRITERS.get(tClass).computeIfAbsent(key, k -> Optional.ofNullable(generate(tClass, additional, afterMessage != null)));
+        if (!constructor.isPresent())
+            return null;
+        try {
+            return (T) constructor.get().newInstance(out, afterMessage);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } catch (LinkageError e) {
+            // the class is verified when first used, use a Proxy from now on
+            Jvm.debug().on(BytesMethodWriterGenerator.class, "Using a Proxy for " + tClass.getName() + ", " + e);
+            WRITERS.get(tClass).put(key, Optional.empty());
+            return null;
+        }
+    }
+
+    /**
+     * Called by a generated writer for a method without a {@link MethodId}
+     */
+    public static void unknownMethod(String method) {
+        Jvm.warn().on(BytesMethodWriterGenerator.class, "Unknown method " + method + " ignored");
+    }
+
+    @Nullable
+    private static Constructor<?> generate(@NotNull Class<?> tClass, @NotNull Class<?>[] additional, boolean afterMessage) {
+        Class<?>[] interfaces = new Class<?>[additional.length + 1];
+        interfaces[0] = tClass;
+        System.arraycopy(additional, 0, interfaces, 1, additional.length);
+        for (Class<?> anInterface : interfaces)
+            if (!anInterface.isInterface() || !isAccessibleFrom(anInterface, tClass))
+                return null;
+
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Class<?> anInterface : interfaces) {
+            for (Method method : anInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method))
+                    continue;
+                String signature = method.getName() + descriptor(void.class, method.getParameterTypes());
+                Method previous = methods.get(signature);
+                if (previous == null || previous.getReturnType().isAssignableFrom(method.getReturnType()))
+                    methods.put(signature, method);
+                else if (!method.getReturnType().isAssignableFrom(previous.getReturnType()))
+                    return null;
+            }
+        }
+
+        ClassFileWriter cfw = new ClassFileWriter(tClass.getName() + SUFFIX + COUNTER.incrementAndGet(), Object.class, interfaces);
+        cfw.field(ACC_PRIVATE | ACC_FINAL, "out", BytesOut.class);
+        cfw.field(ACC_PRIVATE | ACC_FINAL, "afterMessage", Runnable.class);
+        cfw.constructor(ACC_PUBLIC, BytesOut.class, Runnable.class)
+                .aload(0).aload(1).putField("out", BytesOut.class)
+                .aload(0).aload(2).putField("afterMessage", Runnable.class)
+                .returnValue(void.class);
+
+        for (Method method : methods.values()) {
+            MethodEncoder encoder = MethodEncoderLookup.BY_ANNOTATION.apply(method);
+            if (encoder == null && method.isDefault())
+                continue;
+            for (Class<?> parameterType : method.getParameterTypes())
+                if (!parameterType.isPrimitive() && !isAccessibleFrom(parameterType, tClass))
+                    return null;
+            ClassFileWriter.Code code = cfw.method(ACC_PUBLIC, method.getName(), method.getReturnType(), method.getParameterTypes());
+            if (encoder == null)
+                code.ldc(method.toString()).invoke(UNKNOWN_METHOD);
+            else
+                writeCall(code, method, encoder.messageId());
+            if (encoder != null && afterMessage)
+                code.aload(0).getField("afterMessage", Runnable.class).invoke(RUN);
+
+            Class<?> returnType = method.getReturnType();
+            if (!returnType.isPrimitive() && returnType.isAssignableFrom(tClass))
+                code.aload(0);
+            else
+                code.zero(returnType);
+            code.returnValue(returnType);
+        }
+
+        try {
+            return cfw.define(tClass).getConstructor(BytesOut.class, Runnable.class);
+        } catch (IllegalStateException | NoSuchMethodException | LinkageError e) {
+            Jvm.debug().on(BytesMethodWriterGenerator.class, "Using a Proxy for " + tClass.getName() + ", " + e);
+            return null;
+        }
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static void writeCall(ClassFileWriter.Code code, Method method, long messageId) {
+        code.aload(0).getField("out", BytesOut.class)
+                .ldc(method.getName())
+                .invoke(WRITE_HEX_DUMP_DESCRIPTION)
+                .pop(Object.class);
+        code.aload(0).getField("out", BytesOut.class)
+                .lconst(messageId)
+                .invoke(WRITE_STOP_BIT)
+                .pop(Object.class);
+
+        int local = 1;
+        for (Class<?> type : method.getParameterTypes()) {
+            Method writer = PRIMITIVE_WRITERS.get(type);
+            if (writer != null) {
+                code.aload(0).getField("out", BytesOut.class)
+                        .load(type, local)
+                        .invoke(writer)
+                        .pop(Object.class);
+
+            } else if (WriteBytesMarshallable.class.isAssignableFrom(type)) {
+                code.aload(local)
+                        .aload(0).getField("out", BytesOut.class)
+                        .invoke(WRITE_MARSHALLABLE);
+
+            } else if (type.isEnum()) {
+                writeArgument(code, local, WRITE_ENUM);
+
+            } else if (BytesStore.class.isAssignableFrom(type)) {
+                writeArgument(code, local, WRITE_8BIT);
+
+            } else if (type == String.class) {
+                writeArgument(code, local, WRITE_UTF8);
+
+            } else if (CharSequence.class.isAssignableFrom(type)) {
+                writeArgument(code, local, WRITE_UTF8_CHAR_SEQUENCE);
+
+            } else {
+                // only Integer, Long or Double, MethodEncoderLookup rejects the types readObject cannot read
+                code.aload(0).getField("out", BytesOut.class)
+                        .ldc(type)
+                        .aload(local)
+                        .invoke(WRITE_OBJECT);
+            }
+            local += size(type);
+        }
+    }
+
+    private static void writeArgument(ClassFileWriter.Code code, int local, Method writer) {
+        code.aload(0).getField("out", BytesOut.class)
+                .aload(local)
+                .invoke(writer)
+                .pop(Object.class);
+    }
+}
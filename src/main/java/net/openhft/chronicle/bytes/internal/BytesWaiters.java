@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferUnderflowException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits for an int in a BytesStore to change, for {@link BytesStore#waitUntilChanged(long, int, long)} and
+ * {@link BytesStore#wake(long, int)}.
+ * <p>
+ * A waiter spins briefly, then sleeps. On Linux a waiter on native memory sleeps in a {@link Futex}, so a
+ * {@link BytesStore#wake(long, int)} from any process mapping the same memory wakes it at once. It wakes every
+ * {@code bytes.wait.max-futex-us} microseconds, 10000 by default, to check for an interrupt or a change without a wake.
+ * <p>
+ * Elsewhere, threads parked on native memory are registered by address so a {@link BytesStore#wake(long, int)} in the
+ * same process unparks them at once. A change made by another process cannot unpark this one, so a parked thread wakes
+ * every {@code bytes.wait.max-park-us} microseconds, 50 by default, to check the value again.
+ */
+public final class BytesWaiters {
+    private static final int SPINS = 128;
+    private static final long MAX_PARK_NS = Jvm.getInteger("bytes.wait.max-park-us", 50) * 1000L;
+    private static final long MAX_FUTEX_NS = Jvm.getInteger("bytes.wait.max-futex-us", 10_000) * 1000L;
+    private static final Map<Long, Set<Thread>> WAITERS = new ConcurrentHashMap<>();
+
+    private BytesWaiters() {
+    }
+
+    /**
+     * @return true if the value is not {@code expected}, false on timeout or interrupt
+     */
+    public static boolean waitUntilChanged(@NotNull BytesStore<?, ?> bytesStore, @NonNegative long offset, int expected, long timeoutNanos)
+            throws BufferUnderflowException, IllegalStateException {
+        for (int i = 0; i < SPINS; i++) {
+            if (bytesStore.readVolatileInt(offset) != expected)
+                return true;
+            Jvm.nanoPause();
+        }
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final Long address = bytesStore.isDirectMemory() ? bytesStore.addressForRead(offset) : null;
+        if (address != null && Futex.isSupported(address))
+            return futexWait(bytesStore, offset, address, expected, deadline);
+        final Thread thread = Thread.currentThread();
+        if (address != null)
+            WAITERS.compute(address, (k, set) -> {
+                if (set == null)
+                    set = ConcurrentHashMap.newKeySet();
+                set.add(thread);
+                return set;
+            });
+        try {
+            for (; ; ) {
+                // checked after registering so a wake after the change is not missed
+                if (bytesStore.readVolatileInt(offset) != expected)
+                    return true;
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || Thread.currentThread().isInterrupted())
+                    return false;
+                LockSupport.parkNanos(bytesStore, Math.min(remaining, MAX_PARK_NS));
+            }
+        } finally {
+            if (address != null)
+                WAITERS.computeIfPresent(address, (k, set) -> {
+                    set.remove(thread);
+                    return set.isEmpty() ? null : set;
+                });
+        }
+    }
+
+    private static boolean futexWait(BytesStore<?, ?> bytesStore, long offset, long address, int expected, long deadline) {
+        for (; ; ) {
+            if (bytesStore.readVolatileInt(offset) != expected)
+                return true;
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted())
+                return false;
+            // returns at once if the value is no longer expected, so a wake after the check is not missed
+            Futex.waitNanos(address, expected, Math.min(remaining, MAX_FUTEX_NS));
+        }
+    }
+
+    /**
+     * @return the number of threads woken, in any process when using a futex, otherwise in this process
+     */
+    public static int wake(@NotNull BytesStore<?, ?> bytesStore, @NonNegative long offset, int count)
+            throws BufferUnderflowException, IllegalStateException {
+        if (count <= 0 || !bytesStore.isDirectMemory())
+            return 0;
+        final long address = bytesStore.addressForRead(offset);
+        if (Futex.isSupported(address))
+            return Futex.wake(address, count);
+        if (WAITERS.isEmpty())
+            return 0;
+        final int[] woken = {0};
+        WAITERS.computeIfPresent(address, (k, set) -> {
+            for (Iterator<Thread> iterator = set.iterator(); iterator.hasNext() && woken[0] < count; ) {
+                LockSupport.unpark(iterator.next());
+                woken[0]++;
+            }
+            return set;
+        });
+        return woken[0];
+    }
+}
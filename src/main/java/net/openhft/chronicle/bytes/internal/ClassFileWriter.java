@@ -0,0 +1,901 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.core.Jvm;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer of class files for the classes Chronicle Bytes generates at runtime, without a dependency on a
+ * bytecode library or a compiler.
+ * <p>
+ * The class files are version 49 (Java 5) which the JVM verifies by type inference, so no stack map frames are needed.
+ * The maximum stack depth is tracked as instructions are added, this assumes the stack is empty at a label which is
+ * reached only by a jump.
+ * <p>
+ * A generated class is defined in the same package and class loader as a neighbouring class so it can use
+ * package-private types in that package.
+ */
+public final class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+    public static final int ACC_SYNTHETIC = 0x1000;
+
+    public static final int IADD = 0x60;
+    public static final int LADD = 0x61;
+    public static final int ISUB = 0x64;
+    public static final int LSUB = 0x65;
+    public static final int IMUL = 0x68;
+    public static final int LMUL = 0x69;
+    public static final int ISHL = 0x78;
+    public static final int LSHL = 0x79;
+    public static final int IUSHR = 0x7c;
+    public static final int LUSHR = 0x7d;
+    public static final int IAND = 0x7e;
+    public static final int LAND = 0x7f;
+    public static final int IOR = 0x80;
+    public static final int LOR = 0x81;
+    public static final int IXOR = 0x82;
+    public static final int LXOR = 0x83;
+    public static final int I2L = 0x85;
+    public static final int L2I = 0x88;
+    public static final int I2B = 0x91;
+    public static final int I2C = 0x92;
+    public static final int I2S = 0x93;
+    public static final int LCMP = 0x94;
+    public static final int IFEQ = 0x99;
+    public static final int IFNE = 0x9a;
+    public static final int IFLT = 0x9b;
+    public static final int IFGE = 0x9c;
+    public static final int IFGT = 0x9d;
+    public static final int IFLE = 0x9e;
+    public static final int IF_ICMPEQ = 0x9f;
+    public static final int IF_ICMPNE = 0xa0;
+    public static final int IF_ICMPLT = 0xa1;
+    public static final int IF_ICMPGE = 0xa2;
+    public static final int IF_ICMPGT = 0xa3;
+    public static final int IF_ICMPLE = 0xa4;
+    public static final int IF_ACMPEQ = 0xa5;
+    public static final int IF_ACMPNE = 0xa6;
+    public static final int IFNULL = 0xc6;
+    public static final int IFNONNULL = 0xc7;
+
+    private static final int VERSION = 49;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final MethodHandle PRIVATE_LOOKUP_IN;
+    private static final MethodHandle LOOKUP_DEFINE_CLASS;
+    private static final Method CLASS_LOADER_DEFINE_CLASS;
+
+    static {
+        MethodHandle privateLookupIn = null;
+        MethodHandle lookupDefineClass = null;
+        Method classLoaderDefineClass = null;
+        try {
+            if (Jvm.isJava9Plus()) {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                privateLookupIn = lookup.findStatic(MethodHandles.class, "privateLookupIn",
+                        MethodType.methodType(MethodHandles.Lookup.class, Class.class, MethodHandles.Lookup.class));
+                lookupDefineClass = lookup.findVirtual(MethodHandles.Lookup.class, "defineClass",
+                        MethodType.methodType(Class.class, byte[].class));
+            } else {
+                classLoaderDefineClass = Jvm.getMethod(ClassLoader.class, "defineClass",
+                        String.class, byte[].class, int.class, int.class);
+            }
+        } catch (Exception e) {
+            Jvm.debug().on(ClassFileWriter.class, "Unable to define generated classes " + e);
+        }
+        PRIVATE_LOOKUP_IN = privateLookupIn;
+        LOOKUP_DEFINE_CLASS = lookupDefineClass;
+        CLASS_LOADER_DEFINE_CLASS = classLoaderDefineClass;
+    }
+
+    private final String className;
+    private final String internalName;
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<Code> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private int poolCount = 1;
+
+    /**
+     * @param className  the binary name of the class to generate e.g. {@code a.b.C$Generated}
+     * @param superClass the class extended
+     * @param interfaces the interfaces implemented
+     */
+    public ClassFileWriter(@NotNull String className, @NotNull Class<?> superClass, @NotNull Class<?>... interfaces) {
+        this.className = className;
+        this.internalName = className.replace('.', '/');
+        this.thisClass = classConstant(internalName);
+        this.superClass = classConstant(superClass);
+        this.interfaces = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++)
+            this.interfaces[i] = classConstant(interfaces[i]);
+    }
+
+    @NotNull
+    public static String internalName(@NotNull Class<?> type) {
+        return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+    }
+
+    @NotNull
+    public static String descriptor(@NotNull Class<?> type) {
+        if (type.isArray())
+            return type.getName().replace('.', '/');
+        if (type.isPrimitive()) {
+            switch (type.getName()) {
+                case "boolean":
+                    return "Z";
+                case "byte":
+                    return "B";
+                case "short":
+                    return "S";
+                case "char":
+                    return "C";
+                case "int":
+                    return "I";
+                case "long":
+                    return "J";
+                case "float":
+                    return "F";
+                case "double":
+                    return "D";
+                default:
+                    return "V";
+            }
+        }
+        return "L" + internalName(type) + ";";
+    }
+
+    @NotNull
+    public static String descriptor(@NotNull Class<?> returnType, @NotNull Class<?>... parameterTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> parameterType : parameterTypes)
+            sb.append(descriptor(parameterType));
+        return sb.append(')').append(descriptor(returnType)).toString();
+    }
+
+    /**
+     * @return the number of local variable slots a value of this type uses
+     */
+    public static int size(@NotNull Class<?> type) {
+        return type == long.class || type == double.class ? 2 : type == void.class ? 0 : 1;
+    }
+
+    /**
+     * @return whether a class generated next to a neighbour can refer to this type
+     */
+    public static boolean isAccessibleFrom(@NotNull Class<?> type, @NotNull Class<?> neighbour) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (Modifier.isPrivate(c.getModifiers()))
+                return false;
+            if (!Modifier.isPublic(c.getModifiers())
+                    && (c.getClassLoader() != neighbour.getClassLoader() || !packageName(c).equals(packageName(neighbour))))
+                return false;
+        }
+        // the neighbour's class loader must resolve the name to the same class, which excludes hidden classes
+        try {
+            return Class.forName(type.getName(), false, neighbour.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static String packageName(Class<?> c) {
+        String name = c.getName();
+        int last = name.lastIndexOf('.');
+        return last < 0 ? "" : name.substring(0, last);
+    }
+
+    @NotNull
+    public String className() {
+        return className;
+    }
+
+    @NotNull
+    public String internalName() {
+        return internalName;
+    }
+
+    public void field(int access, @NotNull String name, @NotNull Class<?> type) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor(type)));
+            out.writeShort(0);
+            fields.add(baos.toByteArray());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Adds a method, the instructions are added to the Code returned.
+     */
+    @NotNull
+    public Code method(int access, @NotNull String name, @NotNull Class<?> returnType, @NotNull Class<?>... parameterTypes) {
+        int locals = (access & ACC_STATIC) == 0 ? 1 : 0;
+        for (Class<?> parameterType : parameterTypes)
+            locals += size(parameterType);
+        Code code = new Code(access, utf8(name), utf8(descriptor(returnType, parameterTypes)), locals);
+        methods.add(code);
+        return code;
+    }
+
+    /**
+     * Adds a constructor which calls the no-argument constructor of the super class, the rest of the instructions are
+     * added to the Code returned.
+     */
+    @NotNull
+    public Code constructor(int access, @NotNull Class<?>... parameterTypes) {
+        Code code = method(access, "<init>", void.class, parameterTypes);
+        code.aload(0);
+        code.invokeSpecial(superClass, "<init>", "()V", -1);
+        return code;
+    }
+
+    @NotNull
+    public byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            int code = utf8("Code");
+            for (Code method : methods)
+                method.resolve();
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces)
+                out.writeShort(i);
+            out.writeShort(fields.size());
+            for (byte[] field : fields)
+                out.write(field);
+            out.writeShort(methods.size());
+            for (Code method : methods)
+                method.writeTo(out, code);
+            out.writeShort(0);
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Defines the class in the package and class loader of the neighbour, which must be in the same package.
+     *
+     * @param neighbour a class in the same package
+     * @return the class defined
+     * @throws IllegalStateException if the class could not be defined
+     */
+    @NotNull
+    public Class<?> define(@NotNull Class<?> neighbour)
+            throws IllegalStateException {
+        byte[] bytes = toByteArray();
+        try {
+            if (LOOKUP_DEFINE_CLASS != null) {
+                Object lookup = PRIVATE_LOOKUP_IN.invoke(neighbour, MethodHandles.lookup());
+                return (Class<?>) LOOKUP_DEFINE_CLASS.invoke(lookup, bytes);
+            }
+            if (CLASS_LOADER_DEFINE_CLASS != null)
+                return (Class<?>) CLASS_LOADER_DEFINE_CLASS.invoke(neighbour.getClassLoader(), className, bytes, 0, bytes.length);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to define " + className, t);
+        }
+        throw new IllegalStateException("Unable to define " + className + " on this JVM");
+    }
+
+    int utf8(@NotNull String s) {
+        return constant("U" + s, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(s);
+        }, 1);
+    }
+
+    int classConstant(@NotNull Class<?> type) {
+        return classConstant(internalName(type));
+    }
+
+    int classConstant(@NotNull String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        }, 1);
+    }
+
+    int memberConstant(int tag, int owner, @NotNull String name, @NotNull String descriptor) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + ' ' + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        }, 1);
+        return constant("M" + tag + ' ' + owner + ' ' + nameAndType, out -> {
+            out.writeByte(tag);
+            out.writeShort(owner);
+            out.writeShort(nameAndType);
+        }, 1);
+    }
+
+    int valueConstant(@NotNull Object value) {
+        if (value instanceof String) {
+            int s = utf8((String) value);
+            return constant("S" + value, out -> {
+                out.writeByte(CONSTANT_STRING);
+                out.writeShort(s);
+            }, 1);
+        }
+        if (value instanceof Integer)
+            return constant("I" + value, out -> {
+                out.writeByte(CONSTANT_INTEGER);
+                out.writeInt((Integer) value);
+            }, 1);
+        if (value instanceof Float)
+            return constant("F" + Float.floatToRawIntBits((Float) value), out -> {
+                out.writeByte(CONSTANT_FLOAT);
+                out.writeFloat((Float) value);
+            }, 1);
+        if (value instanceof Long)
+            return constant("J" + value, out -> {
+                out.writeByte(CONSTANT_LONG);
+                out.writeLong((Long) value);
+            }, 2);
+        if (value instanceof Double)
+            return constant("D" + Double.doubleToRawLongBits((Double) value), out -> {
+                out.writeByte(CONSTANT_DOUBLE);
+                out.writeDouble((Double) value);
+            }, 2);
+        if (value instanceof Class)
+            return classConstant((Class<?>) value);
+        throw new IllegalArgumentException("Unsupported constant " + value.getClass());
+    }
+
+    private int constant(String key, PoolWriter writer, int slots) {
+        Integer index = poolIndex.get(key);
+        if (index != null)
+            return index;
+        try {
+            writer.writeTo(pool);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        int i = poolCount;
+        poolCount += slots;
+        if (poolCount > 0xFFFF)
+            throw new IllegalStateException("Too many constants in " + className);
+        poolIndex.put(key, i);
+        return i;
+    }
+
+    @FunctionalInterface
+    private interface PoolWriter {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A jump target within a method.
+     */
+    public static final class Label {
+        int position = -1;
+        int stack = -1;
+        final List<int[]> fixups = new ArrayList<>();
+    }
+
+    /**
+     * The instructions of a method. The stack effect of each instruction is tracked to calculate the max stack.
+     */
+    public final class Code {
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<Label> labels = new ArrayList<>();
+        private final List<int[]> exceptions = new ArrayList<>();
+        private final List<Label[]> exceptionLabels = new ArrayList<>();
+        private byte[] code;
+        private int maxLocals;
+        private int stack;
+        private int maxStack;
+
+        Code(int access, int name, int descriptor, int maxLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * @return a new local variable slot for a value of this type
+         */
+        public int newLocal(@NotNull Class<?> type) {
+            int local = maxLocals;
+            maxLocals += size(type);
+            return local;
+        }
+
+        public Code insn(int opcode, int stackChange) {
+            op(opcode, stackChange);
+            return this;
+        }
+
+        public Code aconstNull() {
+            return insn(0x01, 1);
+        }
+
+        public Code iconst(int value) {
+            if (value >= -1 && value <= 5) {
+                op(0x03 + value, 1);
+            } else if (value == (byte) value) {
+                op(0x10, 1);
+                bytes.write(value);
+            } else if (value == (short) value) {
+                op(0x11, 1);
+                u2(value);
+            } else {
+                ldc(value);
+            }
+            return this;
+        }
+
+        public Code lconst(long value) {
+            if (value == 0 || value == 1)
+                return insn(0x09 + (int) value, 2);
+            return ldc(value);
+        }
+
+        /**
+         * Loads a String, Integer, Long, Float, Double or Class constant
+         */
+        public Code ldc(@NotNull Object value) {
+            int index = valueConstant(value);
+            if (value instanceof Long || value instanceof Double) {
+                op(0x14, 2);
+                u2(index);
+            } else if (index < 256) {
+                op(0x12, 1);
+                bytes.write(index);
+            } else {
+                op(0x13, 1);
+                u2(index);
+            }
+            return this;
+        }
+
+        /**
+         * Pushes the zero, false or null value of a type
+         */
+        public Code zero(@NotNull Class<?> type) {
+            if (!type.isPrimitive())
+                return aconstNull();
+            if (type == long.class)
+                return insn(0x09, 2);
+            if (type == float.class)
+                return insn(0x0b, 1);
+            if (type == double.class)
+                return insn(0x0e, 2);
+            return type == void.class ? this : iconst(0);
+        }
+
+        public Code aload(int local) {
+            return load(Object.class, local);
+        }
+
+        public Code astore(int local) {
+            return store(Object.class, local);
+        }
+
+        public Code load(@NotNull Class<?> type, int local) {
+            return local(0x15 + typeOffset(type), local, size(type));
+        }
+
+        public Code store(@NotNull Class<?> type, int local) {
+            return local(0x36 + typeOffset(type), local, -size(type));
+        }
+
+        private Code local(int opcode, int local, int stackChange) {
+            if (local > 255) {
+                op(0xc4, 0);
+                bytes.write(opcode);
+                u2(local);
+            } else {
+                op(opcode, 0);
+                bytes.write(local);
+            }
+            change(stackChange);
+            return this;
+        }
+
+        // the offset from the int form of a load, store or return instruction
+        private int typeOffset(Class<?> type) {
+            if (!type.isPrimitive())
+                return 4;
+            if (type == long.class)
+                return 1;
+            if (type == float.class)
+                return 2;
+            if (type == double.class)
+                return 3;
+            return 0;
+        }
+
+        public Code pop(@NotNull Class<?> type) {
+            if (type == void.class)
+                return this;
+            return size(type) == 2 ? insn(0x58, -2) : insn(0x57, -1);
+        }
+
+        public Code dup() {
+            return insn(0x59, 1);
+        }
+
+        public Code swap() {
+            return insn(0x5f, 0);
+        }
+
+        public Code returnValue(@NotNull Class<?> type) {
+            if (type == void.class)
+                op(0xb1, 0);
+            else
+                op(0xac + typeOffset(type), -size(type));
+            stack = 0;
+            return this;
+        }
+
+        public Code athrow() {
+            op(0xbf, -1);
+            stack = 0;
+            return this;
+        }
+
+        public Code anew(@NotNull Class<?> type) {
+            op(0xbb, 1);
+            u2(classConstant(type));
+            return this;
+        }
+
+        public Code checkcast(@NotNull Class<?> type) {
+            op(0xc0, 0);
+            u2(classConstant(type));
+            return this;
+        }
+
+        public Code instanceOf(@NotNull Class<?> type) {
+            op(0xc1, 0);
+            u2(classConstant(type));
+            return this;
+        }
+
+        public Code arrayLength() {
+            return insn(0xbe, 0);
+        }
+
+        public Code aaload() {
+            return insn(0x32, -1);
+        }
+
+        public Code aastore() {
+            return insn(0x53, -3);
+        }
+
+        public Code getField(@NotNull String name, @NotNull Class<?> type) {
+            return field(0xb4, thisClass, name, type, size(type) - 1);
+        }
+
+        public Code putField(@NotNull String name, @NotNull Class<?> type) {
+            return field(0xb5, thisClass, name, type, -size(type) - 1);
+        }
+
+        public Code getStatic(@NotNull String name, @NotNull Class<?> type) {
+            return field(0xb2, thisClass, name, type, size(type));
+        }
+
+        public Code putStatic(@NotNull String name, @NotNull Class<?> type) {
+            return field(0xb3, thisClass, name, type, -size(type));
+        }
+
+        public Code getStatic(@NotNull Class<?> owner, @NotNull String name, @NotNull Class<?> type) {
+            return field(0xb2, classConstant(owner), name, type, size(type));
+        }
+
+        private Code field(int opcode, int owner, String name, Class<?> type, int stackChange) {
+            op(opcode, stackChange);
+            u2(memberConstant(CONSTANT_FIELDREF, owner, name, descriptor(type)));
+            return this;
+        }
+
+        /**
+         * Calls a method on the class it is declared in, with invokestatic, invokeinterface or invokevirtual
+         */
+        public Code invoke(@NotNull Method method) {
+            return invoke(method.getDeclaringClass(), method);
+        }
+
+        /**
+         * Calls a method as a member of the owner, which must declare or inherit it.
+         * A static interface method cannot be called as the class file version predates them.
+         */
+        public Code invoke(@NotNull Class<?> owner, @NotNull Method method) {
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            if (isStatic && owner.isInterface())
+                throw new IllegalArgumentException("Cannot call static interface method " + method + " from class file version " + VERSION);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            int argSize = 0;
+            for (Class<?> parameterType : parameterTypes)
+                argSize += size(parameterType);
+            int stackChange = size(method.getReturnType()) - argSize - (isStatic ? 0 : 1);
+            String desc = descriptor(method.getReturnType(), parameterTypes);
+            if (isStatic) {
+                op(0xb8, stackChange);
+                u2(memberConstant(CONSTANT_METHODREF, classConstant(owner), method.getName(), desc));
+            } else if (owner.isInterface()) {
+                op(0xb9, stackChange);
+                u2(memberConstant(CONSTANT_INTERFACE_METHODREF, classConstant(owner), method.getName(), desc));
+                bytes.write(argSize + 1);
+                bytes.write(0);
+            } else {
+                op(0xb6, stackChange);
+                u2(memberConstant(CONSTANT_METHODREF, classConstant(owner), method.getName(), desc));
+            }
+            return this;
+        }
+
+        /**
+         * Calls a method of the class being generated
+         */
+        public Code invokeThis(@NotNull String name, boolean isStatic, @NotNull Class<?> returnType, @NotNull Class<?>... parameterTypes) {
+            int argSize = 0;
+            for (Class<?> parameterType : parameterTypes)
+                argSize += size(parameterType);
+            int stackChange = size(returnType) - argSize - (isStatic ? 0 : 1);
+            op(isStatic ? 0xb8 : 0xb6, stackChange);
+            u2(memberConstant(CONSTANT_METHODREF, thisClass, name, descriptor(returnType, parameterTypes)));
+            return this;
+        }
+
+        /**
+         * Creates a new instance, the arguments are pushed by the caller after new and dup
+         */
+        public Code invokeConstructor(@NotNull Constructor<?> constructor) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            int argSize = 0;
+            for (Class<?> parameterType : parameterTypes)
+                argSize += size(parameterType);
+            return invokeSpecial(classConstant(constructor.getDeclaringClass()), "<init>", descriptor(void.class, parameterTypes), -argSize - 1);
+        }
+
+        Code invokeSpecial(int owner, String name, String desc, int stackChange) {
+            op(0xb7, stackChange);
+            u2(memberConstant(CONSTANT_METHODREF, owner, name, desc));
+            return this;
+        }
+
+        @NotNull
+        public Label newLabel() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        public Code mark(@NotNull Label label) {
+            label.position = bytes.size();
+            if (label.stack >= 0)
+                stack = label.stack;
+            return this;
+        }
+
+        public Code goTo(@NotNull Label label) {
+            jump(0xa7, label, 0);
+            stack = 0;
+            return this;
+        }
+
+        /**
+         * A conditional jump e.g. {@link #IFEQ} or {@link #IF_ICMPLT}
+         */
+        public Code jump(int opcode, @NotNull Label label) {
+            int pops = opcode >= IF_ICMPEQ && opcode <= IF_ACMPNE ? 2 : 1;
+            jump(opcode, label, -pops);
+            return this;
+        }
+
+        private void jump(int opcode, Label label, int stackChange) {
+            int position = bytes.size();
+            op(opcode, stackChange);
+            target(label, position, bytes.size(), 2);
+            u2(0);
+        }
+
+        /**
+         * A tableswitch when the keys are dense, otherwise a lookupswitch
+         */
+        public Code switchInt(@NotNull int[] keys, @NotNull Label[] targets, @NotNull Label defaultLabel) {
+            int position = bytes.size();
+            int n = keys.length;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int key : keys) {
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+            }
+            boolean table = n > 0 && (long) max - min < 2L * n + 4;
+            op(table ? 0xaa : 0xab, -1);
+            while (bytes.size() % 4 != 0)
+                bytes.write(0);
+            target(defaultLabel, position, bytes.size(), 4);
+            u4(0);
+            if (table) {
+                u4(min);
+                u4(max);
+                Label[] row = new Label[max - min + 1];
+                for (int i = 0; i < n; i++)
+                    row[keys[i] - min] = targets[i];
+                for (Label label : row) {
+                    target(label == null ? defaultLabel : label, position, bytes.size(), 4);
+                    u4(0);
+                }
+            } else {
+                Integer[] order = new Integer[n];
+                for (int i = 0; i < n; i++)
+                    order[i] = i;
+                Arrays.sort(order, (a, b) -> Integer.compare(keys[a], keys[b]));
+                u4(n);
+                for (Integer i : order) {
+                    u4(keys[i]);
+                    target(targets[i], position, bytes.size(), 4);
+                    u4(0);
+                }
+            }
+            stack = 0;
+            return this;
+        }
+
+        /**
+         * Handles exceptions of a type thrown between start and end, the handler starts with the exception on the stack.
+         */
+        public Code tryCatch(@NotNull Label start, @NotNull Label end, @NotNull Label handler, @NotNull Class<? extends Throwable> type) {
+            handler.stack = 1;
+            exceptions.add(new int[]{classConstant(type)});
+            exceptionLabels.add(new Label[]{start, end, handler});
+            return this;
+        }
+
+        private void target(Label label, int opcodePosition, int at, int width) {
+            label.fixups.add(new int[]{opcodePosition, at, width});
+            if (label.stack < 0)
+                label.stack = stack;
+        }
+
+        private void op(int opcode, int stackChange) {
+            bytes.write(opcode);
+            change(stackChange);
+        }
+
+        private void change(int stackChange) {
+            stack += stackChange;
+            if (stack > maxStack)
+                maxStack = stack;
+        }
+
+        private void u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+        }
+
+        private void u4(int value) {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        void resolve() {
+            code = bytes.toByteArray();
+            for (Label label : labels) {
+                if (label.position < 0) {
+                    if (label.fixups.isEmpty())
+                        continue;
+                    throw new IllegalStateException("Label not marked");
+                }
+                for (int[] fixup : label.fixups) {
+                    int offset = label.position - fixup[0];
+                    int at = fixup[1];
+                    if (fixup[2] == 2) {
+                        if (offset != (short) offset)
+                            throw new IllegalStateException("Method too large to jump " + offset);
+                        code[at] = (byte) (offset >> 8);
+                        code[at + 1] = (byte) offset;
+                    } else {
+                        code[at] = (byte) (offset >> 24);
+                        code[at + 1] = (byte) (offset >> 16);
+                        code[at + 2] = (byte) (offset >> 8);
+                        code[at + 3] = (byte) offset;
+                    }
+                }
+            }
+        }
+
+        void writeTo(DataOutputStream out, int codeAttribute) throws IOException {
+            if (code.length > 0xFFFF)
+                throw new IllegalStateException("Method too large " + code.length);
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(2 + 2 + 4 + code.length + 2 + exceptions.size() * 8 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(exceptions.size());
+            for (int i = 0; i < exceptions.size(); i++) {
+                Label[] l = exceptionLabels.get(i);
+                out.writeShort(l[0].position);
+                out.writeShort(l[1].position);
+                out.writeShort(l[2].position);
+                out.writeShort(exceptions.get(i)[0]);
+            }
+            out.writeShort(0);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.StreamingDataOutput;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Shortest round trip double and float to text conversion without creating objects.
+ * <p>
+ * This is the Schubfach algorithm by Raffaello Giulietti. The rounding interval of the binary value is scaled by a
+ * 126-bit approximation of a power of ten, chosen so that at most one decimal with the fewest digits falls inside it.
+ * The digits chosen are the fewest which parse back to the same value, and of those, the closest to the exact value.
+ * <p>
+ * The digits are written in plain notation e.g. {@code 0.00012} where the decimal exponent is in
+ * {@code [-18, 20)} for a double, as before, and {@code [-3, 7)} for a float, as {@link Float#toString(float)} does.
+ * Outside those the digits are written with an exponent e.g. {@code 4.9E-324} or {@code 1.0E30}
+ */
+enum DoubleFormatter {
+    ; // none
+
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = (1L << 63) - 1;
+    // floor(2^64 / 10) rounded up, s * this >> 64 == s / 10 for the s this is used with.
+    private static final long ONE_TENTH_64 = 115_292_150_460_684_698L << 4;
+
+    private static final int DOUBLE_PRECISION = 53;
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_TINY = 3;
+    private static final int FLOAT_PRECISION = 24;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final long FLOAT_C_TINY = 8;
+
+    // the decimal exponents written in plain notation, the end being exclusive
+    private static final int DOUBLE_PLAIN_MIN = -18;
+    private static final int DOUBLE_PLAIN_END = 20;
+    private static final int FLOAT_PLAIN_MIN = -3;
+    private static final int FLOAT_PLAIN_END = 7;
+
+    private static final byte[] NAN_BYTES = "NaN".getBytes(ISO_8859_1);
+    private static final byte[] INFINITY_BYTES = "Infinity".getBytes(ISO_8859_1);
+    private static final byte[] ZERO_BYTES = "0.0".getBytes(ISO_8859_1);
+
+    // g = floor(10^-k * 2^-r) + 1 where 2^125 <= g < 2^126, as the top 63 bits and the bottom 63 bits.
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+    // 17 significant digits, a decimal point and room to spare
+    private static final ThreadLocal<byte[]> DIGITS_TL = ThreadLocal.withInitial(() -> new byte[24]);
+
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int shift = 125 - flog2pow10(e);
+            BigInteger g;
+            if (e >= 0) {
+                BigInteger power10 = BigInteger.TEN.pow(e);
+                g = shift >= 0 ? power10.shiftLeft(shift) : power10.shiftRight(-shift);
+            } else {
+                g = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(-e));
+            }
+            g = g.add(BigInteger.ONE);
+            G[(k - K_MIN) << 1] = g.shiftRight(63).longValue();
+            G[(k - K_MIN) << 1 | 1] = g.longValue() & MASK_63;
+        }
+    }
+
+    static void append(@NotNull StreamingDataOutput out, double d)
+            throws BufferOverflowException, IllegalStateException {
+        long bits = Double.doubleToRawLongBits(d);
+        long t = bits & ((1L << DOUBLE_PRECISION - 1) - 1);
+        int bq = (int) (bits >>> DOUBLE_PRECISION - 1) & 0x7FF;
+        if (bq == 0x7FF) {
+            appendNonFinite(out, bits < 0, t != 0);
+            return;
+        }
+        if (bits < 0)
+            out.rawWriteByte((byte) '-');
+        if (bq != 0) {
+            int mq = -DOUBLE_Q_MIN + 1 - bq;
+            long c = (1L << DOUBLE_PRECISION - 1) | t;
+            // a whole number which fits in the significand
+            if (0 < mq && mq < DOUBLE_PRECISION) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    appendDecimal(out, f, 0, DOUBLE_PLAIN_MIN, DOUBLE_PLAIN_END);
+                    return;
+                }
+            }
+            appendShortest(out, -mq, c, 0, t != 0 || bq == 1, DOUBLE_PLAIN_MIN, DOUBLE_PLAIN_END);
+
+        } else if (t != 0) {
+            // sub-normal, scale up the smallest so there are enough digits to choose from
+            if (t < DOUBLE_C_TINY)
+                appendShortest(out, DOUBLE_Q_MIN, 10 * t, -1, true, DOUBLE_PLAIN_MIN, DOUBLE_PLAIN_END);
+            else
+                appendShortest(out, DOUBLE_Q_MIN, t, 0, true, DOUBLE_PLAIN_MIN, DOUBLE_PLAIN_END);
+
+        } else {
+            out.write(ZERO_BYTES);
+        }
+    }
+
+    static void append(@NotNull StreamingDataOutput out, float f)
+            throws BufferOverflowException, IllegalStateException {
+        int bits = Float.floatToRawIntBits(f);
+        long t = bits & ((1 << FLOAT_PRECISION - 1) - 1);
+        int bq = (bits >>> FLOAT_PRECISION - 1) & 0xFF;
+        if (bq == 0xFF) {
+            appendNonFinite(out, bits < 0, t != 0);
+            return;
+        }
+        if (bits < 0)
+            out.rawWriteByte((byte) '-');
+        if (bq != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - bq;
+            long c = (1L << FLOAT_PRECISION - 1) | t;
+            if (0 < mq && mq < FLOAT_PRECISION) {
+                long w = c >> mq;
+                if (w << mq == c) {
+                    appendDecimal(out, w, 0, FLOAT_PLAIN_MIN, FLOAT_PLAIN_END);
+                    return;
+                }
+            }
+            appendShortest(out, -mq, c, 0, t != 0 || bq == 1, FLOAT_PLAIN_MIN, FLOAT_PLAIN_END);
+
+        } else if (t != 0) {
+            if (t < FLOAT_C_TINY)
+                appendShortest(out, FLOAT_Q_MIN, 10 * t, -1, true, FLOAT_PLAIN_MIN, FLOAT_PLAIN_END);
+            else
+                appendShortest(out, FLOAT_Q_MIN, t, 0, true, FLOAT_PLAIN_MIN, FLOAT_PLAIN_END);
+
+        } else {
+            out.write(ZERO_BYTES);
+        }
+    }
+
+    private static void appendNonFinite(@NotNull StreamingDataOutput out, boolean negative, boolean nan)
+            throws BufferOverflowException, IllegalStateException {
+        if (nan) {
+            out.write(NAN_BYTES);
+            return;
+        }
+        if (negative)
+            out.rawWriteByte((byte) '-');
+        out.write(INFINITY_BYTES);
+    }
+
+    /**
+     * Appends the shortest decimal in the rounding interval of c * 2^q
+     *
+     * @param symmetric false if c is a power of two with a closer value below it than above it
+     * @param plainMin  the lowest decimal exponent written in plain notation
+     * @param plainEnd  the decimal exponent from which the exponent is written
+     */
+    private static void appendShortest(@NotNull StreamingDataOutput out, int q, long c, int dk, boolean symmetric,
+                                       int plainMin, int plainEnd)
+            throws BufferOverflowException, IllegalStateException {
+        // an odd c doesn't include the ends of the interval as those round to the even neighbours
+        int open = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (symmetric) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[(k - K_MIN) << 1];
+        long g0 = G[(k - K_MIN) << 1 | 1];
+
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit fewer first
+            long sp10 = 10 * DoubleParser.multiplyHighUnsigned(s, ONE_TENTH_64);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + open <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + open <= vbr;
+            if (upin != wpin) {
+                appendDecimal(out, upin ? sp10 : tp10, k, plainMin, plainEnd);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + open <= s << 2;
+        boolean win = (t << 2) + open <= vbr;
+        if (uin != win) {
+            appendDecimal(out, uin ? s : t, k + dk, plainMin, plainEnd);
+            return;
+        }
+        // both are in the interval, take the closest, or the even one if a tie
+        long cmp = vb - (s + t << 1);
+        appendDecimal(out, cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, plainMin, plainEnd);
+    }
+
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = DoubleParser.multiplyHighUnsigned(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = DoubleParser.multiplyHighUnsigned(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Appends f * 10^e10 in plain notation if its decimal exponent is in [plainMin, plainEnd), otherwise as
+     * d.dddEn, always with at least one digit either side of the decimal point.
+     */
+    private static void appendDecimal(@NotNull StreamingDataOutput out, long f, int e10, int plainMin, int plainEnd)
+            throws BufferOverflowException, IllegalStateException {
+        while (f % 10 == 0) {
+            f /= 10;
+            e10++;
+        }
+        byte[] digits = DIGITS_TL.get();
+        int end = digits.length;
+        int start = end;
+        for (; f > 0; f /= 10)
+            digits[--start] = (byte) ('0' + f % 10);
+        int length = end - start;
+        // the number of digits before the decimal point
+        int point = length + e10;
+        if (point - 1 < plainMin || point - 1 >= plainEnd) {
+            appendExponent(out, digits, start, length, point - 1);
+
+        } else if (point <= 0) {
+            out.rawWriteByte((byte) '0');
+            out.rawWriteByte((byte) '.');
+            for (int i = point; i < 0; i++)
+                out.rawWriteByte((byte) '0');
+            out.write(digits, start, length);
+
+        } else if (point >= length) {
+            out.write(digits, start, length);
+            for (int i = length; i < point; i++)
+                out.rawWriteByte((byte) '0');
+            out.rawWriteByte((byte) '.');
+            out.rawWriteByte((byte) '0');
+
+        } else {
+            // move the whole part left one to make room for the point
+            System.arraycopy(digits, start, digits, start - 1, point);
+            digits[start - 1 + point] = '.';
+            out.write(digits, start - 1, length + 1);
+        }
+    }
+
+    private static void appendExponent(@NotNull StreamingDataOutput out, byte[] digits, int start, int length, int exp)
+            throws BufferOverflowException, IllegalStateException {
+        out.rawWriteByte(digits[start]);
+        out.rawWriteByte((byte) '.');
+        if (length > 1)
+            out.write(digits, start + 1, length - 1);
+        else
+            out.rawWriteByte((byte) '0');
+        out.rawWriteByte((byte) 'E');
+        if (exp < 0) {
+            out.rawWriteByte((byte) '-');
+            exp = -exp;
+        }
+        if (exp >= 100)
+            out.rawWriteByte((byte) ('0' + exp / 100));
+        if (exp >= 10)
+            out.rawWriteByte((byte) ('0' + exp / 10 % 10));
+        out.rawWriteByte((byte) ('0' + exp % 10));
+    }
+
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    // floor(log10(3/4 * 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+}
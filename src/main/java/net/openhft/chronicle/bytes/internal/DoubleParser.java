@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.StreamingDataInput;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Correctly rounded decimal to double conversion without creating objects.
+ * <p>
+ * The parser in {@link BytesInternal#parseDouble(StreamingDataInput)} keeps the first 19 significant digits as an
+ * unsigned long and a power of ten. This is converted by, in order,
+ * <ol>
+ *     <li>Clinger's fast path when both the digits and the power of ten are exact doubles,</li>
+ *     <li>the Eisel-Lemire algorithm using a 128-bit approximation of the power of ten,</li>
+ *     <li>a big decimal shift algorithm over a reusable per-thread digit buffer for the rare ambiguous cases.</li>
+ * </ol>
+ */
+enum DoubleParser {
+    ; // none
+
+    static final int MAX_MANTISSA_DIGITS = 19;
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+    private static final long INFINITY_BITS = 0x7FF0000000000000L;
+    private static final long FAILED = -1;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22};
+
+    // the top 128 bits of 10^q, normalised so the highest bit is set, rounded down.
+    private static final long[] POWER_OF_TEN_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POWER_OF_TEN_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    private static final ThreadLocal<Decimal> DECIMAL_TL = ThreadLocal.withInitial(Decimal::new);
+
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+            BigInteger c;
+            if (q < 0) {
+                // 5^-q is never a power of two so 2^(z-1) < 5^-q < 2^z
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                c = BigInteger.ONE.shiftLeft(z + 127).divide(power5);
+            } else {
+                c = five.pow(q);
+            }
+            int shift = c.bitLength() - 128;
+            c = shift > 0 ? c.shiftRight(shift) : c.shiftLeft(-shift);
+            POWER_OF_TEN_HI[q - MIN_EXP10] = c.shiftRight(64).longValue();
+            POWER_OF_TEN_LO[q - MIN_EXP10] = c.and(mask64).longValue();
+        }
+    }
+
+    /**
+     * @param mantissa  the first 19 significant digits as an unsigned long
+     * @param exp10     the power of ten to scale the mantissa by
+     * @param negative  the sign
+     * @param truncated whether non-zero digits were dropped from the mantissa
+     * @param in        to re-read the digits from if the fast paths are not exact
+     * @param start     the position of the first digit in {@code in}
+     * @param tens      the explicit exponent which followed the digits
+     */
+    static double toDouble(long mantissa, long exp10, boolean negative, boolean truncated,
+                           @NotNull StreamingDataInput in, long start, long tens)
+            throws BufferUnderflowException, IllegalStateException {
+        if (mantissa == 0)
+            return negative ? -0.0 : 0.0;
+
+        if (!truncated && exp10 >= -22 && exp10 <= 22 && mantissa > 0 && mantissa <= 1L << 53) {
+            double d = mantissa;
+            d = exp10 < 0 ? d / POWERS_OF_TEN[(int) -exp10] : d * POWERS_OF_TEN[(int) exp10];
+            return negative ? -d : d;
+        }
+
+        long bits = eiselLemire(mantissa, exp10);
+        // the dropped digits put the value between mantissa and mantissa + 1
+        if (truncated && bits != FAILED && bits != eiselLemire(mantissa + 1, exp10))
+            bits = FAILED;
+        if (bits == FAILED)
+            bits = slowBits(in, start, tens);
+        return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+    }
+
+    /**
+     * @return the bits of the positive double closest to mantissa * 10^exp10, or FAILED if this can't be
+     * determined cheaply.
+     */
+    static long eiselLemire(long mantissa, long exp10) {
+        if (mantissa == 0 || exp10 < MIN_EXP10)
+            return 0;
+        if (exp10 > MAX_EXP10)
+            return INFINITY_BITS;
+
+        int q = (int) exp10;
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        long man = mantissa << clz;
+        long retExp2 = ((217706L * q) >> 16) + 64 + 1023 - clz;
+
+        long powHi = POWER_OF_TEN_HI[q - MIN_EXP10];
+        long powLo = POWER_OF_TEN_LO[q - MIN_EXP10];
+        long xHi = multiplyHighUnsigned(man, powHi);
+        long xLo = man * powHi;
+
+        // the dropped low bits of the power could carry into the bits which matter
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            long yHi = multiplyHighUnsigned(man, powLo);
+            long yLo = man * powLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0)
+                mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + man, man) < 0)
+                return FAILED;
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // shift to 54 bits
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+
+        // exactly half way can't be resolved
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1)
+            return FAILED;
+
+        // round to 53 bits
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 53) > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        // sub-normal, infinite or NaN
+        if (retExp2 <= 0 || retExp2 >= 0x7FF)
+            return FAILED;
+        return (retExp2 << 52) | (retMantissa & 0x000FFFFFFFFFFFFFL);
+    }
+
+    static long multiplyHighUnsigned(long a, long b) {
+        long aLo = a & 0xFFFFFFFFL;
+        long aHi = a >>> 32;
+        long bLo = b & 0xFFFFFFFFL;
+        long bHi = b >>> 32;
+        long loLo = aLo * bLo;
+        long hiLo = aHi * bLo;
+        long loHi = aLo * bHi;
+        long cross = (loLo >>> 32) + (hiLo & 0xFFFFFFFFL) + loHi;
+        return aHi * bHi + (hiLo >>> 32) + (cross >>> 32);
+    }
+
+    /**
+     * Re-reads all the digits from {@code start} and converts them exactly, leaving the read position where it was.
+     */
+    private static long slowBits(@NotNull StreamingDataInput in, long start, long tens)
+            throws BufferUnderflowException, IllegalStateException {
+        Decimal decimal = DECIMAL_TL.get();
+        decimal.reset();
+        long end = in.readPosition();
+        in.readPosition(start);
+        try {
+            boolean sawDot = false;
+            while (in.readPosition() < end) {
+                int ch = in.readUnsignedByte();
+                if (ch >= '0' && ch <= '9') {
+                    decimal.addDigit(ch);
+                } else if (ch == '.' && !sawDot) {
+                    sawDot = true;
+                    decimal.dp = decimal.nd;
+                } else {
+                    break;
+                }
+            }
+            if (!sawDot)
+                decimal.dp = decimal.nd;
+        } finally {
+            in.readPosition(end);
+        }
+        // anything this large is zero or infinity anyway
+        decimal.dp += (int) Math.max(-100_000, Math.min(100_000, tens));
+        return decimal.floatBits();
+    }
+
+    /**
+     * A multi-precision decimal, based on the algorithm used by Go's strconv package, which can be
+     * shifted by powers of two exactly.
+     */
+    static final class Decimal {
+        // the largest shift which keeps the intermediate values positive in a signed long
+        private static final int MAX_SHIFT = 59;
+        private static final int[] POW_TAB = {1, 3, 6, 9, 13, 16, 19, 23, 26};
+        // the number of new digits for a left shift, one less if the digits are less than the cutoff (5^i)
+        private static final int[] LEFT_CHEAT_DELTA = new int[MAX_SHIFT + 1];
+        private static final byte[][] LEFT_CHEAT_CUTOFF = new byte[MAX_SHIFT + 1][];
+
+        static {
+            for (int i = 0; i <= MAX_SHIFT; i++) {
+                LEFT_CHEAT_DELTA[i] = BigInteger.ONE.shiftLeft(i).toString().length();
+                LEFT_CHEAT_CUTOFF[i] = i == 0 ? new byte[0] : BigInteger.valueOf(5).pow(i).toString().getBytes(ISO_8859_1);
+            }
+            LEFT_CHEAT_DELTA[0] = 0;
+        }
+
+        final byte[] d = new byte[800];
+        // number of digits used
+        int nd;
+        // the position of the decimal point
+        int dp;
+        // whether non-zero digits were discarded
+        boolean trunc;
+
+        void reset() {
+            nd = 0;
+            dp = 0;
+            trunc = false;
+        }
+
+        void addDigit(int ch) {
+            if (ch == '0' && nd == 0) {
+                // leading zeros
+                dp--;
+                return;
+            }
+            if (nd < d.length)
+                d[nd++] = (byte) ch;
+            else if (ch != '0')
+                trunc = true;
+        }
+
+        long floatBits() {
+            long mant;
+            int exp;
+            if (nd == 0)
+                return 0;
+            if (dp > 310)
+                return INFINITY_BITS;
+            if (dp < -330)
+                return 0;
+
+            // scale by powers of two until in range [0.5, 1.0)
+            exp = 0;
+            while (dp > 0) {
+                int n = dp >= POW_TAB.length ? 27 : POW_TAB[dp];
+                shift(-n);
+                exp += n;
+            }
+            while (dp < 0 || (dp == 0 && d[0] < '5')) {
+                int n = -dp >= POW_TAB.length ? 27 : POW_TAB[-dp];
+                shift(n);
+                exp -= n;
+            }
+
+            // the range is [0.5, 1) but the floating point range is [1, 2)
+            exp--;
+
+            // the minimum exponent is -1022, sub-normals below that
+            if (exp < -1022) {
+                int n = -1022 - exp;
+                shift(-n);
+                exp += n;
+            }
+            if (exp + 1023 >= 0x7FF)
+                return INFINITY_BITS;
+
+            // extract 53 bits
+            shift(53);
+            mant = roundedInteger();
+
+            // rounding might have added a bit
+            if (mant == 2L << 52) {
+                mant >>= 1;
+                exp++;
+                if (exp + 1023 >= 0x7FF)
+                    return INFINITY_BITS;
+            }
+
+            // sub-normal
+            if ((mant & (1L << 52)) == 0)
+                exp = -1023;
+            return (mant & ((1L << 52) - 1)) | ((long) ((exp + 1023) & 0x7FF) << 52);
+        }
+
+        private void shift(int k) {
+            if (nd == 0)
+                return;
+            if (k > 0) {
+                for (; k > MAX_SHIFT; k -= MAX_SHIFT)
+                    leftShift(MAX_SHIFT);
+                leftShift(k);
+            } else if (k < 0) {
+                for (; k < -MAX_SHIFT; k += MAX_SHIFT)
+                    rightShift(MAX_SHIFT);
+                rightShift(-k);
+            }
+        }
+
+        private void rightShift(int k) {
+            int r = 0;
+            int w = 0;
+            long n = 0;
+            // pick up enough leading digits to cover the first shift
+            for (; (n >>> k) == 0; r++) {
+                if (r >= nd) {
+                    if (n == 0) {
+                        nd = 0;
+                        return;
+                    }
+                    while ((n >>> k) == 0) {
+                        n *= 10;
+                        r++;
+                    }
+                    break;
+                }
+                n = n * 10 + d[r] - '0';
+            }
+            dp -= r - 1;
+
+            long mask = (1L << k) - 1;
+            // pick up a digit, put down a digit
+            for (; r < nd; r++) {
+                int c = d[r];
+                long dig = n >>> k;
+                n &= mask;
+                d[w++] = (byte) (dig + '0');
+                n = n * 10 + c - '0';
+            }
+            // put down the extra digits
+            while (n != 0) {
+                long dig = n >>> k;
+                n &= mask;
+                if (w < d.length)
+                    d[w++] = (byte) (dig + '0');
+                else if (dig > 0)
+                    trunc = true;
+                n *= 10;
+            }
+            nd = w;
+            trim();
+        }
+
+        private void leftShift(int k) {
+            int delta = LEFT_CHEAT_DELTA[k];
+            if (prefixIsLessThan(LEFT_CHEAT_CUTOFF[k]))
+                delta--;
+
+            int r = nd;
+            int w = nd + delta;
+            long n = 0;
+            // pick up a digit, put down a digit
+            for (r--; r >= 0; r--) {
+                n += (long) (d[r] - '0') << k;
+                long quo = n / 10;
+                long rem = n - 10 * quo;
+                w--;
+                if (w < d.length)
+                    d[w] = (byte) (rem + '0');
+                else if (rem != 0)
+                    trunc = true;
+                n = quo;
+            }
+            // put down the extra digits
+            while (n != 0) {
+                long quo = n / 10;
+                long rem = n - 10 * quo;
+                w--;
+                if (w < d.length)
+                    d[w] = (byte) (rem + '0');
+                else if (rem != 0)
+                    trunc = true;
+                n = quo;
+            }
+            nd = Math.min(nd + delta, d.length);
+            dp += delta;
+            trim();
+        }
+
+        private boolean prefixIsLessThan(byte[] s) {
+            for (int i = 0; i < s.length; i++) {
+                if (i >= nd)
+                    return true;
+                if (d[i] != s[i])
+                    return d[i] < s[i];
+            }
+            return false;
+        }
+
+        private boolean shouldRoundUp(int n) {
+            if (n < 0 || n >= nd)
+                return false;
+            // exactly half way, round to even
+            if (d[n] == '5' && n + 1 == nd) {
+                // a little higher than what was recorded
+                if (trunc)
+                    return true;
+                return n > 0 && (d[n - 1] - '0') % 2 != 0;
+            }
+            return d[n] >= '5';
+        }
+
+        private long roundedInteger() {
+            if (dp > 20)
+                return -1;
+            long n = 0;
+            int i = 0;
+            for (; i < dp && i < nd; i++)
+                n = n * 10 + d[i] - '0';
+            for (; i < dp; i++)
+                n *= 10;
+            if (shouldRoundUp(dp))
+                n++;
+            return n;
+        }
+
+        private void trim() {
+            while (nd > 0 && d[nd - 1] == '0')
+                nd--;
+            if (nd == 0)
+                dp = 0;
+        }
+    }
+}
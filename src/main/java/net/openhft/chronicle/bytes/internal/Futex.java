@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import jnr.ffi.LibraryLoader;
+import jnr.ffi.Memory;
+import jnr.ffi.Platform;
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+
+/**
+ * Calls the Linux futex system call through libc {@code syscall} using jnr-ffi.
+ * <p>
+ * The futexes are not {@code FUTEX_PRIVATE_FLAG} so a waiter on a shared mapping of a file is woken by a
+ * {@link #wake(long, int)} from any process mapping the same file.
+ * <p>
+ * jnr-ffi is an optional import, so it is only referenced from {@link Native}, which is loaded when first used. If it is
+ * missing or libc can't be loaded, {@link #isSupported()} is false.
+ */
+public final class Futex {
+    private static final int FUTEX_WAIT = 0;
+    private static final int FUTEX_WAKE = 1;
+    private static final long SYS_FUTEX = sysFutex();
+    private static final boolean SUPPORTED = SYS_FUTEX >= 0 && loadNative();
+
+    private Futex() {
+    }
+
+    private static long sysFutex() {
+        if (!OS.isLinux() || Jvm.getBoolean("bytes.wait.disable-futex"))
+            return -1;
+        switch (System.getProperty("os.arch", "")) {
+            case "amd64":
+            case "x86_64":
+                return 202;
+            case "aarch64":
+                return 98;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean loadNative() {
+        try {
+            return Native.LIBC != null;
+        } catch (Throwable t) {
+            // e.g. NoClassDefFoundError if jnr-ffi is not available
+            Jvm.debug().on(Futex.class, "futex not available, parking instead", t);
+            return false;
+        }
+    }
+
+    /**
+     * @return true if {@link #waitNanos(long, int, long)} and {@link #wake(long, int)} can be used
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * @return true if the address can be waited on, futexes must be aligned to 4 bytes
+     */
+    public static boolean isSupported(long address) {
+        return SUPPORTED && (address & 3) == 0;
+    }
+
+    /**
+     * Waits while the int at this address is {@code expected}, for up to {@code nanos}.
+     * This may return early, on a spurious wake up or a signal, the caller should check the value again.
+     */
+    public static void waitNanos(long address, int expected, long nanos) {
+        Native.waitNanos(address, expected, nanos);
+    }
+
+    /**
+     * @return the number of waiters woken in all processes
+     */
+    public static int wake(long address, int count) {
+        final long woken = Native.LIBC.syscall(SYS_FUTEX, address, FUTEX_WAKE, count, 0L);
+        return woken < 0 ? 0 : (int) woken;
+    }
+
+    public interface LibC {
+        long syscall(long number, long address, int op, int value, long timeout);
+    }
+
+    static final class Native {
+        static final LibC LIBC = LibraryLoader.create(LibC.class).load(Platform.getNativePlatform().getStandardCLibraryName());
+        private static final ThreadLocal<Pointer> TIMESPEC;
+
+        static {
+            final Runtime runtime = Runtime.getRuntime(LIBC);
+            TIMESPEC = ThreadLocal.withInitial(() -> Memory.allocateDirect(runtime, 16));
+        }
+
+        private Native() {
+        }
+
+        static void waitNanos(long address, int expected, long nanos) {
+            final Pointer timespec = TIMESPEC.get();
+            timespec.putLong(0, nanos / 1_000_000_000L);
+            timespec.putLong(8, nanos % 1_000_000_000L);
+            LIBC.syscall(SYS_FUTEX, address, FUTEX_WAIT, expected, timespec.address());
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.ByteStringAppender;
+import net.openhft.chronicle.bytes.StreamingDataInput;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UTC timestamps as text without creating objects.
+ * <p>
+ * The proleptic Gregorian calendar is converted to and from a day number with Howard Hinnant's
+ * {@code civil_from_days} and {@code days_from_civil} algorithms, so no {@code java.text} or {@code java.time} is needed.
+ * <ul>
+ *     <li>ISO-8601 is {@code 2003-10-20T03:25:45.678Z}</li>
+ *     <li>FIX UTCTimestamp is {@code 20031020-03:25:45.678}</li>
+ * </ul>
+ * with 0, 3, 6 or 9 fractional digits for a time in seconds, millis, micros or nanos.
+ */
+enum TimestampCodec {
+    ; // none
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int DAYS_PER_ERA = 146097;
+    // days from 0000-03-01 to 1970-01-01
+    private static final int EPOCH_SHIFT = 719468;
+    private static final int NANOS_DIGITS = 9;
+
+    // long enough for a FIX or ISO-8601 date and time in nanos
+    private static final ThreadLocal<byte[]> BUFFER_TL = ThreadLocal.withInitial(() -> new byte[32]);
+
+    static void appendDate(@NotNull ByteStringAppender out, long epochDay, boolean separators)
+            throws BufferOverflowException, IllegalStateException {
+        byte[] buffer = BUFFER_TL.get();
+        int length = writeDate(buffer, 0, epochDay, separators ? '-' : 0);
+        if (length < 0) {
+            appendExpandedDate(out, epochDay, separators);
+            return;
+        }
+        out.write(buffer, 0, length);
+    }
+
+    static void appendIsoDateTime(@NotNull ByteStringAppender out, long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        appendDateTime(out, time, unit, '-', 'T', true);
+    }
+
+    static void appendFixTimestamp(@NotNull ByteStringAppender out, long time, @NotNull TimeUnit unit)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        appendDateTime(out, time, unit, 0, '-', false);
+    }
+
+    private static void appendDateTime(@NotNull ByteStringAppender out, long time, @NotNull TimeUnit unit,
+                                       int dateSeparator, char dateTimeSeparator, boolean zone)
+            throws BufferOverflowException, IllegalStateException, IllegalArgumentException {
+        int digits = fractionDigits(unit);
+        long perSecond = Maths.tens(digits);
+        long seconds = Math.floorDiv(time, perSecond);
+        long fraction = Math.floorMod(time, perSecond);
+        long epochDay = Math.floorDiv(seconds, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(seconds, SECONDS_PER_DAY);
+
+        byte[] buffer = BUFFER_TL.get();
+        int pos = writeDate(buffer, 0, epochDay, dateSeparator);
+        if (pos < 0) {
+            appendExpandedDate(out, epochDay, dateSeparator != 0);
+            pos = 0;
+        }
+        buffer[pos++] = (byte) dateTimeSeparator;
+        pos = write2(buffer, pos, secondOfDay / 3600);
+        buffer[pos++] = ':';
+        pos = write2(buffer, pos, secondOfDay / 60 % 60);
+        buffer[pos++] = ':';
+        pos = write2(buffer, pos, secondOfDay % 60);
+        if (digits > 0) {
+            buffer[pos++] = '.';
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                buffer[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            pos += digits;
+        }
+        if (zone)
+            buffer[pos++] = 'Z';
+        out.write(buffer, 0, pos);
+    }
+
+    /**
+     * @return the length written or -1 if the year doesn't have four digits
+     */
+    private static int writeDate(byte[] buffer, int pos, long epochDay, int separator) {
+        long z = epochDay + EPOCH_SHIFT;
+        long era = (z >= 0 ? z : z - (DAYS_PER_ERA - 1)) / DAYS_PER_ERA;
+        int dayOfEra = (int) (z - era * DAYS_PER_ERA);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // a year starting in March so the leap day is last
+        int marchMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * marchMonth + 2) / 5 + 1;
+        int month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999)
+            return -1;
+
+        pos = write2(buffer, pos, (int) year / 100);
+        pos = write2(buffer, pos, (int) year % 100);
+        if (separator != 0)
+            buffer[pos++] = (byte) separator;
+        pos = write2(buffer, pos, month);
+        if (separator != 0)
+            buffer[pos++] = (byte) separator;
+        return write2(buffer, pos, day);
+    }
+
+    // rare enough to not be worth optimising, years before 0000 or after 9999 are written with a sign
+    private static void appendExpandedDate(@NotNull ByteStringAppender out, long epochDay, boolean separators)
+            throws BufferOverflowException, IllegalStateException {
+        long z = epochDay + EPOCH_SHIFT;
+        long era = (z >= 0 ? z : z - (DAYS_PER_ERA - 1)) / DAYS_PER_ERA;
+        // move to an era with a four digit year and adjust the year after
+        byte[] buffer = BUFFER_TL.get();
+        int length = writeDate(buffer, 0, epochDay - (era - 5) * DAYS_PER_ERA, separators ? '-' : 0);
+        long year = (buffer[0] - '0') * 1000L + (buffer[1] - '0') * 100 + (buffer[2] - '0') * 10 + buffer[3] - '0'
+                + (era - 5) * 400;
+        long abs = Math.abs(year);
+        out.rawWriteByte((byte) (year < 0 ? '-' : '+'));
+        for (long tens = 1000; tens > abs; tens /= 10)
+            out.rawWriteByte((byte) '0');
+        BytesInternal.appendBase10(out, abs);
+        out.write(buffer, 4, length - 4);
+    }
+
+    private static int write2(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) ('0' + value / 10);
+        buffer[pos + 1] = (byte) ('0' + value % 10);
+        return pos + 2;
+    }
+
+    static long parseIsoDateTime(@NotNull StreamingDataInput in, @NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        int digits = fractionDigits(unit);
+        long year = readDigits(in, 4);
+        expect(in, '-');
+        int month = (int) readDigits(in, 2);
+        expect(in, '-');
+        int day = (int) readDigits(in, 2);
+        int sep = in.readUnsignedByte();
+        if (sep != 'T' && sep != 't' && sep != ' ')
+            throw new IORuntimeException("Expected 'T' between the date and time but was " + describe(sep));
+        long nanos = readTime(in, true);
+        long offsetSeconds = 0;
+        int b = peek(in);
+        if (b == 'Z' || b == 'z') {
+            in.readSkip(1);
+        } else if (b == '+' || b == '-') {
+            in.readSkip(1);
+            int offsetHours = (int) readDigits(in, 2);
+            if (peek(in) == ':')
+                in.readSkip(1);
+            int offsetMinutes = (int) readDigits(in, 2);
+            offsetSeconds = (offsetHours * 60L + offsetMinutes) * 60;
+            if (b == '-')
+                offsetSeconds = -offsetSeconds;
+        }
+        skipTerminator(in);
+        return toTime(year, month, day, nanos, offsetSeconds, digits);
+    }
+
+    static long parseFixTimestamp(@NotNull StreamingDataInput in, @NotNull TimeUnit unit)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException, IllegalArgumentException {
+        int digits = fractionDigits(unit);
+        long year = readDigits(in, 4);
+        int month = (int) readDigits(in, 2);
+        int day = (int) readDigits(in, 2);
+        expect(in, '-');
+        long nanos = readTime(in, false);
+        skipTerminator(in);
+        return toTime(year, month, day, nanos, 0, digits);
+    }
+
+    /**
+     * Reads HH:MM:SS[.fraction], the seconds are optional if {@code optionalSeconds}
+     *
+     * @return the nano of the day
+     */
+    private static long readTime(@NotNull StreamingDataInput in, boolean optionalSeconds)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException {
+        int hour = (int) readDigits(in, 2);
+        expect(in, ':');
+        int minute = (int) readDigits(in, 2);
+        int second = 0;
+        long nanos = 0;
+        if (!optionalSeconds || peek(in) == ':') {
+            expect(in, ':');
+            second = (int) readDigits(in, 2);
+            int b = peek(in);
+            if (b == '.' || b == ',') {
+                in.readSkip(1);
+                int count = 0;
+                while ((b = peek(in)) >= '0' && b <= '9') {
+                    in.readSkip(1);
+                    // digits beyond nanos are truncated
+                    if (count++ < NANOS_DIGITS)
+                        nanos = nanos * 10 + b - '0';
+                }
+                if (count == 0)
+                    throw new IORuntimeException("Expected a digit after the decimal point");
+                if (count < NANOS_DIGITS)
+                    nanos *= Maths.tens(NANOS_DIGITS - count);
+            }
+        }
+        // a leap second of 60 is allowed, and becomes the first second of the next minute
+        if (hour > 23 || minute > 59 || second > 60)
+            throw new IORuntimeException("Invalid time " + hour + ":" + minute + ":" + second);
+        return ((hour * 60L + minute) * 60 + second) * 1_000_000_000L + nanos;
+    }
+
+    private static long toTime(long year, int month, int day, long nanoOfDay, long offsetSeconds, int digits)
+            throws IORuntimeException {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month))
+            throw new IORuntimeException("Invalid date " + year + "-" + month + "-" + day);
+        long seconds = epochDay(year, month, day) * SECONDS_PER_DAY - offsetSeconds;
+        long perSecond = Maths.tens(digits);
+        return seconds * perSecond + nanoOfDay / Maths.tens(NANOS_DIGITS - digits);
+    }
+
+    static long epochDay(long year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - EPOCH_SHIFT;
+    }
+
+    private static int daysInMonth(long year, int month) {
+        if (month == 2)
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long readDigits(@NotNull StreamingDataInput in, int count)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            int b = in.readUnsignedByte();
+            if (b < '0' || b > '9')
+                throw new IORuntimeException("Expected a digit but was " + describe(b));
+            value = value * 10 + b - '0';
+        }
+        return value;
+    }
+
+    private static void expect(@NotNull StreamingDataInput in, char expected)
+            throws BufferUnderflowException, IllegalStateException, IORuntimeException {
+        int b = in.readUnsignedByte();
+        if (b != expected)
+            throw new IORuntimeException("Expected '" + expected + "' but was " + describe(b));
+    }
+
+    private static int peek(@NotNull StreamingDataInput in)
+            throws IllegalStateException {
+        return in.readRemaining() > 0 ? in.peekUnsignedByte() : -1;
+    }
+
+    // the terminating character is consumed, as with the other parse methods
+    private static void skipTerminator(@NotNull StreamingDataInput in)
+            throws IllegalStateException {
+        int b = peek(in);
+        if (b >= 0 && b != ']' && b != '}')
+            in.readSkip(1);
+    }
+
+    private static String describe(int b) {
+        return b < ' ' ? "0x" + Integer.toHexString(b) : "'" + (char) b + "'";
+    }
+
+    private static int fractionDigits(@NotNull TimeUnit unit)
+            throws IllegalArgumentException {
+        switch (unit) {
+            case SECONDS:
+                return 0;
+            case MILLISECONDS:
+                return 3;
+            case MICROSECONDS:
+                return 6;
+            case NANOSECONDS:
+                return NANOS_DIGITS;
+            default:
+                throw new IllegalArgumentException("Unsupported time unit " + unit);
+        }
+    }
+}
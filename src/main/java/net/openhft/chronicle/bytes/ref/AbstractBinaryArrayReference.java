@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.*;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * A Binary array of primitive values, with the same layout as {@link BinaryLongArrayReference}: the capacity and the
+ * number used as 64-bit values followed by the values.
+ * <p>
+ * Ranges of values can be copied to and from Java arrays with a single memory copy where the BytesStore is native.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AbstractBinaryArrayReference extends AbstractReference implements BytesMarshallable, DynamicallySized {
+    protected static final long CAPACITY = 0;
+    protected static final long USED = CAPACITY + Long.BYTES;
+    protected static final long VALUES = USED + Long.BYTES;
+    private static final int MAX_TO_STRING = 1024;
+    private long capacity;
+
+    protected AbstractBinaryArrayReference(long defaultCapacity) {
+        this.capacity = defaultCapacity;
+    }
+
+    /**
+     * Writes an array of zeros with the capacity given.
+     *
+     * @param valuesLength the length of the values in bytes
+     */
+    protected static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity, @NonNegative long valuesLength)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        assert (bytes.writePosition() & 0x7) == 0;
+
+        bytes.writeLong(capacity);
+        bytes.writeLong(0L); // used
+        long start = bytes.writePosition();
+        bytes.zeroOut(start, start + valuesLength);
+        bytes.writeSkip(valuesLength);
+    }
+
+    /**
+     * @return the length in bytes of the values for this capacity
+     */
+    protected abstract long valuesLength(@NonNegative long capacity);
+
+    protected abstract void appendValueAt(@NotNull StringBuilder sb, @NonNegative long index);
+
+    @Override
+    protected void acceptNewBytesStore(@NotNull final BytesStore bytes)
+            throws IllegalStateException {
+        if (this.bytes != null) {
+            this.bytes.release(this);
+        }
+        this.bytes = bytes;
+        this.bytes.reserve(this);
+    }
+
+    public long getCapacity()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return capacity;
+    }
+
+    public long getUsed()
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileLong(offset + USED);
+    }
+
+    public void setMaxUsed(long usedAtLeast)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosedInSetter();
+
+        bytes.writeMaxLong(offset + USED, usedAtLeast);
+    }
+
+    @Override
+    public void bytesStore(@NotNull BytesStore bytes, @NonNegative long offset, @NonNegative long length)
+            throws IllegalArgumentException, IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        long capacity;
+        try {
+            capacity = bytes.readLong(offset + CAPACITY);
+        } catch (BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+        long peakLength = sizeInBytes(capacity);
+        if (length != peakLength)
+            throw new IllegalArgumentException(length + " != " + peakLength);
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        assert (offset & 7) == 0 : "offset=" + offset;
+        super.bytesStore(bytes, (offset + 7) & ~7, length);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void readMarshallable(BytesIn<?> bytes)
+            throws IORuntimeException, IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosedInSetter();
+
+        long position = bytes.readPosition();
+        long capacity = bytes.readLong();
+        long used = bytes.readLong();
+        if (capacity < 0 || valuesLength(capacity) > bytes.readRemaining())
+            throw new IORuntimeException("Corrupt used capacity");
+
+        if (used < 0 || used > capacity)
+            throw new IORuntimeException("Corrupt used value");
+
+        bytes.readSkip(valuesLength(capacity));
+        long len = bytes.readPosition() - position;
+        try {
+            bytesStore((Bytes) bytes, position, len);
+        } catch (IllegalArgumentException | BufferOverflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes)
+            throws IllegalStateException, BufferOverflowException {
+        final boolean retainsComments = bytes.retainedHexDumpDescription();
+        if (retainsComments)
+            bytes.writeHexDumpDescription(getClass().getSimpleName());
+        BytesStore bytesStore = bytesStore();
+        if (bytesStore == null) {
+            if (retainsComments)
+                bytes.writeHexDumpDescription("capacity");
+            bytes.writeLong(capacity);
+            if (retainsComments)
+                bytes.writeHexDumpDescription("used");
+            bytes.writeLong(0);
+            if (retainsComments)
+                bytes.writeHexDumpDescription("values");
+            bytes.writeSkip(valuesLength(capacity));
+        } else {
+            try {
+                bytes.write(bytesStore, offset, maxSize());
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    public boolean isNull()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return bytes == null;
+    }
+
+    public void reset()
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        bytes = null;
+        offset = 0;
+        capacity = 0;
+    }
+
+    @Nullable
+    @Override
+    public BytesStore bytesStore() {
+        return bytes;
+    }
+
+    @Override
+    public long offset() {
+        return offset;
+    }
+
+    @Override
+    public long maxSize() {
+        return sizeInBytes(capacity);
+    }
+
+    public long sizeInBytes(@NonNegative long capacity) {
+        return VALUES + valuesLength(capacity);
+    }
+
+    /**
+     * Sets the capacity of an array which is not yet bound, e.g. before it is written.
+     */
+    public AbstractBinaryArrayReference capacity(@NonNegative long arrayLength)
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        if (bytesStore() == null) {
+            this.capacity = arrayLength;
+        } else {
+            assert this.capacity == arrayLength;
+        }
+        return this;
+    }
+
+    /**
+     * Checks the range from index {@code from} inclusive to {@code to} exclusive is in the array.
+     *
+     * @return the offset of the value at {@code from} in the BytesStore
+     * @throws IndexOutOfBoundsException if the range is not in the array
+     */
+    protected long checkRange(@NonNegative long from, @NonNegative long to, int shift)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        throwExceptionIfClosed();
+
+        if (from < 0 || to < from || to > capacity)
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", capacity: " + capacity);
+        return offset + VALUES + (from << shift);
+    }
+
+    /**
+     * Copies values to a primitive array with one memory copy if the BytesStore is native.
+     *
+     * @return false if the values must be copied one at a time
+     */
+    protected boolean copyTo(@NonNegative long index, int shift, @NotNull Object array, int arrayLength, int arrayOffset, int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (arrayOffset < 0 || length < 0 || arrayOffset + length > arrayLength)
+            throw new ArrayIndexOutOfBoundsException("offset: " + arrayOffset + ", length: " + length + ", array length: " + arrayLength);
+        final long position = checkRange(index, index + length, shift);
+        // the object copy takes an int length
+        if (!bytes.isDirectMemory() || ((long) length << shift) > Integer.MAX_VALUE)
+            return false;
+        MEMORY.copyMemory(bytes.addressForRead(position), array, MEMORY.arrayBaseOffset(array.getClass()) + ((long) arrayOffset << shift), length << shift);
+        return true;
+    }
+
+    /**
+     * Copies values from a primitive array with one memory copy if the BytesStore is native.
+     *
+     * @return false if the values must be copied one at a time
+     */
+    protected boolean copyFrom(@NonNegative long index, int shift, @NotNull Object array, int arrayLength, int arrayOffset, int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (arrayOffset < 0 || length < 0 || arrayOffset + length > arrayLength)
+            throw new ArrayIndexOutOfBoundsException("offset: " + arrayOffset + ", length: " + length + ", array length: " + arrayLength);
+        final long position = checkRange(index, index + length, shift);
+        // the object copy takes an int length
+        if (!bytes.isDirectMemory() || ((long) length << shift) > Integer.MAX_VALUE)
+            return false;
+        MEMORY.copyMemory(array, MEMORY.arrayBaseOffset(array.getClass()) + ((long) arrayOffset << shift), bytes.addressForWrite(position), length << shift);
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        if (bytes == null) {
+            return "not set";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("used: ");
+        try {
+            long used = getUsed();
+            sb.append(used);
+            sb.append(", value: ");
+            String sep = "";
+            long i;
+            long max = Math.min(used, Math.min(capacity, MAX_TO_STRING));
+            for (i = 0; i < max; i++) {
+                sb.append(sep);
+                appendValueAt(sb, i);
+                sep = ", ";
+            }
+            if (i < capacity)
+                sb.append(" ...");
+            return sb.toString();
+        } catch (IllegalStateException | BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+
+/**
+ * An open addressing hash table of long values laid out in a BytesStore, with linear probing and tombstones for removed
+ * entries. The table has a fixed capacity; when it is full, {@link #copyTo(AbstractBinaryHashMap)} rehashes the
+ * entries into a larger table, or one of the same size to drop the tombstones.
+ * <p>
+ * The layout is a 64-byte header of the capacity, the size, the number of tombstones, the key length and a sequence
+ * followed by the slots. Each slot holds a state, the value and the key. The state is 0 if the slot was never used, 1
+ * for a tombstone, otherwise the hash of the key with bit 1 set.
+ * <p>
+ * There can be one writer and any number of readers, in other threads or processes. The sequence is guarded as a
+ * {@link BinarySeqLock} version: the writer makes it odd while it changes the table and even again afterwards, and a
+ * reader retries a lookup if the sequence was odd or has changed.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AbstractBinaryHashMap extends AbstractReference {
+    public static final int HEADER = 64;
+    protected static final long CAPACITY = 0;
+    protected static final long SIZE = 8;
+    protected static final long DELETED = 16;
+    protected static final long KEY_LENGTH = 24;
+    protected static final long SEQUENCE = 32;
+    protected static final long STATE = 0;
+    protected static final long VALUE = 8;
+    protected static final long KEY = 16;
+    protected static final long EMPTY = 0;
+    protected static final long TOMBSTONE = 1;
+    // the table is full when this share of the slots are used or tombstones
+    private static final int LOAD_FACTOR_PERCENT = 75;
+
+    private long capacity;
+    private int keyLength;
+    private long slotSize;
+
+    protected AbstractBinaryHashMap(@NonNegative long defaultCapacity, @NonNegative int keyLength) {
+        this.keyLength = keyLength;
+        this.capacity = capacityFor(defaultCapacity);
+        this.slotSize = slotSize(keyLength);
+    }
+
+    /**
+     * Writes an empty table
+     *
+     * @param capacity  the number of slots, rounded up to a power of two
+     * @param slotSize  the length of a slot in bytes
+     * @param keyLength stored in the header, 0 if not applicable
+     */
+    protected static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity, @NonNegative long slotSize, @NonNegative int keyLength)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        final long slots = capacityFor(capacity);
+        final long start = bytes.writePosition();
+        final long length = HEADER + slots * slotSize;
+        bytes.zeroOut(start, start + length);
+        bytes.writeLong(start + CAPACITY, slots);
+        bytes.writeLong(start + KEY_LENGTH, keyLength);
+        bytes.writeSkip(length);
+    }
+
+    static long capacityFor(@NonNegative long capacity) {
+        if (capacity < 1 || capacity > 1L << 40)
+            throw new IllegalArgumentException("capacity: " + capacity);
+        return capacity == 1 ? 1 : Long.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * @return the length of a slot in bytes for this key length
+     */
+    protected abstract long slotSize(@NonNegative int keyLength);
+
+    @Override
+    public void bytesStore(final @NotNull BytesStore bytes, @NonNegative long offset, @NonNegative final long length)
+            throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        final long slots;
+        final int keyLen;
+        try {
+            slots = bytes.readLong(offset + CAPACITY);
+            keyLen = (int) bytes.readLong(offset + KEY_LENGTH);
+        } catch (BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+        if (slots < 1 || Long.bitCount(slots) != 1 || length != HEADER + slots * slotSize(keyLen))
+            throw new IllegalArgumentException("capacity: " + slots + ", length: " + length);
+
+        super.bytesStore(bytes, offset, length);
+        this.capacity = slots;
+        this.keyLength = keyLen;
+        this.slotSize = slotSize(keyLen);
+    }
+
+    @Override
+    public long maxSize() {
+        return HEADER + capacity * slotSize;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    protected int keyLength() {
+        return keyLength;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public long size()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileLong(offset + SIZE);
+    }
+
+    public boolean isEmpty()
+            throws IllegalStateException {
+        return size() == 0;
+    }
+
+    /**
+     * @return the number of removed entries which still occupy a slot
+     */
+    public long tombstones()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileLong(offset + DELETED);
+    }
+
+    /**
+     * @return true if another key cannot be added without a rehash
+     */
+    public boolean isFull()
+            throws IllegalStateException {
+        return (size() + tombstones() + 1) * 100 > capacity * LOAD_FACTOR_PERCENT;
+    }
+
+    protected static long state(long hash) {
+        return hash | 2;
+    }
+
+    protected long slot(long index) {
+        return offset + HEADER + (index & (capacity - 1)) * slotSize;
+    }
+
+    protected long indexFor(long state) {
+        return state ^ (state >>> 32);
+    }
+
+    /**
+     * Starts a change by the writer, the sequence is odd until {@link #endWrite(long)}
+     */
+    protected long startWrite()
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        return BinarySeqLock.startWrite(bytes, offset + SEQUENCE);
+    }
+
+    protected void endWrite(long sequence) {
+        BinarySeqLock.endWrite(bytes, offset + SEQUENCE, sequence);
+    }
+
+    /**
+     * @return the sequence to pass to {@link #endRead(long)}, waiting while a change is in progress
+     */
+    protected long startRead()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return BinarySeqLock.startRead(bytes, offset + SEQUENCE);
+    }
+
+    /**
+     * @return true if the table did not change during the read
+     */
+    protected boolean endRead(long sequence) {
+        return BinarySeqLock.endRead(bytes, offset + SEQUENCE, sequence);
+    }
+
+    /**
+     * Finds the slot of a live key, or the slot to add it to, as the negative of one more than the slot offset.
+     * Called by the writer, or by a reader which checks the sequence afterwards.
+     */
+    protected long find(long state, long key, @Nullable BytesStore keyBytes) {
+        long insertAt = 0;
+        long index = indexFor(state);
+        for (long i = 0; i < capacity; i++, index++) {
+            final long slot = slot(index);
+            final long slotState = bytes.readVolatileLong(slot + STATE);
+            if (slotState == EMPTY)
+                return insertAt == 0 ? -slot - 1 : insertAt;
+            if (slotState == TOMBSTONE) {
+                if (insertAt == 0)
+                    insertAt = -slot - 1;
+            } else if (slotState == state && keyEquals(slot, key, keyBytes)) {
+                return slot;
+            }
+        }
+        return insertAt == 0 ? Long.MIN_VALUE : insertAt;
+    }
+
+    /**
+     * @param key      the key if a {@code long}
+     * @param keyBytes the key if a BytesStore, otherwise null
+     * @return whether the key in this slot matches
+     */
+    protected abstract boolean keyEquals(long slot, long key, @Nullable BytesStore keyBytes);
+
+    protected abstract void writeKey(long slot, long key, @Nullable BytesStore keyBytes);
+
+    /**
+     * @return whether the key is present
+     */
+    protected boolean containsKey(long state, long key, @Nullable BytesStore keyBytes)
+            throws IllegalStateException {
+        for (; ; ) {
+            final long sequence = startRead();
+            boolean found;
+            try {
+                found = find(state, key, keyBytes) >= 0;
+            } catch (RuntimeException e) {
+                if (endRead(sequence))
+                    throw e;
+                continue;
+            }
+            if (endRead(sequence))
+                return found;
+        }
+    }
+
+    /**
+     * Looks up a key, retrying if the writer changed the table meanwhile
+     */
+    protected long get(long state, long key, @Nullable BytesStore keyBytes, long defaultValue)
+            throws IllegalStateException {
+        for (; ; ) {
+            final long sequence = startRead();
+            long value = defaultValue;
+            try {
+                final long slot = find(state, key, keyBytes);
+                if (slot >= 0)
+                    value = bytes.readLong(slot + VALUE);
+            } catch (RuntimeException e) {
+                // a torn read of a slot being changed
+                if (endRead(sequence))
+                    throw e;
+                continue;
+            }
+            if (endRead(sequence))
+                return value;
+        }
+    }
+
+    /**
+     * Adds or replaces the value for a key
+     *
+     * @return the previous value, or {@code defaultValue} if there was none
+     * @throws IllegalStateException if the key is new and the table {@link #isFull()}
+     */
+    protected long put(long state, long key, @Nullable BytesStore keyBytes, long value, long defaultValue)
+            throws IllegalStateException {
+        final long sequence = startWrite();
+        try {
+            final long slot = find(state, key, keyBytes);
+            if (slot >= 0) {
+                final long previous = bytes.readLong(slot + VALUE);
+                bytes.writeOrderedLong(slot + VALUE, value);
+                return previous;
+            }
+            final long insertAt = -(slot + 1);
+            final boolean tombstone = slot != Long.MIN_VALUE && bytes.readLong(insertAt + STATE) == TOMBSTONE;
+            if (slot == Long.MIN_VALUE || !tombstone && isFull())
+                throw new IllegalStateException("Table is full, size: " + size() + ", tombstones: " + tombstones() + ", capacity: " + capacity);
+            writeKey(insertAt, key, keyBytes);
+            bytes.writeLong(insertAt + VALUE, value);
+            bytes.writeOrderedLong(insertAt + STATE, state);
+            if (tombstone)
+                bytes.writeOrderedLong(offset + DELETED, bytes.readLong(offset + DELETED) - 1);
+            bytes.writeOrderedLong(offset + SIZE, bytes.readLong(offset + SIZE) + 1);
+            return defaultValue;
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    /**
+     * Removes a key, leaving a tombstone
+     *
+     * @return the value removed, or {@code defaultValue} if there was none
+     */
+    protected long remove(long state, long key, @Nullable BytesStore keyBytes, long defaultValue)
+            throws IllegalStateException {
+        final long sequence = startWrite();
+        try {
+            final long slot = find(state, key, keyBytes);
+            if (slot < 0)
+                return defaultValue;
+            final long previous = bytes.readLong(slot + VALUE);
+            bytes.writeOrderedLong(slot + STATE, TOMBSTONE);
+            bytes.writeOrderedLong(offset + DELETED, bytes.readLong(offset + DELETED) + 1);
+            bytes.writeOrderedLong(offset + SIZE, bytes.readLong(offset + SIZE) - 1);
+            return previous;
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    /**
+     * Removes all the entries and tombstones
+     */
+    public void clear()
+            throws IllegalStateException {
+        final long sequence = startWrite();
+        try {
+            bytes.zeroOut(offset + HEADER, offset + maxSize());
+            bytes.writeOrderedLong(offset + SIZE, 0);
+            bytes.writeOrderedLong(offset + DELETED, 0);
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    /**
+     * Rehashes every entry into another table, which must be empty and have the same key length, e.g. a larger table
+     * to grow into, or one of the same capacity to drop the tombstones. Called by the writer.
+     *
+     * @param target to copy to
+     * @throws IllegalArgumentException if the target is too small, not empty or for a different kind of key
+     */
+    public void copyTo(@NotNull AbstractBinaryHashMap target)
+            throws IllegalStateException, IllegalArgumentException {
+        throwExceptionIfClosed();
+
+        if (target.getClass() != getClass() || target.keyLength != keyLength)
+            throw new IllegalArgumentException("Cannot copy to " + target.getClass().getSimpleName() + " with keyLength " + target.keyLength);
+        final long size = size();
+        if (!target.isEmpty() || target.tombstones() != 0 || (size + 1) * 100 > target.capacity * LOAD_FACTOR_PERCENT)
+            throw new IllegalArgumentException("Target must be empty with room for " + size + " entries");
+
+        final long sequence = target.startWrite();
+        try {
+            for (long i = 0; i < capacity; i++) {
+                final long slot = slot(i);
+                final long state = bytes.readLong(slot + STATE);
+                if (state == EMPTY || state == TOMBSTONE)
+                    continue;
+                // keys are unique so the first free slot is used
+                long index = target.indexFor(state);
+                long to;
+                while (target.bytes.readLong((to = target.slot(index)) + STATE) != EMPTY)
+                    index++;
+                target.bytes.write(to, bytes, slot, slotSize);
+            }
+            target.bytes.writeOrderedLong(target.offset + SIZE, size);
+        } finally {
+            target.endWrite(sequence);
+        }
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        if (bytes == null) return "bytes is null";
+        try {
+            return getClass().getSimpleName() + "{size: " + size() + ", tombstones: " + tombstones() + ", capacity: " + capacity + "}";
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+}
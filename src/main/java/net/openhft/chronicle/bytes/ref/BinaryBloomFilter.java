@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.algo.BytesStoreHash;
+import net.openhft.chronicle.bytes.algo.OptimisedBytesStoreHash;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+
+/**
+ * A Bloom filter over a {@link BinaryBooleanArrayReference}, so it can be held in a
+ * {@link net.openhft.chronicle.bytes.MappedBytesStore} and shared between processes or kept across restarts.
+ * Bits are set atomically so keys can be added concurrently.
+ * <p>
+ * Each key is hashed once with {@link BytesStoreHash}, or {@link OptimisedBytesStoreHash#hash(long)} for a
+ * {@code long}, and the bits are chosen by double hashing. The number of hashes is not stored, every user of the
+ * same filter must use the same value. The number used counts the keys which set at least one bit.
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryBloomFilter extends BinaryBooleanArrayReference {
+    private final int hashes;
+
+    /**
+     * @param defaultCapacity the number of bits if written by {@link #writeMarshallable}
+     * @param hashes          the number of bits set per key
+     */
+    public BinaryBloomFilter(@NonNegative long defaultCapacity, @NonNegative int hashes) {
+        super(defaultCapacity);
+        if (hashes < 1)
+            throw new IllegalArgumentException("hashes: " + hashes);
+        this.hashes = hashes;
+    }
+
+    /**
+     * @param expectedKeys             the number of keys to be added
+     * @param falsePositiveProbability the rate of false positives wanted
+     * @return the number of bits to use
+     */
+    public static long optimalCapacity(@NonNegative long expectedKeys, double falsePositiveProbability) {
+        if (expectedKeys < 1 || !(falsePositiveProbability > 0 && falsePositiveProbability < 1))
+            throw new IllegalArgumentException("expectedKeys: " + expectedKeys + ", falsePositiveProbability: " + falsePositiveProbability);
+        final double ln2 = Math.log(2);
+        return Math.max(64, (long) Math.ceil(-expectedKeys * Math.log(falsePositiveProbability) / (ln2 * ln2)));
+    }
+
+    /**
+     * @return the number of hashes per key which minimises false positives
+     */
+    public static int optimalHashes(@NonNegative long expectedKeys, @NonNegative long capacity) {
+        return Math.max(1, (int) Math.round((double) capacity / expectedKeys * Math.log(2)));
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    /**
+     * Adds a key, the readable bytes of the BytesStore
+     *
+     * @return true if the key was definitely not present before
+     */
+    public boolean add(@NotNull BytesStore key)
+            throws IllegalStateException, BufferOverflowException {
+        return addHash(BytesStoreHash.hash(key, key.readRemaining()));
+    }
+
+    public boolean add(long key)
+            throws IllegalStateException, BufferOverflowException {
+        return addHash(OptimisedBytesStoreHash.hash(key));
+    }
+
+    /**
+     * @return false if the key was definitely not added, true if it probably was
+     */
+    public boolean mightContain(@NotNull BytesStore key)
+            throws IllegalStateException {
+        return mightContainHash(BytesStoreHash.hash(key, key.readRemaining()));
+    }
+
+    public boolean mightContain(long key)
+            throws IllegalStateException {
+        return mightContainHash(OptimisedBytesStoreHash.hash(key));
+    }
+
+    private boolean addHash(long hash) {
+        final long capacity = getCapacity();
+        boolean added = false;
+        long combined = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++, combined += step) {
+            if (!getAndSetValueAt((combined & Long.MAX_VALUE) % capacity, true))
+                added = true;
+        }
+        if (added)
+            bytes.addAndGetLong(offset + USED, 1);
+        return added;
+    }
+
+    private boolean mightContainHash(long hash) {
+        final long capacity = getCapacity();
+        long combined = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++, combined += step) {
+            if (!getValueAt((combined & Long.MAX_VALUE) % capacity))
+                return false;
+        }
+        return true;
+    }
+}
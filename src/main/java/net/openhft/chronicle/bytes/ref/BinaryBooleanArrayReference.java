@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+/**
+ * This class acts a Binary array of boolean values packed as one bit each, in 64-bit words so they can be updated
+ * atomically. c.f. BinaryLongArrayReference
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryBooleanArrayReference extends AbstractBinaryArrayReference {
+
+    public BinaryBooleanArrayReference() {
+        this(0);
+    }
+
+    public BinaryBooleanArrayReference(long defaultCapacity) {
+        super(defaultCapacity);
+    }
+
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        write(bytes, capacity, wordsLength(capacity));
+    }
+
+    public static long peakLength(@NotNull BytesStore bytes, @NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        final long capacity = bytes.readLong(offset + CAPACITY);
+        assert capacity > 0 : "capacity too small " + capacity;
+        return wordsLength(capacity) + VALUES;
+    }
+
+    private static long wordsLength(@NonNegative long capacity) {
+        return ((capacity + 63) >>> 6) << 3;
+    }
+
+    @Override
+    protected long valuesLength(@NonNegative long capacity) {
+        return wordsLength(capacity);
+    }
+
+    @Override
+    protected void appendValueAt(@NotNull StringBuilder sb, @NonNegative long index) {
+        sb.append(getValueAt(index));
+    }
+
+    private long wordOffset(@NonNegative long index) {
+        return offset + VALUES + ((index >>> 6) << 3);
+    }
+
+    public boolean getValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return (bytes.readLong(wordOffset(index)) & (1L << index)) != 0;
+    }
+
+    public boolean getVolatileValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return (bytes.readVolatileLong(wordOffset(index)) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets one bit atomically, without changing the other bits in the same word.
+     */
+    public void setValueAt(@NonNegative long index, boolean value)
+            throws IllegalStateException, BufferOverflowException {
+        getAndSetValueAt(index, value);
+    }
+
+    /**
+     * Sets one bit atomically, without changing the other bits in the same word.
+     *
+     * @return the previous value
+     */
+    public boolean getAndSetValueAt(@NonNegative long index, boolean value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosedInSetter();
+
+        final long wordOffset = wordOffset(index);
+        final long mask = 1L << index;
+        for (; ; ) {
+            final long word = bytes.readVolatileLong(wordOffset);
+            final long next = value ? word | mask : word & ~mask;
+            if (word == next)
+                return value;
+            if (bytes.compareAndSwapLong(wordOffset, word, next))
+                return !value;
+        }
+    }
+
+    /**
+     * Copies {@code length} values starting at {@code index} into {@code array} from {@code arrayOffset}
+     */
+    public void copyTo(@NonNegative long index, @NotNull boolean[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        checkArrayRange(index, array.length, arrayOffset, length);
+        long word = 0;
+        for (int i = 0; i < length; i++) {
+            final long bit = index + i;
+            if (i == 0 || (bit & 63) == 0)
+                word = bytes.readLong(wordOffset(bit));
+            array[arrayOffset + i] = (word & (1L << bit)) != 0;
+        }
+    }
+
+    /**
+     * Copies {@code length} values from {@code array} starting at {@code arrayOffset} to this array from {@code index}
+     * <p>
+     * The values are packed into words, the words wholly in the range are written as one, and those only partly in
+     * the range are updated atomically, without changing the bits outside the range.
+     */
+    public void copyFrom(@NonNegative long index, @NotNull boolean[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        throwExceptionIfClosedInSetter();
+        checkArrayRange(index, array.length, arrayOffset, length);
+        final long to = index + length;
+        long from = index;
+        while (from < to) {
+            final long end = Math.min(to, (from | 63) + 1);
+            long bits = 0;
+            for (long bit = from; bit < end; bit++)
+                if (array[arrayOffset + (int) (bit - index)])
+                    bits |= 1L << bit;
+            final long wordOffset = wordOffset(from);
+            if ((from & 63) == 0 && (end & 63) == 0) {
+                bytes.writeOrderedLong(wordOffset, bits);
+            } else {
+                // the bits from `from` to end in this word
+                long mask = -1L << from;
+                if ((end & 63) != 0)
+                    mask &= ~(-1L << end);
+                for (; ; ) {
+                    final long word = bytes.readVolatileLong(wordOffset);
+                    final long next = word & ~mask | bits;
+                    if (word == next || bytes.compareAndSwapLong(wordOffset, word, next))
+                        break;
+                }
+            }
+            from = end;
+        }
+    }
+
+    private void checkArrayRange(@NonNegative long index, int arrayLength, int arrayOffset, int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (arrayOffset < 0 || length < 0 || arrayOffset + length > arrayLength)
+            throw new ArrayIndexOutOfBoundsException("offset: " + arrayOffset + ", length: " + length + ", array length: " + arrayLength);
+        checkRange(index, index + length, 0);
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the number of values which are true from {@code from} to {@code to}
+     */
+    public long count(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        checkRange(from, to, 0);
+        long count = 0;
+        long index = from;
+        while (index < to) {
+            final long word = bytes.readLong(wordOffset(index));
+            final long end = Math.min(to, (index | 63) + 1);
+            // the bits from index to end in this word
+            long mask = -1L << index;
+            if ((end & 63) != 0)
+                mask &= ~(-1L << end);
+            count += Long.bitCount(word & mask);
+            index = end;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.algo.BytesStoreHash;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+
+/**
+ * A hash table of keys of up to a fixed number of bytes to {@code long} values in a BytesStore.
+ * A key is the readable bytes of a BytesStore, hashed with {@link BytesStoreHash}. c.f. {@link AbstractBinaryHashMap}
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryBytesLongHashMap extends AbstractBinaryHashMap {
+
+    public BinaryBytesLongHashMap() {
+        this(1, 8);
+    }
+
+    public BinaryBytesLongHashMap(@NonNegative long defaultCapacity, @NonNegative int maxKeyLength) {
+        super(defaultCapacity, maxKeyLength);
+    }
+
+    /**
+     * @param capacity     the number of slots, rounded up to a power of two
+     * @param maxKeyLength the longest key in bytes
+     */
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity, @NonNegative int maxKeyLength)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        write(bytes, capacity, slotSizeFor(maxKeyLength), maxKeyLength);
+    }
+
+    /**
+     * @return the length of a table in bytes
+     */
+    public static long sizeInBytes(@NonNegative long capacity, @NonNegative int maxKeyLength) {
+        return HEADER + capacityFor(capacity) * slotSizeFor(maxKeyLength);
+    }
+
+    private static long slotSizeFor(@NonNegative int maxKeyLength) {
+        return (KEY + Integer.BYTES + maxKeyLength + 7) & ~7;
+    }
+
+    private static long stateOf(@NotNull BytesStore key) {
+        return state(BytesStoreHash.hash(key, key.readRemaining()));
+    }
+
+    @Override
+    protected long slotSize(@NonNegative int keyLength) {
+        return slotSizeFor(keyLength);
+    }
+
+    @Override
+    protected boolean keyEquals(long slot, long key, @Nullable BytesStore keyBytes) {
+        assert keyBytes != null;
+        final long length = keyBytes.readRemaining();
+        if (bytes.readInt(slot + KEY) != length)
+            return false;
+        final long from = slot + KEY + Integer.BYTES;
+        final long start = keyBytes.readPosition();
+        long i = 0;
+        for (; i <= length - Long.BYTES; i += Long.BYTES)
+            if (bytes.readLong(from + i) != keyBytes.readLong(start + i))
+                return false;
+        for (; i < length; i++)
+            if (bytes.readByte(from + i) != keyBytes.readByte(start + i))
+                return false;
+        return true;
+    }
+
+    @Override
+    protected void writeKey(long slot, long key, @Nullable BytesStore keyBytes) {
+        assert keyBytes != null;
+        final long length = keyBytes.readRemaining();
+        bytes.writeInt(slot + KEY, (int) length);
+        bytes.write(slot + KEY + Integer.BYTES, keyBytes, keyBytes.readPosition(), length);
+    }
+
+    public long get(@NotNull BytesStore key, long defaultValue)
+            throws IllegalStateException {
+        return get(stateOf(key), 0, key, defaultValue);
+    }
+
+    public boolean containsKey(@NotNull BytesStore key)
+            throws IllegalStateException {
+        return containsKey(stateOf(key), 0, key);
+    }
+
+    /**
+     * @return the previous value, or {@code defaultValue} if the key was not present
+     * @throws IllegalArgumentException if the key is longer than the maximum key length
+     * @throws IllegalStateException    if the key is new and the table {@link #isFull()}
+     */
+    public long put(@NotNull BytesStore key, long value, long defaultValue)
+            throws IllegalStateException, IllegalArgumentException {
+        if (key.readRemaining() > keyLength())
+            throw new IllegalArgumentException("Key length " + key.readRemaining() + " > " + keyLength());
+        return put(stateOf(key), 0, key, value, defaultValue);
+    }
+
+    /**
+     * @return the value removed, or {@code defaultValue} if the key was not present
+     */
+    public long remove(@NotNull BytesStore key, long defaultValue)
+            throws IllegalStateException {
+        return remove(stateOf(key), 0, key, defaultValue);
+    }
+}
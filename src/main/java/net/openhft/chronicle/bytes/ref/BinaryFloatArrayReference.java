@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import static net.openhft.chronicle.core.UnsafeMemory.UNSAFE;
+
+/**
+ * This class acts a Binary array of 32-bit float values. c.f. BinaryLongArrayReference
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryFloatArrayReference extends AbstractBinaryArrayReference {
+    public static final int SHIFT = 2;
+
+    public BinaryFloatArrayReference() {
+        this(0);
+    }
+
+    public BinaryFloatArrayReference(long defaultCapacity) {
+        super(defaultCapacity);
+    }
+
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        write(bytes, capacity, capacity << SHIFT);
+    }
+
+    public static long peakLength(@NotNull BytesStore bytes, @NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        final long capacity = bytes.readLong(offset + CAPACITY);
+        assert capacity > 0 : "capacity too small " + capacity;
+        return (capacity << SHIFT) + VALUES;
+    }
+
+    @Override
+    protected long valuesLength(@NonNegative long capacity) {
+        return capacity << SHIFT;
+    }
+
+    @Override
+    protected void appendValueAt(@NotNull StringBuilder sb, @NonNegative long index) {
+        sb.append(getValueAt(index));
+    }
+
+    public float getValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return bytes.readFloat(VALUES + offset + (index << SHIFT));
+    }
+
+    public void setValueAt(@NonNegative long index, float value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosedInSetter();
+
+        bytes.writeFloat(VALUES + offset + (index << SHIFT), value);
+    }
+
+    public float getVolatileValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileFloat(VALUES + offset + (index << SHIFT));
+    }
+
+    public void setOrderedValueAt(@NonNegative long index, float value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosedInSetter();
+
+        bytes.writeOrderedFloat(VALUES + offset + (index << SHIFT), value);
+    }
+
+    public boolean compareAndSet(@NonNegative long index, float expected, float value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        return bytes.compareAndSwapFloat(VALUES + offset + (index << SHIFT), expected, value);
+    }
+
+    /**
+     * Copies {@code length} values starting at {@code index} into {@code array} from {@code arrayOffset}
+     */
+    public void copyTo(@NonNegative long index, @NotNull float[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (copyTo(index, SHIFT, array, array.length, arrayOffset, length))
+            return;
+        for (int i = 0; i < length; i++)
+            array[arrayOffset + i] = getValueAt(index + i);
+    }
+
+    /**
+     * Copies {@code length} values from {@code array} starting at {@code arrayOffset} to this array from {@code index}
+     */
+    public void copyFrom(@NonNegative long index, @NotNull float[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (copyFrom(index, SHIFT, array, array.length, arrayOffset, length))
+            return;
+        for (int i = 0; i < length; i++)
+            setValueAt(index + i, array[arrayOffset + i]);
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the sum of the values, accumulated as a double from {@code from} to {@code to}
+     */
+    public double sum(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        double sum = 0;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                sum += UNSAFE.getFloat(address + (i << SHIFT));
+        } else {
+            for (long i = 0; i < count; i++)
+                sum += bytes.readFloat(position + (i << SHIFT));
+        }
+        return sum;
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the smallest value, or {@link Float#POSITIVE_INFINITY} if the range is empty
+     */
+    public float min(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        float min = Float.POSITIVE_INFINITY;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                min = Math.min(min, UNSAFE.getFloat(address + (i << SHIFT)));
+        } else {
+            for (long i = 0; i < count; i++)
+                min = Math.min(min, bytes.readFloat(position + (i << SHIFT)));
+        }
+        return min;
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the largest value, or {@link Float#NEGATIVE_INFINITY} if the range is empty
+     */
+    public float max(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        float max = Float.NEGATIVE_INFINITY;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                max = Math.max(max, UNSAFE.getFloat(address + (i << SHIFT)));
+        } else {
+            for (long i = 0; i < count; i++)
+                max = Math.max(max, bytes.readFloat(position + (i << SHIFT)));
+        }
+        return max;
+    }
+}
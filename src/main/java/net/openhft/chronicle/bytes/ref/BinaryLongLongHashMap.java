@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.algo.OptimisedBytesStoreHash;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+
+/**
+ * A {@code long} to {@code long} hash table in a BytesStore. c.f. {@link AbstractBinaryHashMap}
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryLongLongHashMap extends AbstractBinaryHashMap {
+    public static final long SLOT_SIZE = KEY + Long.BYTES;
+
+    public BinaryLongLongHashMap() {
+        this(1);
+    }
+
+    public BinaryLongLongHashMap(@NonNegative long defaultCapacity) {
+        super(defaultCapacity, 0);
+    }
+
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        write(bytes, capacity, SLOT_SIZE, 0);
+    }
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     * @return the length of a table in bytes
+     */
+    public static long sizeInBytes(@NonNegative long capacity) {
+        return HEADER + capacityFor(capacity) * SLOT_SIZE;
+    }
+
+    private static long stateOf(long key) {
+        return state(OptimisedBytesStoreHash.hash(key));
+    }
+
+    @Override
+    protected long slotSize(@NonNegative int keyLength) {
+        return SLOT_SIZE;
+    }
+
+    @Override
+    protected boolean keyEquals(long slot, long key, @Nullable BytesStore keyBytes) {
+        return bytes.readLong(slot + KEY) == key;
+    }
+
+    @Override
+    protected void writeKey(long slot, long key, @Nullable BytesStore keyBytes) {
+        bytes.writeLong(slot + KEY, key);
+    }
+
+    public long get(long key, long defaultValue)
+            throws IllegalStateException {
+        return get(stateOf(key), key, null, defaultValue);
+    }
+
+    public boolean containsKey(long key)
+            throws IllegalStateException {
+        return containsKey(stateOf(key), key, null);
+    }
+
+    /**
+     * @return the previous value, or {@code defaultValue} if the key was not present
+     * @throws IllegalStateException if the key is new and the table {@link #isFull()}
+     */
+    public long put(long key, long value, long defaultValue)
+            throws IllegalStateException {
+        return put(stateOf(key), key, null, value, defaultValue);
+    }
+
+    /**
+     * @return the value removed, or {@code defaultValue} if the key was not present
+     */
+    public long remove(long key, long defaultValue)
+            throws IllegalStateException {
+        return remove(stateOf(key), key, null, defaultValue);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.bytes.internal.BytesFieldInfo;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.UnsafeMemory;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * A region of a BytesStore guarded by a sequence lock, so a record of several fields, e.g. a quote, can be published
+ * between threads or processes without a lock and read as a consistent snapshot.
+ * <p>
+ * The layout is a 64-bit version followed by the data. A writer makes the version odd with a compare and swap, so
+ * writers exclude each other, updates the data and makes the version even again with an ordered write. A reader
+ * copies the data out and retries if the version was odd or has changed.
+ * <p>
+ * The data can be copied to and from another {@link Byteable} or a {@link net.openhft.chronicle.bytes.FieldGroup}
+ * of an object of the same length.
+ */
+@SuppressWarnings("rawtypes")
+public class BinarySeqLock extends AbstractReference {
+    private static final long VERSION = 0;
+    private static final long DATA = VERSION + Long.BYTES;
+
+    private long dataLength;
+
+    /**
+     * @param dataLength the length of the data guarded in bytes
+     */
+    public BinarySeqLock(@NonNegative long dataLength) {
+        this.dataLength = dataLength;
+    }
+
+    /**
+     * Writes a version of 0 and zeroed data
+     */
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long dataLength)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        final long start = bytes.writePosition();
+        bytes.zeroOut(start, start + DATA + dataLength);
+        bytes.writeSkip(DATA + dataLength);
+    }
+
+    @Override
+    public void bytesStore(final @NotNull BytesStore bytes, @NonNegative long offset, @NonNegative final long length)
+            throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        if (length < DATA)
+            throw new IllegalArgumentException("length: " + length);
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        super.bytesStore(bytes, offset, length);
+        this.dataLength = length - DATA;
+    }
+
+    @Override
+    public long maxSize() {
+        return DATA + dataLength;
+    }
+
+    public long dataLength() {
+        return dataLength;
+    }
+
+    /**
+     * @return the offset of the data in the {@link #bytesStore()}
+     */
+    public long dataOffset() {
+        return offset + DATA;
+    }
+
+    /**
+     * @return the current version, odd while a write is in progress
+     */
+    public long version()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileLong(offset + VERSION);
+    }
+
+    /**
+     * Waits for any other writer then makes the version odd. The data can then be written until {@link #endWrite(long)}
+     *
+     * @return the odd version to pass to {@link #endWrite(long)}
+     */
+    public long startWrite()
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        return startWrite(bytes, offset + VERSION);
+    }
+
+    /**
+     * {@link #startWrite()} for a version at any offset, e.g. in the header of another structure
+     */
+    static long startWrite(@NotNull BytesStore bytes, @NonNegative long versionOffset)
+            throws IllegalStateException {
+        for (int i = 0; ; i++) {
+            final long version = bytes.readVolatileLong(versionOffset);
+            if ((version & 1) == 0 && bytes.compareAndSwapLong(versionOffset, version, version + 1)) {
+                // the data written must not be visible before the version is odd
+                MEMORY.storeFence();
+                return version + 1;
+            }
+            if (i > 100)
+                Jvm.nanoPause();
+        }
+    }
+
+    /**
+     * Publishes the data written since {@link #startWrite()}
+     */
+    public void endWrite(long version)
+            throws IllegalStateException {
+        endWrite(bytes, offset + VERSION, version);
+    }
+
+    static void endWrite(@NotNull BytesStore bytes, @NonNegative long versionOffset, long version)
+            throws IllegalStateException {
+        assert (version & 1) == 1;
+        bytes.writeOrderedLong(versionOffset, version + 1);
+    }
+
+    /**
+     * Copies the data from a Byteable of the same length
+     */
+    public void write(@NotNull Byteable from)
+            throws IllegalStateException, IllegalArgumentException {
+        checkLength(from.maxSize());
+        final long version = startWrite();
+        try {
+            bytes.write(offset + DATA, from.bytesStore(), from.offset(), dataLength);
+        } finally {
+            endWrite(version);
+        }
+    }
+
+    /**
+     * Copies a consistent snapshot of the data to a Byteable of the same length
+     */
+    public void read(@NotNull Byteable to)
+            throws IllegalStateException, IllegalArgumentException {
+        checkLength(to.maxSize());
+        final BytesStore toStore = to.bytesStore();
+        for (; ; ) {
+            final long version = startRead();
+            toStore.write(to.offset(), bytes, offset + DATA, dataLength);
+            if (endRead(version))
+                return;
+        }
+    }
+
+    /**
+     * Copies the data from a field group of an object, which must be the same length
+     */
+    public void write(@NotNull Object object, @NotNull String groupName)
+            throws IllegalStateException, IllegalArgumentException {
+        final BytesFieldInfo info = BytesFieldInfo.lookup(object.getClass());
+        checkLength(info.lengthOf(groupName));
+        final long start = info.startOf(groupName);
+        final long version = startWrite();
+        try {
+            if (bytes.isDirectMemory()) {
+                MEMORY.copyMemory(object, start, bytes.addressForWrite(offset + DATA), Math.toIntExact(dataLength));
+            } else {
+                for (long i = 0; i < dataLength; i++)
+                    bytes.writeByte(offset + DATA + i, UnsafeMemory.unsafeGetByte(object, start + i));
+            }
+        } finally {
+            endWrite(version);
+        }
+    }
+
+    /**
+     * Copies a consistent snapshot of the data to a field group of an object, which must be the same length
+     */
+    public void read(@NotNull Object object, @NotNull String groupName)
+            throws IllegalStateException, IllegalArgumentException {
+        final BytesFieldInfo info = BytesFieldInfo.lookup(object.getClass());
+        checkLength(info.lengthOf(groupName));
+        final long start = info.startOf(groupName);
+        for (; ; ) {
+            final long version = startRead();
+            if (bytes.isDirectMemory()) {
+                MEMORY.copyMemory(bytes.addressForRead(offset + DATA), object, start, Math.toIntExact(dataLength));
+            } else {
+                for (long i = 0; i < dataLength; i++)
+                    UnsafeMemory.unsafePutByte(object, start + i, bytes.readByte(offset + DATA + i));
+            }
+            if (endRead(version))
+                return;
+        }
+    }
+
+    /**
+     * Waits while a write is in progress. The data can then be read, and is consistent if {@link #endRead(long)} is true
+     *
+     * @return the version to pass to {@link #endRead(long)}
+     */
+    public long startRead()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+
+        return startRead(bytes, offset + VERSION);
+    }
+
+    static long startRead(@NotNull BytesStore bytes, @NonNegative long versionOffset)
+            throws IllegalStateException {
+        for (int i = 0; ; i++) {
+            final long version = bytes.readVolatileLong(versionOffset);
+            if ((version & 1) == 0)
+                return version;
+            if (i > 100)
+                Jvm.nanoPause();
+        }
+    }
+
+    /**
+     * @return true if the data read since {@link #startRead()} is consistent, otherwise it should be read again
+     */
+    public boolean endRead(long version)
+            throws IllegalStateException {
+        return endRead(bytes, offset + VERSION, version);
+    }
+
+    static boolean endRead(@NotNull BytesStore bytes, @NonNegative long versionOffset, long version)
+            throws IllegalStateException {
+        // the data read must not be reordered after the version is checked
+        UnsafeMemory.unsafeLoadFence();
+        return bytes.readVolatileLong(versionOffset) == version;
+    }
+
+    private void checkLength(long length) {
+        if (length != dataLength)
+            throw new IllegalArgumentException("length " + length + " != dataLength " + dataLength);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        if (bytes == null) return "bytes is null";
+        try {
+            return "version: " + version() + ", dataLength: " + dataLength;
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+}
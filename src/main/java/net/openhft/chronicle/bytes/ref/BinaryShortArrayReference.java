@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import static net.openhft.chronicle.core.UnsafeMemory.UNSAFE;
+
+/**
+ * This class acts a Binary array of 16-bit short values. c.f. BinaryLongArrayReference
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryShortArrayReference extends AbstractBinaryArrayReference {
+    public static final int SHIFT = 1;
+
+    public BinaryShortArrayReference() {
+        this(0);
+    }
+
+    public BinaryShortArrayReference(long defaultCapacity) {
+        super(defaultCapacity);
+    }
+
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative long capacity)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        write(bytes, capacity, capacity << SHIFT);
+    }
+
+    public static long peakLength(@NotNull BytesStore bytes, @NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        final long capacity = bytes.readLong(offset + CAPACITY);
+        assert capacity > 0 : "capacity too small " + capacity;
+        return (capacity << SHIFT) + VALUES;
+    }
+
+    @Override
+    protected long valuesLength(@NonNegative long capacity) {
+        return capacity << SHIFT;
+    }
+
+    @Override
+    protected void appendValueAt(@NotNull StringBuilder sb, @NonNegative long index) {
+        sb.append(getValueAt(index));
+    }
+
+    public short getValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return bytes.readShort(VALUES + offset + (index << SHIFT));
+    }
+
+    public void setValueAt(@NonNegative long index, short value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosedInSetter();
+
+        bytes.writeShort(VALUES + offset + (index << SHIFT), value);
+    }
+
+    public short getVolatileValueAt(@NonNegative long index)
+            throws IllegalStateException, BufferUnderflowException {
+        throwExceptionIfClosed();
+
+        return bytes.readVolatileShort(VALUES + offset + (index << SHIFT));
+    }
+
+    public void setOrderedValueAt(@NonNegative long index, short value)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosedInSetter();
+
+        bytes.writeVolatileShort(VALUES + offset + (index << SHIFT), value);
+    }
+
+    /**
+     * Copies {@code length} values starting at {@code index} into {@code array} from {@code arrayOffset}
+     */
+    public void copyTo(@NonNegative long index, @NotNull short[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (copyTo(index, SHIFT, array, array.length, arrayOffset, length))
+            return;
+        for (int i = 0; i < length; i++)
+            array[arrayOffset + i] = getValueAt(index + i);
+    }
+
+    /**
+     * Copies {@code length} values from {@code array} starting at {@code arrayOffset} to this array from {@code index}
+     */
+    public void copyFrom(@NonNegative long index, @NotNull short[] array, @NonNegative int arrayOffset, @NonNegative int length)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        if (copyFrom(index, SHIFT, array, array.length, arrayOffset, length))
+            return;
+        for (int i = 0; i < length; i++)
+            setValueAt(index + i, array[arrayOffset + i]);
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the sum of the values from {@code from} to {@code to}
+     */
+    public long sum(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        long sum = 0;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                sum += UNSAFE.getShort(address + (i << SHIFT));
+        } else {
+            for (long i = 0; i < count; i++)
+                sum += bytes.readShort(position + (i << SHIFT));
+        }
+        return sum;
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the smallest value, or {@link Short#MAX_VALUE} if the range is empty
+     */
+    public short min(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        int min = Short.MAX_VALUE;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                min = Math.min(min, UNSAFE.getShort(address + (i << SHIFT)));
+        } else {
+            for (long i = 0; i < count; i++)
+                min = Math.min(min, bytes.readShort(position + (i << SHIFT)));
+        }
+        return (short) min;
+    }
+
+    /**
+     * @param from the first index
+     * @param to   the index after the last
+     * @return the largest value, or {@link Short#MIN_VALUE} if the range is empty
+     */
+    public short max(@NonNegative long from, @NonNegative long to)
+            throws IllegalStateException, IndexOutOfBoundsException {
+        final long position = checkRange(from, to, SHIFT);
+        final long count = to - from;
+        int max = Short.MIN_VALUE;
+        if (bytes.isDirectMemory()) {
+            final long address = bytes.addressForRead(position);
+            for (long i = 0; i < count; i++)
+                max = Math.max(max, UNSAFE.getShort(address + (i << SHIFT)));
+        } else {
+            for (long i = 0; i < count; i++)
+                max = Math.max(max, bytes.readShort(position + (i << SHIFT)));
+        }
+        return (short) max;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.internal.BinaryStructGenerator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A flyweight over a record of primitive fields at fixed offsets in a BytesStore, implementing an interface of
+ * accessors. An implementation is generated once per interface, so reading or writing a field is a single access to
+ * the BytesStore with no allocation, and millions of records can be kept in a mapped file and visited with one
+ * flyweight.
+ * <p>
+ * For a field {@code Xxx} of a primitive type {@code T} the interface can declare
+ * <ul>
+ *     <li>{@code T getXxx()}, or {@code boolean isXxx()}, and {@code void setXxx(T)}</li>
+ *     <li>{@code T getVolatileXxx()}, {@code void setVolatileXxx(T)} and {@code void setOrderedXxx(T)}</li>
+ *     <li>{@code boolean compareAndSwapXxx(T expected, T value)} for an int, long, float or double</li>
+ *     <li>{@code T addXxx(T delta)} or {@code T addAtomicXxx(T delta)}, which both add atomically and return the new
+ *     value, for an int, long, float or double</li>
+ * </ul>
+ * Fields are laid out largest first so each is naturally aligned, unless placed with {@link FieldOffset}.
+ * A boolean is stored as 'Y' or 'N' as elsewhere in Bytes.
+ * <pre>{@code
+ * interface Trade {
+ *     long getId();
+ *     void setId(long id);
+ *     double getPrice();
+ *     void setPrice(double price);
+ *     boolean compareAndSwapId(long expected, long value);
+ * }
+ *
+ * Trade trade = BinaryStructReference.newInstance(Trade.class);
+ * ((Byteable) trade).bytesStore(store, index * BinaryStructReference.sizeOf(Trade.class), BinaryStructReference.sizeOf(Trade.class));
+ * }</pre>
+ */
+public abstract class BinaryStructReference extends AbstractReference {
+
+    /**
+     * Creates an unbound flyweight for the interface, which also implements {@link net.openhft.chronicle.bytes.Byteable}
+     * and {@link net.openhft.chronicle.core.io.Closeable}
+     *
+     * @param structInterface of accessors
+     * @return a new flyweight
+     * @throws IllegalArgumentException if the interface has a method which isn't a supported accessor
+     */
+    @NotNull
+    public static <T> T newInstance(@NotNull Class<T> structInterface)
+            throws IllegalArgumentException {
+        return BinaryStructGenerator.newInstance(structInterface);
+    }
+
+    /**
+     * @param structInterface of accessors
+     * @return the size in bytes of one record, a multiple of 8
+     * @throws IllegalArgumentException if the interface has a method which isn't a supported accessor
+     */
+    public static long sizeOf(@NotNull Class<?> structInterface)
+            throws IllegalArgumentException {
+        return BinaryStructGenerator.sizeOf(structInterface);
+    }
+
+    /**
+     * Called by a generated accessor when it is not bound to a BytesStore
+     */
+    protected final RuntimeException unbound(NullPointerException e)
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+        return e;
+    }
+
+    protected static byte toByte(boolean flag) {
+        return (byte) (flag ? 'Y' : 'N');
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return getClass().getInterfaces()[0].getSimpleName() + "{offset=" + offset + ", bytes=" + (bytes == null ? "null" : "bound") + '}';
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+
+/**
+ * A counter split into stripes like a {@link java.util.concurrent.atomic.LongAdder}, for a counter updated by many
+ * threads or processes where a single {@link BinaryLongReference} would be a contended cache line.
+ * <p>
+ * The layout is a 64-byte header holding the number of stripes followed by one 64-byte cell per stripe, so a
+ * {@link net.openhft.chronicle.bytes.MappedBytesStore} can be shared between processes. Each thread adds to its own
+ * stripe, moving to another stripe if a compare and swap fails, and {@link #sum()} reads every stripe.
+ * The cells only avoid false sharing if the offset is 64-byte aligned.
+ */
+@SuppressWarnings("rawtypes")
+public class StripedLongReference extends AbstractReference {
+    public static final int CELL_SIZE = 64;
+    private static final long STRIPES = 0;
+    private static final long CELLS = CELL_SIZE;
+    // a different seed per process so threads with the same id in different processes use different stripes
+    private static final int SEED = ThreadLocalRandom.current().nextInt();
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[]{initialProbe()});
+
+    private int stripes;
+
+    public StripedLongReference() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param defaultStripes the number of stripes to write if not bound to a BytesStore, rounded up to a power of two
+     */
+    public StripedLongReference(@NonNegative int defaultStripes) {
+        this.stripes = powerOfTwo(defaultStripes);
+    }
+
+    /**
+     * Writes a counter of zero.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     */
+    public static void write(@NotNull Bytes<?> bytes, @NonNegative int stripes)
+            throws BufferOverflowException, IllegalArgumentException, IllegalStateException {
+        final int count = powerOfTwo(stripes);
+        final long start = bytes.writePosition();
+        final long length = sizeInBytes(count);
+        bytes.zeroOut(start, start + length);
+        bytes.writeLong(start + STRIPES, count);
+        bytes.writeSkip(length);
+    }
+
+    public static long peakLength(@NotNull BytesStore bytes, @NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return sizeInBytes((int) bytes.readLong(offset + STRIPES));
+    }
+
+    public static long sizeInBytes(@NonNegative int stripes) {
+        return CELLS + (long) powerOfTwo(stripes) * CELL_SIZE;
+    }
+
+    static int powerOfTwo(int stripes) {
+        if (stripes < 1 || stripes > 1 << 16)
+            throw new IllegalArgumentException("stripes: " + stripes);
+        return stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    private static int initialProbe() {
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9 + SEED;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void bytesStore(final @NotNull BytesStore bytes, @NonNegative long offset, @NonNegative final long length)
+            throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        final long count;
+        try {
+            count = bytes.readLong(offset + STRIPES);
+        } catch (BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+        if (count < 1 || Long.bitCount(count) != 1 || length != sizeInBytes((int) count))
+            throw new IllegalArgumentException("stripes: " + count + ", length: " + length);
+
+        super.bytesStore(bytes, offset, length);
+        this.stripes = (int) count;
+    }
+
+    @Override
+    public long maxSize() {
+        return sizeInBytes(stripes);
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int stripes() {
+        return stripes;
+    }
+
+    /**
+     * Adds to the stripe for this thread.
+     */
+    public void add(long delta)
+            throws IllegalStateException {
+        final int[] probe = PROBE.get();
+        final int mask = stripes - 1;
+        try {
+            final long cell = offset + CELLS + (long) (probe[0] & mask) * CELL_SIZE;
+            final long value = bytes.readVolatileLong(cell);
+            if (bytes.compareAndSwapLong(cell, value, value + delta))
+                return;
+
+            // contended, use another stripe from now on
+            int h = probe[0];
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            probe[0] = h;
+            bytes.addAndGetLong(offset + CELLS + (long) (h & mask) * CELL_SIZE, delta);
+        } catch (NullPointerException e) {
+            throwExceptionIfClosed();
+
+            throw e;
+        } catch (BufferUnderflowException | BufferOverflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public void increment()
+            throws IllegalStateException {
+        add(1);
+    }
+
+    public void decrement()
+            throws IllegalStateException {
+        add(-1);
+    }
+
+    /**
+     * The sum of all the stripes. This is not a snapshot, concurrent updates may or may not be included.
+     *
+     * @return the current sum
+     */
+    public long sum()
+            throws IllegalStateException {
+        try {
+            long sum = 0;
+            for (int i = 0; i < stripes; i++)
+                sum += bytes.readVolatileLong(offset + CELLS + (long) i * CELL_SIZE);
+            return sum;
+        } catch (NullPointerException e) {
+            throwExceptionIfClosed();
+
+            throw e;
+        } catch (BufferUnderflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Sets every stripe to zero. This is only meaningful when there are no concurrent updates.
+     */
+    public void reset()
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        try {
+            for (int i = 0; i < stripes; i++)
+                bytes.writeOrderedLong(offset + CELLS + (long) i * CELL_SIZE, 0L);
+        } catch (BufferOverflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Takes each stripe's value, replacing it with zero, so no update is counted twice or lost.
+     *
+     * @return the sum of the values taken
+     */
+    public long sumThenReset()
+            throws IllegalStateException {
+        throwExceptionIfClosedInSetter();
+
+        try {
+            long sum = 0;
+            for (int i = 0; i < stripes; i++) {
+                final long cell = offset + CELLS + (long) i * CELL_SIZE;
+                long value;
+                do {
+                    value = bytes.readVolatileLong(cell);
+                } while (!bytes.compareAndSwapLong(cell, value, 0L));
+                sum += value;
+            }
+            return sum;
+        } catch (BufferUnderflowException | BufferOverflowException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        if (bytes == null) return "bytes is null";
+        try {
+            return "stripes: " + stripes + ", sum: " + sum();
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+}
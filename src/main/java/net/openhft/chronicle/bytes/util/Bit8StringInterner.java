@@ -18,16 +18,14 @@
 package net.openhft.chronicle.bytes.util;
 
 import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.annotation.NonNegative;
-import net.openhft.chronicle.core.pool.StringBuilderPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.BufferUnderflowException;
 
 public class Bit8StringInterner extends AbstractInterner<String> {
 
-    private static final StringBuilderPool SBP = new StringBuilderPool();
-
     public Bit8StringInterner(int capacity)
             throws IllegalArgumentException {
         super(capacity);
@@ -37,9 +35,6 @@ public class Bit8StringInterner extends AbstractInterner<String> {
     @Override
     @NotNull
     protected String getValue(@NotNull BytesStore cs, @NonNegative int length) throws IllegalStateException, BufferUnderflowException {
-        StringBuilder sb = SBP.acquireStringBuilder();
-        for (int i = 0; i < length; i++)
-            sb.append((char) cs.readUnsignedByte(cs.readPosition() + i));
-        return sb.toString();
+        return BytesInternal.read8bitString(cs, cs.readPosition(), length);
     }
 }
@@ -69,6 +69,17 @@ public enum Compressions implements Compression {
         }
     },
     LZW {
+        @Override
+        public void compress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to) throws IllegalStateException, BufferOverflowException {
+            DeflateCodec.compress(from, to, false);
+        }
+
+        @Override
+        public void uncompress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to)
+                throws IORuntimeException, IllegalStateException, BufferOverflowException {
+            DeflateCodec.uncompress(from, to, false);
+        }
+
         @NotNull
         @Override
         public InputStream decompressingStream(@NotNull InputStream input) {
@@ -82,6 +93,17 @@ public enum Compressions implements Compression {
         }
     },
     GZIP {
+        @Override
+        public void compress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to) throws IllegalStateException, BufferOverflowException {
+            DeflateCodec.compress(from, to, true);
+        }
+
+        @Override
+        public void uncompress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to)
+                throws IORuntimeException, IllegalStateException, BufferOverflowException {
+            DeflateCodec.uncompress(from, to, true);
+        }
+
         @NotNull
         @Override
         public InputStream decompressingStream(@NotNull InputStream input)
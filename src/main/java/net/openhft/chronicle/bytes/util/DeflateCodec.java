@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.core.util.ByteBuffers;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.*;
+
+/**
+ * Deflate and inflate between {@link BytesIn} and {@link BytesOut} without the java.io streams.
+ * <p>
+ * Each thread reuses one {@link Deflater}, {@link Inflater} and {@link CRC32} per format. On Java 11+ direct memory
+ * is passed to zlib as a {@link ByteBuffer} view of the underlying address, otherwise the data is copied through
+ * small reusable arrays.
+ */
+enum DeflateCodec {
+    ; // none
+
+    static final int CHUNK_SIZE = 8 << 10;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    // the header GZIPOutputStream writes on this JVM, so both paths produce the same output.
+    private static final byte[] GZIP_HEADER;
+
+    // Java 11+ only, null otherwise
+    private static final MethodHandle DEFLATER_SET_INPUT;
+    private static final MethodHandle DEFLATER_DEFLATE;
+    private static final MethodHandle INFLATER_SET_INPUT;
+    private static final MethodHandle INFLATER_INFLATE;
+
+    private static final ThreadLocal<State> ZLIB_STATE = ThreadLocal.withInitial(() -> new State(false));
+    private static final ThreadLocal<State> GZIP_STATE = ThreadLocal.withInitial(() -> new State(true));
+
+    static {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(baos)) {
+            out.finish();
+        } catch (IOException e) {
+            throw new AssertionError(e); // in memory.
+        }
+        GZIP_HEADER = Arrays.copyOf(baos.toByteArray(), 10);
+
+        MethodHandle deflaterSetInput = null;
+        MethodHandle deflaterDeflate = null;
+        MethodHandle inflaterSetInput = null;
+        MethodHandle inflaterInflate = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodType setInput = MethodType.methodType(void.class, ByteBuffer.class);
+            MethodType process = MethodType.methodType(int.class, ByteBuffer.class);
+            deflaterSetInput = lookup.findVirtual(Deflater.class, "setInput", setInput);
+            deflaterDeflate = lookup.findVirtual(Deflater.class, "deflate", process);
+            inflaterSetInput = lookup.findVirtual(Inflater.class, "setInput", setInput);
+            inflaterInflate = lookup.findVirtual(Inflater.class, "inflate", process);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            Jvm.debug().on(DeflateCodec.class, "ByteBuffer Deflater/Inflater not available " + e);
+            deflaterSetInput = deflaterDeflate = inflaterSetInput = inflaterInflate = null;
+        } finally {
+            DEFLATER_SET_INPUT = deflaterSetInput;
+            DEFLATER_DEFLATE = deflaterDeflate;
+            INFLATER_SET_INPUT = inflaterSetInput;
+            INFLATER_INFLATE = inflaterInflate;
+        }
+    }
+
+    /**
+     * Compresses the readable bytes of {@code from}, leaving its read position unchanged, as the stream based
+     * {@link Compression#compress(BytesIn, BytesOut)} does.
+     */
+    static void compress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to, boolean gzip)
+            throws IllegalStateException, BufferOverflowException {
+        State state = (gzip ? GZIP_STATE : ZLIB_STATE).get();
+        state.deflater.reset();
+        state.crc.reset();
+        if (gzip)
+            to.write(GZIP_HEADER);
+
+        long length = from.readRemaining();
+        deflate(state, from, to, gzip);
+
+        if (gzip) {
+            writeIntLE(to, (int) state.crc.getValue());
+            writeIntLE(to, (int) length);
+        }
+    }
+
+    /**
+     * Deflates all the readable bytes of {@code from} with the already reset, and possibly primed,
+     * {@code state.deflater}. The read position of {@code from} is left unchanged.
+     */
+    static void deflate(@NotNull State state, @NotNull BytesIn<?> from, @NotNull BytesOut<?> to, boolean updateCrc)
+            throws IllegalStateException, BufferOverflowException {
+        Deflater deflater = state.deflater;
+        CRC32 crc = state.crc;
+        long length = from.readRemaining();
+        if (canUseByteBuffers(from, to, length)) {
+            ByteBuffer input = state.input;
+            ByteBuffers.setAddressCapacity(input, from.addressForRead(from.readPosition()), length);
+            input.clear();
+            if (updateCrc) {
+                crc.update(input);
+                input.clear();
+            }
+            try {
+                DEFLATER_SET_INPUT.invokeExact(deflater, input);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    ByteBuffer output = outputBuffer(state, to);
+                    int len = (int) DEFLATER_DEFLATE.invokeExact(deflater, output);
+                    to.writeSkip(len);
+                }
+            } catch (Throwable t) {
+                throw Jvm.rethrow(t);
+            }
+
+        } else {
+            byte[] input = state.inputArray;
+            byte[] output = state.outputArray;
+            long offset = from.readPosition();
+            for (int len; (len = (int) from.read(offset, input, 0, input.length)) > 0; offset += len) {
+                if (updateCrc)
+                    crc.update(input, 0, len);
+                deflater.setInput(input, 0, len);
+                while (!deflater.needsInput())
+                    to.write(output, 0, deflater.deflate(output));
+            }
+            deflater.finish();
+            while (!deflater.finished())
+                to.write(output, 0, deflater.deflate(output));
+        }
+    }
+
+    /**
+     * Uncompresses one deflate or GZIP member from {@code from}, consuming only the compressed bytes.
+     */
+    static void uncompress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to, boolean gzip)
+            throws IORuntimeException, IllegalStateException, BufferOverflowException {
+        State state = (gzip ? GZIP_STATE : ZLIB_STATE).get();
+        state.inflater.reset();
+        state.crc.reset();
+        if (gzip)
+            readGzipHeader(from);
+
+        long start = to.writePosition();
+        inflate(state, from, to, gzip);
+
+        if (gzip) {
+            long crcRead = readIntLE(from) & 0xFFFFFFFFL;
+            long sizeRead = readIntLE(from) & 0xFFFFFFFFL;
+            if (crcRead != state.crc.getValue())
+                throw new IORuntimeException("Corrupt GZIP trailer, CRC mismatch");
+            if (sizeRead != ((to.writePosition() - start) & 0xFFFFFFFFL))
+                throw new IORuntimeException("Corrupt GZIP trailer, size mismatch");
+        }
+    }
+
+    /**
+     * Inflates one deflate stream from {@code from} with the already reset, and possibly primed,
+     * {@code state.inflater}, consuming only the compressed bytes.
+     */
+    static void inflate(@NotNull State state, @NotNull BytesIn<?> from, @NotNull BytesOut<?> to, boolean updateCrc)
+            throws IORuntimeException, IllegalStateException, BufferOverflowException {
+        Inflater inflater = state.inflater;
+        CRC32 crc = state.crc;
+        try {
+            long length = from.readRemaining();
+            if (canUseByteBuffers(from, to, length)) {
+                ByteBuffer input = state.input;
+                ByteBuffers.setAddressCapacity(input, from.addressForRead(from.readPosition()), length);
+                input.clear();
+                try {
+                    INFLATER_SET_INPUT.invokeExact(inflater, input);
+                    while (!inflater.finished()) {
+                        ByteBuffer output = outputBuffer(state, to);
+                        int len = (int) INFLATER_INFLATE.invokeExact(inflater, output);
+                        if (updateCrc) {
+                            output.flip();
+                            crc.update(output);
+                        }
+                        to.writeSkip(len);
+                        if (len == 0)
+                            checkProgress(inflater);
+                    }
+                } catch (DataFormatException e) {
+                    throw new IORuntimeException(e);
+                } catch (Throwable t) {
+                    throw Jvm.rethrow(t);
+                }
+                from.readSkip(length - inflater.getRemaining());
+
+            } else {
+                byte[] input = state.inputArray;
+                byte[] output = state.outputArray;
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        int len = from.read(input);
+                        if (len <= 0)
+                            throw new IORuntimeException("Unexpected end of compressed data");
+                        inflater.setInput(input, 0, len);
+                    }
+                    int len = inflater.inflate(output);
+                    if (updateCrc)
+                        crc.update(output, 0, len);
+                    to.write(output, 0, len);
+                    if (len == 0 && !inflater.needsInput())
+                        checkProgress(inflater);
+                }
+                // hand back what was read past the end of the deflate data
+                from.readPosition(from.readPosition() - inflater.getRemaining());
+            }
+        } catch (DataFormatException e) {
+            throw new IORuntimeException(e);
+        }
+    }
+
+    private static boolean canUseByteBuffers(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to, long length) {
+        // mapped Bytes are only contiguous within a chunk
+        return DEFLATER_SET_INPUT != null
+                && length <= Integer.MAX_VALUE
+                && from.isDirectMemory() && !(from instanceof MappedBytes)
+                && to.isDirectMemory() && !(to instanceof MappedBytes);
+    }
+
+    @NotNull
+    private static ByteBuffer outputBuffer(@NotNull State state, @NotNull BytesOut<?> to)
+            throws BufferOverflowException {
+        long writePosition = to.writePosition();
+        if (to.realWriteRemaining() < CHUNK_SIZE && to instanceof Bytes)
+            ((Bytes<?>) to).ensureCapacity(Math.min(writePosition + CHUNK_SIZE, to.writeLimit()));
+        long remaining = Math.min(to.realWriteRemaining(), Integer.MAX_VALUE);
+        if (remaining <= 0)
+            throw new BufferOverflowException();
+        ByteBuffer output = state.output;
+        ByteBuffers.setAddressCapacity(output, to.addressForWrite(writePosition), remaining);
+        output.clear();
+        return output;
+    }
+
+    private static void checkProgress(@NotNull Inflater inflater) {
+        if (inflater.needsDictionary())
+            throw new IORuntimeException("A preset dictionary is required");
+        if (inflater.needsInput())
+            throw new IORuntimeException("Unexpected end of compressed data");
+    }
+
+    private static void readGzipHeader(@NotNull BytesIn<?> from) throws IORuntimeException {
+        if (from.readRemaining() < 10)
+            throw new IORuntimeException("Not in GZIP format");
+        int magic = from.readUnsignedByte() | (from.readUnsignedByte() << 8);
+        if (magic != GZIP_MAGIC)
+            throw new IORuntimeException("Not in GZIP format");
+        if (from.readUnsignedByte() != Deflater.DEFLATED)
+            throw new IORuntimeException("Unsupported compression method");
+        int flags = from.readUnsignedByte();
+        // MTIME, XFL and OS
+        from.readSkip(6);
+        if ((flags & FEXTRA) != 0)
+            from.readSkip(from.readUnsignedByte() | (from.readUnsignedByte() << 8));
+        if ((flags & FNAME) != 0)
+            skipZeroTerminated(from);
+        if ((flags & FCOMMENT) != 0)
+            skipZeroTerminated(from);
+        if ((flags & FHCRC) != 0)
+            from.readSkip(2);
+    }
+
+    private static void skipZeroTerminated(@NotNull BytesIn<?> from) {
+        while (from.readUnsignedByte() != 0) {
+            // skip
+        }
+    }
+
+    private static void writeIntLE(@NotNull BytesOut<?> to, int value) throws BufferOverflowException {
+        to.writeUnsignedByte(value & 0xFF);
+        to.writeUnsignedByte((value >>> 8) & 0xFF);
+        to.writeUnsignedByte((value >>> 16) & 0xFF);
+        to.writeUnsignedByte(value >>> 24);
+    }
+
+    private static int readIntLE(@NotNull BytesIn<?> from) {
+        if (from.readRemaining() < 4)
+            throw new IORuntimeException("Truncated GZIP trailer");
+        return from.readUnsignedByte()
+                | (from.readUnsignedByte() << 8)
+                | (from.readUnsignedByte() << 16)
+                | (from.readUnsignedByte() << 24);
+    }
+
+    static final class State {
+        final Deflater deflater;
+        final Inflater inflater;
+        final CRC32 crc = new CRC32();
+        final byte[] inputArray = new byte[CHUNK_SIZE];
+        final byte[] outputArray = new byte[CHUNK_SIZE];
+        final ByteBuffer input = ByteBuffer.allocateDirect(0);
+        final ByteBuffer output = ByteBuffer.allocateDirect(0);
+
+        State(boolean nowrap) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+            inflater = new Inflater(nowrap);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A raw deflate {@link Compression} primed with a shared, pre-trained dictionary.
+ * <p>
+ * Small messages compress poorly on their own as each one starts with an empty history. Priming both ends
+ * with the same dictionary, e.g. one built by {@link DictionaryTrainer}, lets even a 100 byte message refer back to
+ * common content. Each message is prefixed with the stop bit encoded dictionary version, and uncompressing with a
+ * different version fails rather than producing garbage.
+ * <p>
+ * Instances are thread safe, each thread reuses its own {@link Deflater} and {@link Inflater}.
+ */
+public class DictionaryCompression implements Compression {
+    /**
+     * The largest dictionary deflate can make use of, i.e. the window size.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32 << 10;
+
+    private final int version;
+    private final byte[] dictionary;
+    private final int level;
+    private final ThreadLocal<DeflateCodec.State> stateTL;
+
+    public DictionaryCompression(int version, @NotNull byte[] dictionary) {
+        this(version, dictionary, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param version    identifies the dictionary, must be the same when compressing and uncompressing
+     * @param dictionary the shared dictionary, only the last {@link #MAX_DICTIONARY_SIZE} bytes are used
+     * @param level      the {@link Deflater} compression level
+     * @throws IllegalArgumentException if the version is negative or the dictionary is empty
+     */
+    public DictionaryCompression(int version, @NotNull byte[] dictionary, int level) {
+        if (version < 0)
+            throw new IllegalArgumentException("version must be non-negative, was " + version);
+        if (dictionary.length == 0)
+            throw new IllegalArgumentException("The dictionary must not be empty");
+        this.version = version;
+        this.dictionary = dictionary.length <= MAX_DICTIONARY_SIZE
+                ? dictionary.clone()
+                : Arrays.copyOfRange(dictionary, dictionary.length - MAX_DICTIONARY_SIZE, dictionary.length);
+        this.level = level;
+        this.stateTL = ThreadLocal.withInitial(() -> {
+            DeflateCodec.State state = new DeflateCodec.State(true);
+            state.deflater.setLevel(level);
+            return state;
+        });
+    }
+
+    public int version() {
+        return version;
+    }
+
+    @NotNull
+    public byte[] dictionary() {
+        return dictionary.clone();
+    }
+
+    @Override
+    public void compress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to) throws IllegalStateException, BufferOverflowException {
+        DeflateCodec.State state = stateTL.get();
+        state.deflater.reset();
+        state.deflater.setDictionary(dictionary);
+        to.writeStopBit(version);
+        DeflateCodec.deflate(state, from, to, false);
+    }
+
+    @Override
+    public void uncompress(@NotNull BytesIn<?> from, @NotNull BytesOut<?> to)
+            throws IORuntimeException, IllegalStateException, BufferOverflowException {
+        long readVersion = from.readStopBit();
+        checkVersion(readVersion);
+        DeflateCodec.State state = stateTL.get();
+        state.inflater.reset();
+        state.inflater.setDictionary(dictionary);
+        DeflateCodec.inflate(state, from, to, false);
+    }
+
+    @Override
+    public InputStream decompressingStream(@NotNull InputStream input) throws IORuntimeException {
+        try {
+            long readVersion = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = input.read();
+                if (b < 0)
+                    throw new IORuntimeException("Missing dictionary version");
+                readVersion |= (long) (b & 0x7F) << shift;
+                if (b < 0x80)
+                    break;
+            }
+            checkVersion(readVersion);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        Inflater inflater = new Inflater(true);
+        inflater.setDictionary(dictionary);
+        return new InflaterInputStream(input, inflater);
+    }
+
+    @Override
+    public OutputStream compressingStream(@NotNull OutputStream output) {
+        try {
+            int v = version;
+            for (; v >= 0x80; v >>>= 7)
+                output.write((v & 0x7F) | 0x80);
+            output.write(v);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        Deflater deflater = new Deflater(level, true);
+        deflater.setDictionary(dictionary);
+        return new DeflaterOutputStream(output, deflater);
+    }
+
+    private void checkVersion(long readVersion) throws IORuntimeException {
+        if (readVersion != version)
+            throw new IORuntimeException("Compressed with dictionary version " + readVersion + " but have version " + version);
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryCompression{" +
+                "version=" + version +
+                ", dictionary.length=" + dictionary.length +
+                '}';
+    }
+}
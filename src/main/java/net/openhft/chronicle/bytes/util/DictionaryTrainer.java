@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Builds a dictionary for {@link DictionaryCompression} from sample messages.
+ * <p>
+ * This is a simplified form of the COVER algorithm. Every {@code kmerLength} byte substring is counted by the number
+ * of samples it appears in. The samples are split into as many epochs as there are segments in the dictionary, and
+ * the segment of {@code segmentLength} bytes covering the most frequent, not yet used, substrings is taken from each
+ * epoch in turn. Segments are ordered so the most valuable are at the end, closest to the data being compressed.
+ * <p>
+ * Training allocates freely and is intended to be run offline, the resulting dictionary should be stored
+ * and versioned alongside the data it is used for.
+ */
+public final class DictionaryTrainer {
+    public static final int DEFAULT_KMER_LENGTH = 6;
+    public static final int DEFAULT_SEGMENT_LENGTH = 64;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * Trains a dictionary of up to {@code maxSize} bytes using the default k-mer and segment lengths.
+     *
+     * @param samples the sample messages, the readable bytes of each are used without changing the read position
+     * @param maxSize of the dictionary, at most {@link DictionaryCompression#MAX_DICTIONARY_SIZE} is useful
+     * @return the dictionary, which may be shorter than maxSize for small or repetitive samples
+     */
+    @NotNull
+    public static byte[] train(@NotNull Collection<? extends BytesStore<?, ?>> samples, int maxSize) {
+        return train(samples, maxSize, DEFAULT_KMER_LENGTH, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    @NotNull
+    public static byte[] train(@NotNull Collection<? extends BytesStore<?, ?>> samples, int maxSize, int kmerLength, int segmentLength) {
+        if (kmerLength < 1 || kmerLength > 8)
+            throw new IllegalArgumentException("kmerLength must be between 1 and 8, was " + kmerLength);
+        if (segmentLength < kmerLength)
+            throw new IllegalArgumentException("segmentLength must be at least kmerLength");
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive, was " + maxSize);
+
+        List<byte[]> arrays = new ArrayList<>(samples.size());
+        for (BytesStore<?, ?> sample : samples)
+            if (sample.readRemaining() >= segmentLength)
+                arrays.add(sample.toByteArray());
+        if (arrays.isEmpty())
+            return new byte[0];
+
+        Map<Long, int[]> frequencies = countKmers(arrays, kmerLength);
+
+        int segments = Math.max(1, maxSize / segmentLength);
+        int epochSize = Math.max(1, (arrays.size() + segments - 1) / segments);
+        List<Segment> chosen = new ArrayList<>();
+        // with fewer samples than segments, keep making passes until nothing of value is left
+        for (boolean progress = true; progress && chosen.size() < segments; ) {
+            progress = false;
+            for (int from = 0; from < arrays.size() && chosen.size() < segments; from += epochSize) {
+                Segment best = bestSegment(arrays, from, Math.min(arrays.size(), from + epochSize), frequencies, kmerLength, segmentLength);
+                if (best == null)
+                    continue;
+                chosen.add(best);
+                progress = true;
+                // don't reward the same content twice
+                byte[] data = arrays.get(best.sample);
+                for (int i = best.offset; i <= best.offset + segmentLength - kmerLength; i++)
+                    frequencies.get(kmer(data, i, kmerLength))[0] = 0;
+            }
+        }
+
+        chosen.sort(Comparator.comparingLong(s -> s.score));
+        // filled from the end, so if maxSize is less than a segment only the start of the least valuable is cut
+        byte[] dictionary = new byte[Math.min(chosen.size() * segmentLength, maxSize)];
+        int end = dictionary.length;
+        for (int i = chosen.size() - 1; i >= 0 && end > 0; i--) {
+            Segment segment = chosen.get(i);
+            int length = Math.min(segmentLength, end);
+            System.arraycopy(arrays.get(segment.sample), segment.offset + segmentLength - length, dictionary, end - length, length);
+            end -= length;
+        }
+        return dictionary;
+    }
+
+    @NotNull
+    private static Map<Long, int[]> countKmers(@NotNull List<byte[]> arrays, int kmerLength) {
+        Map<Long, int[]> frequencies = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (byte[] data : arrays) {
+            seen.clear();
+            for (int i = 0; i <= data.length - kmerLength; i++) {
+                Long kmer = kmer(data, i, kmerLength);
+                // count the samples it appears in rather than the occurrences
+                if (seen.add(kmer))
+                    frequencies.computeIfAbsent(kmer, k -> new int[1])[0]++;
+            }
+        }
+        return frequencies;
+    }
+
+    private static Segment bestSegment(@NotNull List<byte[]> arrays, int from, int to, @NotNull Map<Long, int[]> frequencies, int kmerLength, int segmentLength) {
+        Segment best = null;
+        Set<Long> inSegment = new HashSet<>();
+        for (int s = from; s < to; s++) {
+            byte[] data = arrays.get(s);
+            for (int offset = 0; offset <= data.length - segmentLength; offset++) {
+                inSegment.clear();
+                long score = 0;
+                for (int i = offset; i <= offset + segmentLength - kmerLength; i++) {
+                    Long kmer = kmer(data, i, kmerLength);
+                    if (!inSegment.add(kmer))
+                        continue;
+                    int count = frequencies.get(kmer)[0];
+                    // a substring seen in only one sample is no help to the others
+                    if (count > 1)
+                        score += count;
+                }
+                if (score > 0 && (best == null || score > best.score))
+                    best = new Segment(s, offset, score);
+            }
+        }
+        return best;
+    }
+
+    private static Long kmer(byte[] data, int offset, int kmerLength) {
+        long kmer = 0;
+        for (int i = 0; i < kmerLength; i++)
+            kmer = (kmer << 8) | (data[offset + i] & 0xFF);
+        return kmer;
+    }
+
+    static final class Segment {
+        final int sample;
+        final int offset;
+        final long score;
+
+        Segment(int sample, int offset, long score) {
+            this.sample = sample;
+            this.offset = offset;
+            this.score = score;
+        }
+    }
+}
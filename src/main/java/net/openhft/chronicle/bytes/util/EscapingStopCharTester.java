@@ -18,13 +18,18 @@
 package net.openhft.chronicle.bytes.util;
 
 import net.openhft.chronicle.bytes.StopCharTester;
+import net.openhft.chronicle.bytes.TableStopCharTester;
+import org.jetbrains.annotations.Nullable;
 
 public class EscapingStopCharTester implements StopCharTester {
     private final StopCharTester sct;
+    @Nullable
+    private final TableStopCharTester table;
     private boolean escaped = false;
 
     public EscapingStopCharTester(StopCharTester sct) {
         this.sct = sct;
+        this.table = TableStopCharTester.tableFor(sct);
     }
 
     @Override
@@ -37,6 +42,6 @@ public class EscapingStopCharTester implements StopCharTester {
             escaped = true;
             return false;
         }
-        return sct.isStopChar(ch);
+        return table != null ? table.isStopChar(ch) : sct.isStopChar(ch);
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.core.Maths;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * A reusable fixed point decimal of a {@code long} mantissa and a number of decimal places, i.e. mantissa / 10^scale
+ * <p>
+ * This is intended to be held and reused on the hot path, e.g. with
+ * {@link net.openhft.chronicle.bytes.ByteStringParser#parseDecimal(MutableDecimal)},
+ * {@link net.openhft.chronicle.bytes.ByteStringAppender#appendDecimal(MutableDecimal)},
+ * {@link net.openhft.chronicle.bytes.StreamingDataInput#readDecimal(MutableDecimal)} and
+ * {@link net.openhft.chronicle.bytes.StreamingDataOutput#writeDecimal(MutableDecimal)}, in place of a {@link BigDecimal}
+ * <p>
+ * Like {@link BigDecimal}, 1.5 and 1.50 have a different scale and are not equal.
+ */
+public final class MutableDecimal {
+    // the largest power of ten a long can hold
+    private static final int MAX_LONG_SCALE = 18;
+    // the powers of ten a double holds exactly
+    private static final double[] DOUBLE_TENS = new double[23];
+
+    static {
+        DOUBLE_TENS[0] = 1;
+        for (int i = 1; i < DOUBLE_TENS.length; i++)
+            DOUBLE_TENS[i] = DOUBLE_TENS[i - 1] * 10;
+    }
+
+    private long mantissa;
+    private int scale;
+
+    public MutableDecimal() {
+    }
+
+    public MutableDecimal(long mantissa, int scale) {
+        set(mantissa, scale);
+    }
+
+    /**
+     * @param mantissa the unscaled value
+     * @param scale    the number of decimal places, which cannot be negative
+     * @return this
+     * @throws IllegalArgumentException if the scale is negative
+     */
+    @NotNull
+    public MutableDecimal set(long mantissa, int scale)
+            throws IllegalArgumentException {
+        if (scale < 0)
+            throw new IllegalArgumentException("scale must be non-negative, was " + scale);
+        this.mantissa = mantissa;
+        this.scale = scale;
+        return this;
+    }
+
+    @NotNull
+    public MutableDecimal set(@NotNull MutableDecimal decimal) {
+        this.mantissa = decimal.mantissa;
+        this.scale = decimal.scale;
+        return this;
+    }
+
+    /**
+     * @param value to round
+     * @param scale the number of decimal places to round to, at most 18
+     * @return this
+     * @throws IllegalArgumentException if the scale is out of range
+     * @throws ArithmeticException      if the value is not finite or too large for the scale
+     */
+    @NotNull
+    public MutableDecimal set(double value, int scale)
+            throws IllegalArgumentException, ArithmeticException {
+        if (scale < 0 || scale > MAX_LONG_SCALE)
+            throw new IllegalArgumentException("scale must be between 0 and " + MAX_LONG_SCALE + ", was " + scale);
+        double scaled = value * Maths.tens(scale);
+        if (!(Math.abs(scaled) < 0x1p63))
+            throw new ArithmeticException("Cannot hold " + value + " with " + scale + " decimal places");
+        this.mantissa = Math.round(scaled);
+        this.scale = scale;
+        return this;
+    }
+
+    @NotNull
+    public MutableDecimal clear() {
+        mantissa = 0;
+        scale = 0;
+        return this;
+    }
+
+    public long mantissa() {
+        return mantissa;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * @return the closest double, correctly rounded when the mantissa is less than 2^53 and the scale is at most 22
+     */
+    public double doubleValue() {
+        if (scale == 0)
+            return mantissa;
+        if (scale < DOUBLE_TENS.length && Math.abs(mantissa) < 1L << 53)
+            return mantissa / DOUBLE_TENS[scale];
+        return Double.parseDouble(toString());
+    }
+
+    /**
+     * @return a new BigDecimal with the same value and scale
+     */
+    @NotNull
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MutableDecimal)) return false;
+        MutableDecimal that = (MutableDecimal) o;
+        return mantissa == that.mantissa && scale == that.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mantissa) * 31 + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
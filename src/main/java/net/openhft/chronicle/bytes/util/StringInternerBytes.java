@@ -19,16 +19,14 @@ package net.openhft.chronicle.bytes.util;
 
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.algo.BytesStoreHash;
+import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.pool.StringInterner;
-import net.openhft.chronicle.core.util.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.BufferUnderflowException;
 
-import static net.openhft.chronicle.bytes.BytesUtil.toCharArray;
-
 public class StringInternerBytes extends StringInterner {
 
     public StringInternerBytes(@NonNegative int capacity)
@@ -71,9 +69,8 @@ public class StringInternerBytes extends StringInterner {
             if (bytes.isEqual(position, length, s2))
                 return s2;
 
-            char[] chars = toCharArray(bytes, position, length);
             final int toPlace = s == null || (s2 != null && toggle()) ? h : h2;
-            String result = StringUtils.newString(chars);
+            String result = BytesInternal.read8bitString(bytes, position, length);
             interner[toPlace] = result;
             return result;
         } finally {
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BatchingBytesMethodWriterTest extends BytesTestCommon {
+
+    @Test
+    public void batchesAreReadAsMessages() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(256);
+        final BatchingBytesMethodWriter<IPrices> batching = new BatchingBytesMethodWriter<>(IPrices.class, bytes)
+                .maxMessages(3);
+        try {
+            final IPrices prices = batching.writer();
+            assertSame(prices, batching.writer());
+            for (int i = 0; i < 7; i++)
+                prices.onPrice(i, 100 + i * 0.25);
+            // two blocks of three, one message buffered
+            final long written = bytes.writePosition();
+            assertEquals(BatchingBytesMethodWriter.BATCH_MESSAGE_ID, bytes.readStopBit());
+            bytes.readPosition(0);
+            assertEquals(1, batching.flush());
+            assertEquals(0, batching.flush());
+            assertTrue(bytes.writePosition() > written);
+
+            final StringBuilder sb = new StringBuilder();
+            final MethodReader reader = bytes.bytesMethodReader((IPrices) (id, price) -> sb.append(id).append(' ').append(price).append('\n'));
+            for (int i = 0; i < 7; i++)
+                assertTrue(reader.readOne());
+            assertFalse(reader.readOne());
+            assertEquals("" +
+                    "0 100.0\n" +
+                    "1 100.25\n" +
+                    "2 100.5\n" +
+                    "3 100.75\n" +
+                    "4 101.0\n" +
+                    "5 101.25\n" +
+                    "6 101.5\n", sb.toString());
+        } finally {
+            batching.close();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void maxBytes() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(256);
+        final BatchingBytesMethodWriter<IPrices> batching = new BatchingBytesMethodWriter<>(IPrices.class, bytes)
+                .maxBytes(20)
+                .maxDelay(1, TimeUnit.HOURS);
+        try {
+            final IPrices prices = batching.writer();
+            // each message is 17 bytes so the second fills the block
+            prices.onPrice(1, 1.0);
+            assertEquals(0, bytes.writePosition());
+            prices.onPrice(2, 2.0);
+            assertEquals(BatchingBytesMethodWriter.BATCH_MESSAGE_ID, bytes.readStopBit());
+            assertEquals(34, bytes.readStopBit());
+            assertEquals(34, bytes.readRemaining());
+        } finally {
+            batching.close();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void closeFlushesEveryThread()
+            throws InterruptedException {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(256);
+        final BatchingBytesMethodWriter<IPrices> batching = new BatchingBytesMethodWriter<>(IPrices.class, bytes)
+                .maxMessages(100);
+        try {
+            final IPrices prices = batching.writer();
+            for (int i = 0; i < 10; i++)
+                prices.onPrice(i, i);
+            final Thread closer = new Thread(() -> {
+                final IPrices prices2 = batching.writer();
+                for (int i = 100; i < 110; i++)
+                    prices2.onPrice(i, i);
+                batching.close();
+            });
+            closer.start();
+            closer.join();
+
+            final List<Long> ids = new ArrayList<>();
+            final MethodReader reader = bytes.bytesMethodReader((IPrices) (id, price) -> ids.add(id));
+            while (reader.readOne()) {
+                // read all
+            }
+            Collections.sort(ids);
+            assertEquals(20, ids.size());
+            assertEquals(0L, (long) ids.get(0));
+            assertEquals(9L, (long) ids.get(9));
+            assertEquals(100L, (long) ids.get(10));
+            assertEquals(109L, (long) ids.get(19));
+
+            assertThrows(IllegalStateException.class, () -> prices.onPrice(10, 10));
+            assertThrows(IllegalStateException.class, batching::flush);
+        } finally {
+            batching.close();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void flushedThreadIsNotRetained()
+            throws InterruptedException {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(256);
+        final BatchingBytesMethodWriter<IPrices> batching = new BatchingBytesMethodWriter<>(IPrices.class, bytes);
+        try {
+            final AtomicReference<WeakReference<IPrices>> writerRef = new AtomicReference<>();
+            final Thread thread = new Thread(() -> {
+                final IPrices prices = batching.writer();
+                prices.onPrice(1, 1.0);
+                assertEquals(1, batching.flush());
+                writerRef.set(new WeakReference<>(prices));
+            });
+            thread.start();
+            thread.join();
+
+            for (int i = 0; i < 100 && writerRef.get().get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(writerRef.get().get());
+        } finally {
+            batching.close();
+            bytes.releaseLast();
+        }
+    }
+
+    interface IPrices {
+        @MethodId(1)
+        void onPrice(long id, double price);
+    }
+}
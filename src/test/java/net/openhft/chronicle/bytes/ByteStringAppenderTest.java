@@ -24,8 +24,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -242,6 +244,87 @@ public class ByteStringAppenderTest extends BytesTestCommon {
         }
     }
 
+    @Test
+    public void appendDoubleShortest() {
+        assumeFalse(GuardedNativeBytes.areNewGuarded());
+        for (double d : new double[]{0.1, 0.3, 0.1 + 0.2, 1.0, -0.0, 123.456, -0.00002, 1e22, 5e-324, Double.MAX_VALUE}) {
+            bytes.clear().append(d);
+            String s = bytes.toString();
+            assertEquals(s, new BigDecimal(Double.toString(d)).stripTrailingZeros(), new BigDecimal(s).stripTrailingZeros());
+        }
+        // Double.toString before Java 19 gives 9.999999999999999E22
+        bytes.clear().append(0.1 + 0.2).append(' ').append(1e23).append(' ').append(-0.00002);
+        assertEquals("0.30000000000000004 1.0E23 -0.00002", bytes.toString());
+
+        Random rand = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double d = Double.longBitsToDouble(rand.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            bytes.clear().append(d);
+            String s = bytes.toString();
+            assertEquals(s, d, Double.parseDouble(s), 0.0);
+            assertTrue(s, s.length() <= 37);
+        }
+    }
+
+    @Test
+    public void appendDoubleLimits() {
+        assumeFalse(GuardedNativeBytes.areNewGuarded());
+        assertAppends("4.9E-324", Double.MIN_VALUE);
+        assertAppends("-2.2250738585072014E-308", -Double.MIN_NORMAL);
+        assertAppends("1.7976931348623157E308", Double.MAX_VALUE);
+        assertAppends("9.99E-19", 9.99e-19);
+        assertAppends("0.000000000000000001", 1e-18);
+        assertAppends("-0.0000000000000000012345678901234567", -1.2345678901234567e-18);
+        assertAppends("99999999999999980000.0", 9.999999999999998e19);
+        assertAppends("1.0E20", 1e20);
+        assertAppends("1.2345678901234567E20", 1.2345678901234567e20);
+    }
+
+    private void assertAppends(String expected, double d) {
+        bytes.clear().append(d);
+        assertEquals(expected, bytes.toString());
+    }
+
+    @Test
+    public void appendFloatShortest() {
+        assumeFalse(GuardedNativeBytes.areNewGuarded());
+        bytes.append(4.1f).append(' ').append(0.1f).append(' ').append(1e7f).append(' ').append(-1.4e-45f);
+        assertEquals("4.1 0.1 1.0E7 -1.4E-45", bytes.toString());
+
+        Random rand = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            float f = Float.intBitsToFloat(rand.nextInt());
+            if (Float.isNaN(f) || Float.isInfinite(f))
+                continue;
+            bytes.clear().append(f);
+            String s = bytes.toString();
+            assertEquals(s, f, Float.parseFloat(s), 0.0f);
+            assertTrue(s, s.replace(".", "").replace("-", "").replaceAll("^0+|0+$", "").length() <= 9);
+            assertTrue(s, s.length() <= 15);
+        }
+    }
+
+    @Test
+    public void appendFloatLimits() {
+        assumeFalse(GuardedNativeBytes.areNewGuarded());
+        assertAppends("1.4E-45", Float.MIN_VALUE);
+        assertAppends("3.4028235E38", Float.MAX_VALUE);
+        assertAppends("1.0E30", 1e30f);
+        assertAppends("-9.99E-4", -9.99e-4f);
+        assertAppends("0.001", 0.001f);
+        assertAppends("1000000.0", 1e6f);
+        assertAppends("9999999.0", 9999999f);
+        assertAppends("1.0E7", 1e7f);
+        assertAppends("1.6777216E7", 16777216f);
+    }
+
+    private void assertAppends(String expected, float f) {
+        bytes.clear().append(f);
+        assertEquals(expected, bytes.toString());
+    }
+
     @Test
     public void testAppend8bit() {
         BytesStore bs = BytesStore.elasticByteBuffer(4, 16);
@@ -383,6 +383,35 @@ public class BytesInternalTest extends BytesTestCommon {
         Assert.assertEquals("Different " + (100.0 * different) / max + "%", 0, different);
     }
 
+    @Test
+    public void parseDoubleCorrectlyRounded() {
+        assumeFalse(GuardedNativeBytes.areNewGuarded());
+        String[] hard = {
+                "2.2250738585072011e-308", "2.2250738585072012e-308", "2.2250738585072014E-308",
+                "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324",
+                "1.7976931348623157e308", "1.7976931348623159e308", "1e-400", "1e400",
+                "9007199254740993", "9007199254740992.5", "9007199254740993.0000000000000000000001",
+                "1.00000000000000011102230246251565404236316680908203125",
+                "1.00000000000000011102230246251565404236316680908203124",
+                "1.00000000000000011102230246251565404236316680908203126",
+                "12345678901234567890123456789", "0.30000000000000004", "7.038531e-26", "1e23", "8.41e21"};
+        int different = 0;
+        for (String s : hard) {
+            different = checkParse(different, s);
+            different = checkParse(different, "-" + s);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            different = checkParse(different, Double.toString(d));
+            // long mantissas
+            different = checkParse(different, new java.math.BigDecimal(d).toString());
+        }
+        assertEquals(0, different);
+    }
+
     @Test
     @Ignore(/* peformance test */)
     public void testNoneDirectWritePerformance() {
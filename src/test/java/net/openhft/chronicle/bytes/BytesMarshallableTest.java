@@ -18,6 +18,7 @@
 package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.IORuntimeException;
 import org.jetbrains.annotations.NotNull;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -27,6 +28,7 @@ import org.junit.runners.Parameterized;
 
 import java.io.IOException;
 import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDate;
@@ -38,7 +40,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
 
 @RunWith(Parameterized.class)
@@ -116,6 +121,123 @@ public class BytesMarshallableTest extends BytesTestCommon {
         }
     }
 
+    @Test
+    public void bulkCopyPrimitives() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final BytesMarshaller<MyByteable> marshaller = new BytesMarshaller<>(MyByteable.class, true);
+        final Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            final MyByteable mb1 = new MyByteable(true, (byte) 11, (short) 22, 'T', 44, 5.555f, 66, 77.77);
+            marshaller.writeMarshallable(mb1, bytes);
+            final MyByteable mb2 = new MyByteable();
+            marshaller.readMarshallable(mb2, bytes);
+            assertEquals(mb1.toString(), mb2.toString());
+            assertEquals(0, bytes.readRemaining());
+
+            // the same bytes with a different layout fingerprint are rejected
+            bytes.readPosition(0);
+            bytes.writeInt(0, bytes.readInt(0) + 1);
+            try {
+                marshaller.readMarshallable(new MyByteable(), bytes);
+                fail();
+            } catch (IORuntimeException expected) {
+                // expected
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void taggedFieldsAddedAndRemoved() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            final TaggedV1 v1 = new TaggedV1();
+            v1.num = 1;
+            v1.text = "hello";
+            v1.price = 2.5;
+            v1.ch = 'z';
+            v1.writeMarshallable(bytes);
+            final TaggedV1 v1b = new TaggedV1();
+            v1b.readMarshallable(bytes);
+            assertEquals("1 hello 2.5 z", v1b.num + " " + v1b.text + " " + v1b.price + " " + v1b.ch);
+
+            // a newer reader which has reordered, added and removed fields
+            bytes.readPosition(0);
+            final TaggedV2 v2 = new TaggedV2();
+            v2.readMarshallable(bytes);
+            assertEquals("1 hello 2.5 0", v2.num + " " + v2.text + " " + v2.price + " " + v2.added);
+            assertEquals(0, bytes.readRemaining());
+
+            // and the old reader skips the field it doesn't know
+            bytes.clear();
+            v2.added = 42;
+            v2.writeMarshallable(bytes);
+            final TaggedV1 v1c = new TaggedV1();
+            v1c.ch = 'q';
+            v1c.readMarshallable(bytes);
+            assertEquals("1 hello 2.5 0", v1c.num + " " + v1c.text + " " + v1c.price + " " + (int) v1c.ch);
+            assertEquals(0, bytes.readRemaining());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void taggedFieldsInHexDump() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final Bytes<?> bytes = new HexDumpBytes();
+        try {
+            newTaggedV1().writeMarshallable(bytes);
+            final String hexString = bytes.toHexString();
+            assertTrue(hexString, hexString.contains("# text"));
+
+            // the length written after the text must be in the dump as well
+            final Bytes<?> bytes2 = HexDumpBytes.fromText(hexString);
+            try {
+                assertTaggedV1(bytes);
+                assertTaggedV1(bytes2);
+            } finally {
+                bytes2.releaseLast();
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void taggedFieldsWithoutRandomAccess() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            // only a BytesOut, so the length can't be written at an offset
+            final BytesOut<?> out = (BytesOut<?>) Proxy.newProxyInstance(BytesOut.class.getClassLoader(),
+                    new Class[]{BytesOut.class}, (proxy, method, args) -> method.invoke(bytes, args));
+            assertFalse(out instanceof RandomDataOutput);
+            newTaggedV1().writeMarshallable(out);
+            assertTaggedV1(bytes);
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    private static TaggedV1 newTaggedV1() {
+        final TaggedV1 v1 = new TaggedV1();
+        v1.num = 1;
+        v1.text = "hello";
+        v1.price = 2.5;
+        v1.ch = 'z';
+        return v1;
+    }
+
+    private static void assertTaggedV1(Bytes<?> bytes) {
+        final TaggedV1 v1 = new TaggedV1();
+        v1.readMarshallable(bytes);
+        assertEquals("1 hello 2.5 z", v1.num + " " + v1.text + " " + v1.price + " " + v1.ch);
+        assertEquals(0, bytes.readRemaining());
+    }
+
     @Test
     public void serializeScalars() {
         final Bytes<?> bytes = new HexDumpBytes();
@@ -658,6 +780,28 @@ public class BytesMarshallableTest extends BytesTestCommon {
         }
     }
 
+    private static final class TaggedV1 implements BytesMarshallable {
+        @FieldId(1)
+        int num;
+        @FieldId(2)
+        String text;
+        @FieldId(3)
+        double price;
+        @FieldId(4)
+        char ch;
+    }
+
+    private static final class TaggedV2 implements BytesMarshallable {
+        @FieldId(1)
+        int num;
+        @FieldId(3)
+        double price;
+        @FieldId(5)
+        long added;
+        @FieldId(2)
+        String text;
+    }
+
     private static final class MyCollections implements BytesMarshallable {
         List<String> words = new ArrayList<>();
         Map<Double, Long> scoreCountMap = new LinkedHashMap<>();
@@ -22,6 +22,7 @@ import net.openhft.chronicle.core.Mocker;
 import org.junit.Test;
 
 import java.io.StringWriter;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.ZonedDateTime;
@@ -30,6 +31,7 @@ import java.util.UUID;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assume.assumeFalse;
 
 public class BytesMethodWriterBuilderTest extends BytesTestCommon {
@@ -150,4 +152,70 @@ public class BytesMethodWriterBuilderTest extends BytesTestCommon {
         }
 
     }
+
+    @Test
+    public void generatedWriterWritesPrimitives() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64);
+        try {
+            final IPrimitives m = bytes.bytesMethodWriter(IPrimitives.class);
+            assertFalse(Proxy.isProxyClass(m.getClass()));
+
+            assertSame(m, m.price(12345L, 1.25, 'B', true));
+            m.text("Hello", (short) 7);
+
+            assertEquals(1, bytes.readStopBit());
+            assertEquals(12345L, bytes.readLong());
+            assertEquals(1.25, bytes.readDouble(), 0.0);
+            assertEquals('B', bytes.readChar());
+            assertTrue(bytes.readBoolean());
+            assertEquals(300, bytes.readStopBit());
+            assertEquals("Hello", bytes.readUtf8());
+            assertEquals(7, bytes.readShort());
+            assertEquals(0, bytes.readRemaining());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void generatedReaderReadsPrimitives() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64);
+        try {
+            final IPrimitives m = bytes.bytesMethodWriter(IPrimitives.class);
+            m.price(12345L, 1.25, 'B', true)
+                    .price(-1L, -0.5, 'S', false);
+            m.text("Hello", (short) 7);
+
+            final StringBuilder sb = new StringBuilder();
+            final MethodReader reader = bytes.bytesMethodReader(new IPrimitives() {
+                @Override
+                public IPrimitives price(long id, double price, char side, boolean firm) {
+                    sb.append("price ").append(id).append(' ').append(price).append(' ').append(side).append(' ').append(firm).append('\n');
+                    return this;
+                }
+
+                @Override
+                public void text(String text, short count) {
+                    sb.append("text ").append(text).append(' ').append(count).append('\n');
+                }
+            });
+            for (int i = 0; i < 3; i++)
+                assertTrue(reader.readOne());
+            assertFalse(reader.readOne());
+            assertEquals("" +
+                    "price 12345 1.25 B true\n" +
+                    "price -1 -0.5 S false\n" +
+                    "text Hello 7\n", sb.toString());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    interface IPrimitives {
+        @MethodId(1)
+        IPrimitives price(long id, double price, char side, boolean firm);
+
+        @MethodId(300)
+        void text(String text, short count);
+    }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ package net.openhft.chronicle.bytes;
 import net.openhft.chronicle.bytes.algo.OptimisedBytesStoreHash;
 import net.openhft.chronicle.bytes.algo.VanillaBytesStoreHash;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
+import net.openhft.chronicle.bytes.util.Bit8StringInterner;
 import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.bytes.util.UTF8StringInterner;
 import net.openhft.chronicle.core.io.AbstractReferenceCounted;
@@ -42,6 +43,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static net.openhft.chronicle.bytes.Allocator.*;
@@ -822,6 +824,56 @@ public class BytesTest extends BytesTestCommon {
         }
     }
 
+    @Test
+    public void testIsoDateTime() {
+        @NotNull Bytes<?> b = alloc1.elasticBytes(64);
+        try {
+            long millis = 12345 * 86400_000L + 12345678L;
+            b.appendIsoDateTime(millis, TimeUnit.MILLISECONDS).append(' ')
+                    .appendIsoDateTime(millis * 1000_000 + 123_456, TimeUnit.NANOSECONDS).append(' ')
+                    .appendIsoDateTime(-1, TimeUnit.SECONDS);
+            assertEquals("2003-10-20T03:25:45.678Z 2003-10-20T03:25:45.678123456Z 1969-12-31T23:59:59Z", b.toString());
+
+            assertEquals(millis, b.parseIsoDateTime(TimeUnit.MILLISECONDS));
+            assertEquals(millis * 1000 + 123, b.parseIsoDateTime(TimeUnit.MICROSECONDS));
+            assertEquals(-1, b.parseIsoDateTime(TimeUnit.SECONDS));
+
+            b.clear().append("2003-10-20T04:25:45.6+01:00 2003-10-20 03:25Z");
+            assertEquals(millis - 78, b.parseIsoDateTime(TimeUnit.MILLISECONDS));
+            assertEquals(millis / 1000 - 45, b.parseIsoDateTime(TimeUnit.SECONDS));
+        } finally {
+            postTest(b);
+        }
+    }
+
+    @Test
+    public void testFixTimestamp() {
+        @NotNull Bytes<?> b = alloc1.elasticBytes(64);
+        try {
+            long micros = (12345 * 86400_000L + 12345678L) * 1000 + 901;
+            b.appendFixTimestamp(micros, TimeUnit.MICROSECONDS).append('\u0001')
+                    .appendFixTimestamp(micros / 1000, TimeUnit.MILLISECONDS).append('\u0001');
+            assertEquals("20031020-03:25:45.678901\u000120031020-03:25:45.678\u0001", b.toString());
+
+            assertEquals(micros, b.parseFixTimestamp(TimeUnit.MICROSECONDS));
+            assertEquals(micros / 1000 * 1000_000, b.parseFixTimestamp(TimeUnit.NANOSECONDS));
+            assertEquals(0, b.readRemaining());
+        } finally {
+            postTest(b);
+        }
+    }
+
+    @Test(expected = IORuntimeException.class)
+    public void testFixTimestampInvalid() {
+        @NotNull Bytes<?> b = alloc1.elasticBytes(64);
+        try {
+            b.append("20030229-03:25:45");
+            b.parseFixTimestamp(TimeUnit.SECONDS);
+        } finally {
+            postTest(b);
+        }
+    }
+
     @Test
     public void testWriteOffset() {
         int length = 127;
@@ -878,6 +930,27 @@ public class BytesTest extends BytesTestCommon {
         }
     }
 
+    @Test
+    public void to8BitStringLatin1() {
+        assumeFalse(alloc1 == HEAP_EMBEDDED || alloc1 == HEX_DUMP);
+
+        @NotNull Bytes<?> a = alloc1.elasticBytes(16);
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 70_000; i++)
+                sb.append((char) (i * 7 & 0xFF));
+            for (int length : new int[]{1, 255, 256, 4096, 70_000}) {
+                String expected = sb.substring(0, length);
+                a.clear().append8bit(expected);
+                assertEquals(expected, a.to8bitString());
+                assertEquals(expected, new Bit8StringInterner(16).intern(a));
+                assertEquals(0, a.readPosition());
+            }
+        } finally {
+            postTest(a);
+        }
+    }
+
     @Test
     public void testParseDoubleReadLimit() {
         Bytes<ByteBuffer> bytes = (Bytes) alloc1.fixedBytes(32);
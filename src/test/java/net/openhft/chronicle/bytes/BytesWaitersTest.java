@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.bytes.internal.Futex;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.core.io.ReferenceOwner;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class BytesWaitersTest extends BytesTestCommon {
+    // without a wake a futex waiter only checks the value every 10 ms, so a wake must arrive well before that.
+    // This only shows the wake was delivered, a loaded machine can take more than a millisecond to schedule the waiter
+    private static final long WAKE_LATENCY_NS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    public void waitUntilChangedAndWake()
+            throws InterruptedException {
+        final BytesStore<?, ?> bytesStore = BytesStore.nativeStoreWithFixedCapacity(64);
+        try {
+            bytesStore.writeVolatileInt(8, 0);
+            assertFalse(bytesStore.waitUntilChanged(8, 0, TimeUnit.MILLISECONDS.toNanos(1)));
+            assertTrue(bytesStore.waitUntilChanged(8, 1, TimeUnit.SECONDS.toNanos(1)));
+            assertEquals(0, bytesStore.wake(8, 1));
+
+            assertWokenPromptly(bytesStore, bytesStore);
+        } finally {
+            bytesStore.releaseLast();
+        }
+    }
+
+    @Test
+    public void wakeThroughAnotherMapping()
+            throws IOException, InterruptedException {
+        final File file = IOTools.createTempFile("wakeThroughAnotherMapping");
+        final ReferenceOwner owner = ReferenceOwner.temporary("test");
+        try (MappedFile first = MappedFile.mappedFile(file, 64 << 10);
+             MappedFile second = MappedFile.mappedFile(file, 64 << 10)) {
+            final MappedBytesStore waitOn = first.acquireByteStore(owner, 0);
+            final MappedBytesStore writeTo = second.acquireByteStore(owner, 0);
+            try {
+                assertNotEquals(waitOn.addressForRead(8), writeTo.addressForRead(8));
+                assertWokenPromptly(waitOn, writeTo);
+            } finally {
+                waitOn.release(owner);
+                writeTo.release(owner);
+            }
+        }
+    }
+
+    private static void assertWokenPromptly(BytesStore<?, ?> waitOn, BytesStore<?, ?> writeTo)
+            throws InterruptedException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            writeTo.writeVolatileInt(8, 0);
+            final AtomicLong woken = new AtomicLong();
+            final Thread waiter = new Thread(() -> {
+                if (waitOn.waitUntilChanged(8, 0, TimeUnit.SECONDS.toNanos(10)))
+                    woken.set(System.nanoTime());
+            });
+            waiter.start();
+            // let it go to sleep
+            Thread.sleep(20);
+            final long start = System.nanoTime();
+            writeTo.writeVolatileInt(8, 1);
+            writeTo.wake(8, Integer.MAX_VALUE);
+            waiter.join();
+            assertNotEquals(0, woken.get());
+            best = Math.min(best, woken.get() - start);
+        }
+        if (Futex.isSupported())
+            assertTrue("woken after " + best / 1000 + " us", best < WAKE_LATENCY_NS);
+        else
+            assertTrue(best < TimeUnit.SECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.io.ReferenceOwner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MappedBPlusTreeTest extends BytesTestCommon {
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void appendAndSearch()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final int entries = 10_000;
+        try (MappedFile mappedFile = MappedFile.mappedFile(file, 64 << 10)) {
+            try (MappedBPlusTree tree = new MappedBPlusTree(mappedFile, 256)) {
+                final long[] keys = new long[entries];
+                final long[] values = new long[entries];
+                for (int i = 0; i < entries; i++) {
+                    keys[i] = i * 10L;
+                    values[i] = i;
+                }
+                tree.appendAll(keys, values, entries);
+                assertEquals(entries, tree.size());
+
+                try {
+                    tree.append(5, 0);
+                    fail();
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+
+            // reopen, as a reader in another process would
+            try (MappedBPlusTree tree = new MappedBPlusTree(mappedFile, 256)) {
+                assertEquals(entries, tree.size());
+                for (int i = 0; i < entries; i += 7) {
+                    assertEquals(i, tree.get(i * 10L, -1));
+                    assertEquals(i + 1 < entries ? i + 1 : -1, tree.ceilingValue(i * 10L + 1, -1));
+                    assertEquals(i, tree.floorValue(i * 10L + 9, -1));
+                }
+                assertEquals(-1, tree.get(15, -1));
+                assertEquals(-1, tree.floorValue(-1, -1));
+                assertEquals(0, tree.ceilingValue(Long.MIN_VALUE, -1));
+
+                final long[] sum = {0};
+                assertEquals(100, tree.forEach(5_000, 6_000, (key, value) -> sum[0] += value));
+                assertEquals(100 * 500 + 99 * 50, sum[0]);
+
+                tree.append(entries * 10L, entries);
+                assertEquals(entries, tree.get(entries * 10L, -1));
+                assertEquals(entries + 1, tree.size());
+            }
+        }
+    }
+
+    @Test
+    public void readerDoesNotCreate()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        try (MappedFile mappedFile = MappedFile.mappedFile(file, 64 << 10)) {
+            assertThrows(IllegalStateException.class, () -> new MappedBPlusTree(mappedFile, 256, false));
+            final ReferenceOwner owner = ReferenceOwner.temporary("test");
+            final MappedBytesStore header = mappedFile.acquireByteStore(owner, 0);
+            try {
+                // the header was not written
+                assertEquals(0, header.readLong(0));
+                assertEquals(0, header.readLong(8));
+                assertEquals(0, header.readLong(16));
+            } finally {
+                header.release(owner);
+            }
+
+            try (MappedBPlusTree appender = new MappedBPlusTree(mappedFile, 256, true);
+                 MappedBPlusTree reader = new MappedBPlusTree(mappedFile, 256, false)) {
+                appender.append(1, 10);
+                assertEquals(10, reader.get(1, -1));
+                assertThrows(IllegalStateException.class, () -> reader.append(2, 20));
+                assertEquals(1, reader.size());
+            }
+        }
+    }
+
+    @Test
+    public void appenderReclaimsAbandonedHeader()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        try (MappedFile mappedFile = MappedFile.mappedFile(file, 64 << 10)) {
+            final ReferenceOwner owner = ReferenceOwner.temporary("test");
+            final MappedBytesStore header = mappedFile.acquireByteStore(owner, 0);
+            try {
+                // an appender claimed the header and died before writing it
+                header.writeInt(0, -1);
+                assertThrows(IllegalStateException.class, () -> new MappedBPlusTree(mappedFile, 256, false));
+
+                try (MappedBPlusTree appender = new MappedBPlusTree(mappedFile, 256, true);
+                     MappedBPlusTree reader = new MappedBPlusTree(mappedFile, 256, false)) {
+                    appender.append(1, 10);
+                    assertEquals(10, reader.get(1, -1));
+                }
+            } finally {
+                header.release(owner);
+            }
+        }
+    }
+
+    @Test
+    public void wrongPageSize()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        try (MappedFile mappedFile = MappedFile.mappedFile(file, 64 << 10)) {
+            new MappedBPlusTree(mappedFile, 256).close();
+            try {
+                new MappedBPlusTree(mappedFile, 512);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MethodEncoderLookupTest extends BytesTestCommon {
+
+    @Test
+    public void encodesLikeTheGeneratedWriter() throws NoSuchMethodException {
+        final Method method = IOrders.class.getMethod("onOrder", long.class, double.class, char.class, TimeUnit.class, CharSequence.class, String.class);
+        final MethodEncoder encoder = MethodEncoderLookup.BY_ANNOTATION.apply(method);
+        assertEquals(5, encoder.messageId());
+
+        final Bytes<?> expected = Bytes.allocateElasticOnHeap(64);
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64);
+        try {
+            expected.bytesMethodWriter(IOrders.class)
+                    .onOrder(1234567890123L, 1.5, 'B', TimeUnit.SECONDS, new StringBuilder("note"), "id");
+            assertEquals(5, expected.readStopBit());
+
+            final Object[] args = {1234567890123L, 1.5, 'B', TimeUnit.SECONDS, new StringBuilder("note"), "id"};
+            encoder.encode(args, bytes);
+            assertEquals(expected.toHexString(), bytes.toHexString());
+
+            final Object[] decoded = encoder.decode(new Object[args.length], bytes);
+            assertEquals(1234567890123L, decoded[0]);
+            assertEquals(1.5, decoded[1]);
+            assertEquals('B', decoded[2]);
+            assertSame(TimeUnit.SECONDS, decoded[3]);
+            assertEquals("note", decoded[4].toString());
+            assertEquals("id", decoded[5]);
+            assertEquals(0, bytes.readRemaining());
+
+            // the StringBuilder is reused
+            bytes.readPosition(0);
+            assertSame(decoded[4], encoder.decode(decoded, bytes)[4]);
+        } finally {
+            expected.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void noMethodId() throws NoSuchMethodException {
+        assertNull(MethodEncoderLookup.BY_ANNOTATION.apply(Object.class.getMethod("toString")));
+    }
+
+    @Test
+    public void rejectsTypesWhichCannotBeReadBack() throws NoSuchMethodException {
+        for (Class<?> type : new Class<?>[]{PointerBytesStore.class, StringBuffer.class, Object.class, Short.class, WriteBytesMarshallable.class}) {
+            final Method method = IUnsupported.class.getMethod("on", type);
+            assertThrows(type.toString(), IllegalArgumentException.class, () -> MethodEncoderLookup.BY_ANNOTATION.apply(method));
+        }
+    }
+
+    @Test
+    public void readsBackBytesStoreAndBoxed() throws NoSuchMethodException {
+        final MethodEncoder encoder = MethodEncoderLookup.BY_ANNOTATION.apply(
+                IUnsupported.class.getMethod("onSupported", BytesStore.class, Integer.class, Double.class));
+        final Bytes<?> hello = Bytes.from("hello");
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64);
+        try {
+            encoder.encode(new Object[]{hello, 12, 1.5}, bytes);
+            final Object[] decoded = encoder.decode(new Object[3], bytes);
+            assertEquals("hello", decoded[0].toString());
+            assertEquals(12, decoded[1]);
+            assertEquals(1.5, decoded[2]);
+            ((Bytes<?>) decoded[0]).releaseLast();
+        } finally {
+            hello.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    interface IUnsupported {
+        @MethodId(1)
+        void on(PointerBytesStore bytesStore);
+
+        @MethodId(2)
+        void on(StringBuffer text);
+
+        @MethodId(3)
+        void on(Object object);
+
+        @MethodId(4)
+        void on(Short value);
+
+        @MethodId(5)
+        void on(WriteBytesMarshallable marshallable);
+
+        @MethodId(6)
+        void onSupported(BytesStore<?, ?> bytesStore, Integer count, Double price);
+    }
+
+    interface IOrders {
+        @MethodId(5)
+        void onOrder(long timestampNS, double price, char side, TimeUnit unit, CharSequence note, String id);
+    }
+}
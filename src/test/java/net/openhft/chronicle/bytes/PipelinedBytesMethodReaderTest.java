@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class PipelinedBytesMethodReaderTest extends BytesTestCommon {
+
+    @Test
+    public void partitionedMessagesAreInOrder() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64 << 10);
+        try {
+            final IOrders writer = bytes.bytesMethodWriter(IOrders.class);
+            for (int i = 0; i < 1000; i++) {
+                writer.onOrder(i % 7, i, "note" + i);
+                if (i % 100 == 0)
+                    writer.onCancel(i % 7);
+            }
+
+            final Map<Long, List<Long>> sequences = new ConcurrentHashMap<>();
+            final Map<Long, Set<String>> threads = new ConcurrentHashMap<>();
+            final PipelinedBytesMethodReader reader = bytes.bytesMethodReaderBuilder()
+                    .partitioner((messageId, in) -> in.readLong())
+                    .buildPipelined(3, new IOrders() {
+                        @Override
+                        public void onOrder(long account, long sequence, String note) {
+                            assertEquals("note" + sequence, note);
+                            sequences.computeIfAbsent(account, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                            threads.computeIfAbsent(account, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                        }
+
+                        @Override
+                        public void onCancel(long account) {
+                            sequences.computeIfAbsent(account, k -> Collections.synchronizedList(new ArrayList<>())).add(-1L);
+                        }
+                    });
+            try {
+                int count = 0;
+                while (reader.readOne())
+                    count++;
+                assertEquals(1010, count);
+                reader.awaitIdle();
+            } finally {
+                reader.close();
+            }
+
+            assertEquals(7, sequences.size());
+            for (Map.Entry<Long, List<Long>> entry : sequences.entrySet()) {
+                long last = -1;
+                for (long sequence : entry.getValue()) {
+                    if (sequence < 0)
+                        continue;
+                    assertEquals(entry.getKey().longValue(), sequence % 7);
+                    assertTrue(sequence > last);
+                    last = sequence;
+                }
+                assertEquals(1, threads.get(entry.getKey()).size());
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void readsBatches() {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap(64 << 10);
+        final BatchingBytesMethodWriter<IOrders> batching = new BatchingBytesMethodWriter<>(IOrders.class, bytes)
+                .maxMessages(10);
+        try {
+            final IOrders writer = batching.writer();
+            for (int i = 0; i < 95; i++)
+                writer.onOrder(1, i, "n");
+            batching.flush();
+
+            final Set<Long> seen = ConcurrentHashMap.newKeySet();
+            final PipelinedBytesMethodReader reader = bytes.bytesMethodReaderBuilder()
+                    .buildPipelined(2, (IOrders) (account, sequence, note) -> seen.add(sequence));
+            try {
+                while (reader.readOne()) {
+                    // pass each message to a worker
+                }
+                reader.awaitIdle();
+            } finally {
+                reader.close();
+            }
+            assertEquals(95, seen.size());
+        } finally {
+            batching.close();
+            bytes.releaseLast();
+        }
+    }
+
+    interface IOrders {
+        @MethodId(1)
+        void onOrder(long account, long sequence, String note);
+
+        @MethodId(2)
+        default void onCancel(long account) {
+        }
+    }
+}
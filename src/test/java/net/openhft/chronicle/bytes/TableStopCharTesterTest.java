@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TableStopCharTesterTest extends BytesTestCommon {
+
+    @Test
+    public void sameAsStopCharTesters() {
+        for (StopCharTesters tester : StopCharTesters.values()) {
+            TableStopCharTester table = TableStopCharTester.of(tester);
+            assertSame(table, TableStopCharTester.tableFor(tester));
+            for (int ch = 0; ch <= Character.MAX_VALUE; ch++)
+                assertEquals(tester + " " + ch, tester.isStopChar(ch), table.isStopChar(ch));
+        }
+        assertTrue(TableStopCharTester.of(StopCharTesters.COMMA_STOP).swar());
+        assertTrue(TableStopCharTester.of(StopCharTesters.SPACE_STOP).swar());
+        assertFalse(TableStopCharTester.of(StopCharTesters.NUMBER_END).swar());
+    }
+
+    @Test
+    public void mayStop() {
+        Random rand = new Random(1);
+        for (StopCharTesters tester : StopCharTesters.values()) {
+            TableStopCharTester table = TableStopCharTester.of(tester);
+            if (!table.swar())
+                continue;
+            for (int i = 0; i < 100_000; i++) {
+                long word = 0;
+                boolean stop = false;
+                for (int j = 0; j < 8; j++) {
+                    int ch = rand.nextInt(20) == 0 ? rand.nextInt(256) : ' ' + rand.nextInt(95);
+                    stop |= ch >= 128 || tester.isStopChar(ch);
+                    word |= (long) ch << (j * 8);
+                }
+                if (stop)
+                    assertTrue(tester + " " + Long.toHexString(word), table.mayStop(word));
+            }
+        }
+    }
+
+    @Test
+    public void ofChars() {
+        TableStopCharTester tester = TableStopCharTester.ofChars("|=");
+        assertTrue(tester.isStopChar('|'));
+        assertTrue(tester.isStopChar('='));
+        assertTrue(tester.isStopChar(0));
+        assertFalse(tester.isStopChar('a'));
+        assertFalse(tester.isStopChar(0x2028));
+        assertFalse(tester.mayStop(0x6161616161616161L));
+        assertTrue(tester.mayStop(0x61617C6161616161L));
+    }
+
+    @Test
+    public void parse() {
+        String text = "8=FIX.4.4|9=178|35=D|49=A_LONG_SENDER_COMP_ID|56=TARGET|11=abcdefghijklmnopqrstuvwxyz0123456789|été|";
+        TableStopCharTester tester = TableStopCharTester.ofChars("|");
+        for (Bytes<?> bytes : new Bytes[]{Bytes.allocateElasticDirect(), Bytes.allocateElasticOnHeap()}) {
+            try {
+                bytes.appendUtf8(text);
+                // large enough to use the eight bytes at a time path
+                StringBuilder sb = new StringBuilder(128);
+                for (String expected : text.split("\\|")) {
+                    bytes.parseUtf8(sb, tester);
+                    assertEquals(expected, sb.toString());
+                }
+                assertEquals(0, bytes.readRemaining());
+
+                bytes.readPosition(0);
+                assertTrue(bytes.skipTo(tester));
+                assertEquals("9=178", bytes.parse8bit(tester));
+                assertTrue(bytes.parseUtf8(StopCharTesters.QUOTES.escaping()).endsWith("|été|"));
+            } finally {
+                bytes.releaseLast();
+            }
+        }
+    }
+}
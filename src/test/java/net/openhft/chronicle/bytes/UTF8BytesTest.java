@@ -17,13 +17,15 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesInternal;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class UTF8BytesTest extends BytesTestCommon {
 
@@ -43,4 +45,69 @@ public class UTF8BytesTest extends BytesTestCommon {
         assertEquals(MESSAGE, sb.toString());
         bytes.releaseLast();
     }
+
+    @Test
+    public void parseAsciiPrefixes() {
+        String text = "0123456789abcdefghijklmnopqrstuvwxyz";
+        for (Bytes<?> bytes : new Bytes[]{Bytes.allocateElasticDirect(), Bytes.allocateElasticOnHeap()}) {
+            try {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i <= text.length(); i++) {
+                    for (String suffix : new String[]{"", "\u00e9t\u00e9", "\u20ac1", "-" + text}) {
+                        String s = text.substring(0, i) + suffix;
+                        int len = (int) AppendableUtil.findUtf8Length(s);
+                        bytes.clear().appendUtf8(s);
+
+                        sb.setLength(0);
+                        bytes.parseUtf8(sb, true, len);
+                        assertEquals(s, sb.toString());
+
+                        sb.setLength(0);
+                        BytesInternal.parseUtf8(bytes, 0, sb, true, len);
+                        assertEquals(s, sb.toString());
+
+                        Bytes<?> out = Bytes.allocateElasticOnHeap();
+                        BytesInternal.parseUtf8(bytes.readPosition(0), out, true, len);
+                        assertEquals(s, out.toString());
+                        out.releaseLast();
+                    }
+                }
+            } finally {
+                bytes.releaseLast();
+            }
+        }
+    }
+
+    @Test
+    public void isValidUtf8() {
+        Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            bytes.append("plain ascii text which is longer than eight bytes");
+            assertTrue(bytes.isValidUtf8());
+            bytes.clear().appendUtf8(MESSAGE + " \u20ac \ud834\udd1e");
+            assertTrue(bytes.isValidUtf8());
+            assertTrue(bytes.isValidUtf8(0, 2));
+            // only part of the \u00e9
+            assertFalse(bytes.isValidUtf8(0, 3));
+            assertFalse(bytes.isValidUtf8(3, 4));
+
+            byte[][] invalid = {
+                    {(byte) 0x80}, // continuation byte
+                    {(byte) 0xC0, (byte) 0xAF}, // overlong '/'
+                    {(byte) 0xE0, (byte) 0x80, (byte) 0xAF}, // overlong '/'
+                    {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, // surrogate
+                    {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // above U+10FFFF
+                    {(byte) 0xF8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+                    {(byte) 0xE2, (byte) 0x82}, // truncated
+            };
+            for (byte[] b : invalid) {
+                bytes.clear().append("0123456789").write(b).append("0123456789");
+                assertFalse(bytes.isValidUtf8());
+            }
+            bytes.clear().write("\u00e9\u20ac\ud834\udd1e".getBytes(StandardCharsets.UTF_8));
+            assertTrue(bytes.isValidUtf8());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+import static net.openhft.chronicle.bytes.internal.ClassFileWriter.ACC_PUBLIC;
+import static net.openhft.chronicle.bytes.internal.ClassFileWriter.ACC_STATIC;
+import static org.junit.Assert.assertThrows;
+
+public class ClassFileWriterTest extends BytesTestCommon {
+    @Test
+    public void rejectsStaticInterfaceMethods() throws NoSuchMethodException {
+        final ClassFileWriter cfw = new ClassFileWriter(ClassFileWriterTest.class.getName() + "$Generated", Object.class);
+        final ClassFileWriter.Code code = cfw.method(ACC_PUBLIC | ACC_STATIC, "comparator", Comparator.class);
+        assertThrows(IllegalArgumentException.class, () -> code.invoke(Comparator.class.getMethod("naturalOrder")));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryBloomFilterTest extends BytesTestCommon {
+    @Test
+    public void addAndTest() {
+        final long capacity = BinaryBloomFilter.optimalCapacity(1000, 0.01);
+        final int hashes = BinaryBloomFilter.optimalHashes(1000, capacity);
+        assertEquals(7, hashes);
+
+        final Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            BinaryBooleanArrayReference.write(bytes, capacity);
+            final long length = bytes.writePosition();
+
+            try (BinaryBloomFilter filter = new BinaryBloomFilter(0, hashes)) {
+                filter.bytesStore(bytes, 0, length);
+                int added = 0;
+                for (long i = 0; i < 1000; i++)
+                    if (filter.add(i * 7919))
+                        added++;
+                assertTrue("added: " + added, added > 980);
+                assertFalse(filter.add(0));
+                assertTrue(filter.add(Bytes.from("hello")));
+
+                for (long i = 0; i < 1000; i++)
+                    assertTrue(filter.mightContain(i * 7919));
+                assertTrue(filter.mightContain(Bytes.from("hello")));
+
+                int falsePositives = 0;
+                for (long i = 0; i < 10_000; i++)
+                    if (filter.mightContain(i * 7919 + 1))
+                        falsePositives++;
+                assertTrue("falsePositives: " + falsePositives, falsePositives < 300);
+                assertEquals(added + 1, filter.getUsed());
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryBooleanArrayReferenceTest extends BytesTestCommon {
+    @Test
+    public void packedBits() {
+        final int length = 2 * 8 + 2 * 8;
+        final Bytes<?> bytes = Bytes.allocateDirect(length);
+        try {
+            BinaryBooleanArrayReference.write(bytes, 100);
+            assertEquals(length, bytes.writePosition());
+
+            try (BinaryBooleanArrayReference array = new BinaryBooleanArrayReference()) {
+                array.bytesStore(bytes, 0, length);
+                assertEquals(100, array.getCapacity());
+
+                for (int i = 0; i < 100; i += 3)
+                    array.setValueAt(i, true);
+                array.setValueAt(3, false);
+
+                assertTrue(array.getValueAt(0));
+                assertFalse(array.getValueAt(3));
+                assertTrue(array.getValueAt(99));
+                assertEquals(33, array.count(0, 100));
+                assertEquals(2, array.count(60, 64));
+                assertEquals(2, array.count(62, 67));
+
+                final boolean[] copy = new boolean[8];
+                array.copyTo(60, copy, 0, copy.length);
+                assertArrayEquals(new boolean[]{true, false, false, true, false, false, true, false}, copy);
+
+                array.copyFrom(0, new boolean[]{true, true}, 0, 2);
+                assertTrue(array.getValueAt(1));
+                assertEquals(34, array.count(0, 100));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void copyFromWholeAndPartWords() {
+        final int length = 4 * 8 + 2 * 8;
+        final Bytes<?> bytes = Bytes.allocateDirect(length);
+        try {
+            BinaryBooleanArrayReference.write(bytes, 200);
+
+            try (BinaryBooleanArrayReference array = new BinaryBooleanArrayReference()) {
+                array.bytesStore(bytes, 0, length);
+                for (int i = 0; i < 200; i++)
+                    array.setValueAt(i, true);
+
+                // part of the first word, two whole words and part of the last
+                final boolean[] values = new boolean[180];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = i % 5 == 0;
+                array.copyFrom(10, values, 3, 170);
+                for (int i = 0; i < 200; i++)
+                    assertEquals("index " + i, i < 10 || i >= 180 || (i - 10 + 3) % 5 == 0, array.getValueAt(i));
+                assertEquals(10 + 34 + 20, array.count(0, 200));
+
+                // within one word
+                array.copyFrom(65, new boolean[]{true, true, true}, 0, 3);
+                assertEquals(3, array.count(65, 68));
+                assertFalse(array.getValueAt(64));
+                assertFalse(array.getValueAt(69));
+
+                assertThrows(IndexOutOfBoundsException.class, () -> array.copyFrom(190, values, 0, 11));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryByteArrayReferenceTest extends BytesTestCommon {
+    private static final int CAPACITY = 100;
+    private static final int LENGTH = CAPACITY * 1 + 2 * 8;
+
+    @Test
+    public void copyAndReduceDirect() {
+        copyAndReduce(Bytes.allocateDirect(LENGTH));
+    }
+
+    @Test
+    public void copyAndReduceOnHeap() {
+        copyAndReduce(Bytes.allocateElasticOnHeap(LENGTH));
+    }
+
+    private void copyAndReduce(Bytes<?> bytes) {
+        try {
+            BinaryByteArrayReference.write(bytes, CAPACITY);
+
+            try (BinaryByteArrayReference array = new BinaryByteArrayReference()) {
+                array.bytesStore(bytes, 0, LENGTH);
+                assertEquals(CAPACITY, array.getCapacity());
+
+                final byte[] values = new byte[CAPACITY];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = (byte) (i * 2 - 100);
+                values[10] = Byte.MIN_VALUE;
+                values[20] = Byte.MAX_VALUE;
+                array.copyFrom(0, values, 0, values.length);
+                assertEquals(-100, array.getValueAt(0));
+                assertEquals(98, array.getValueAt(99));
+
+                final byte[] copy = new byte[10];
+                array.copyTo(50, copy, 0, copy.length);
+                for (int i = 0; i < copy.length; i++)
+                    assertEquals(values[50 + i], copy[i]);
+
+                // the sum of i * 2 - 100 is -100, less the two values replaced
+                assertEquals(-100 + 80 + Byte.MIN_VALUE + 60 + Byte.MAX_VALUE, array.sum(0, CAPACITY));
+                assertEquals(Byte.MIN_VALUE, array.min(0, CAPACITY));
+                assertEquals(Byte.MAX_VALUE, array.max(0, CAPACITY));
+                assertEquals(-58, array.min(21, 40));
+                assertEquals(-22, array.max(21, 40));
+                assertEquals(0, array.sum(5, 5));
+                assertEquals(Byte.MAX_VALUE, array.min(5, 5));
+                assertEquals(Byte.MIN_VALUE, array.max(5, 5));
+
+                assertThrows(IndexOutOfBoundsException.class, () -> array.sum(90, 101));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
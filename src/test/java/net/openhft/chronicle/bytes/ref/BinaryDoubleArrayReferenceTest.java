@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryDoubleArrayReferenceTest extends BytesTestCommon {
+    private static final int CAPACITY = 100;
+    private static final int LENGTH = CAPACITY * 8 + 2 * 8;
+
+    @Test
+    public void copyAndReduceDirect() {
+        copyAndReduce(Bytes.allocateDirect(LENGTH));
+    }
+
+    @Test
+    public void copyAndReduceOnHeap() {
+        copyAndReduce(Bytes.allocateElasticOnHeap(LENGTH));
+    }
+
+    private void copyAndReduce(Bytes<?> bytes) {
+        try {
+            BinaryDoubleArrayReference.write(bytes, CAPACITY);
+
+            try (BinaryDoubleArrayReference array = new BinaryDoubleArrayReference()) {
+                array.bytesStore(bytes, 0, LENGTH);
+                assertEquals(CAPACITY, array.getCapacity());
+
+                final double[] values = new double[CAPACITY];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = i - 20.5;
+                array.copyFrom(0, values, 0, values.length);
+                assertEquals(-20.5, array.getValueAt(0), 0.0);
+                assertEquals(79.5, array.getValueAt(99), 0.0);
+
+                final double[] copy = new double[10];
+                array.copyTo(50, copy, 0, copy.length);
+                for (int i = 0; i < copy.length; i++)
+                    assertEquals(values[50 + i], copy[i], 0.0);
+
+                assertEquals(10 * 4.5 - 20.5 * 10, array.sum(0, 10), 1e-9);
+                assertEquals(-20.5, array.min(0, CAPACITY), 0.0);
+                assertEquals(79.5, array.max(0, CAPACITY), 0.0);
+                assertEquals(0.5, array.min(21, 40), 0.0);
+                assertEquals(18.5, array.max(21, 40), 0.0);
+                assertEquals(0.0, array.sum(5, 5), 0.0);
+                assertEquals(Double.POSITIVE_INFINITY, array.min(5, 5), 0.0);
+                assertEquals(Double.NEGATIVE_INFINITY, array.max(5, 5), 0.0);
+
+                assertThrows(IndexOutOfBoundsException.class, () -> array.sum(90, 101));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryFloatArrayReferenceTest extends BytesTestCommon {
+    private static final int CAPACITY = 100;
+    private static final int LENGTH = CAPACITY * 4 + 2 * 8;
+
+    @Test
+    public void copyAndReduceDirect() {
+        copyAndReduce(Bytes.allocateDirect(LENGTH));
+    }
+
+    @Test
+    public void copyAndReduceOnHeap() {
+        copyAndReduce(Bytes.allocateElasticOnHeap(LENGTH));
+    }
+
+    private void copyAndReduce(Bytes<?> bytes) {
+        try {
+            BinaryFloatArrayReference.write(bytes, CAPACITY);
+
+            try (BinaryFloatArrayReference array = new BinaryFloatArrayReference()) {
+                array.bytesStore(bytes, 0, LENGTH);
+                assertEquals(CAPACITY, array.getCapacity());
+
+                final float[] values = new float[CAPACITY];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = i * 0.5f - 20.25f;
+                array.copyFrom(0, values, 0, values.length);
+                assertEquals(-20.25f, array.getValueAt(0), 0.0f);
+                assertEquals(29.25f, array.getValueAt(99), 0.0f);
+
+                final float[] copy = new float[10];
+                array.copyTo(50, copy, 0, copy.length);
+                for (int i = 0; i < copy.length; i++)
+                    assertEquals(values[50 + i], copy[i], 0.0f);
+
+                assertEquals(4950 * 0.5 - 20.25 * CAPACITY, array.sum(0, CAPACITY), 0.0);
+                assertEquals(-20.25f, array.min(0, CAPACITY), 0.0f);
+                assertEquals(29.25f, array.max(0, CAPACITY), 0.0f);
+                assertEquals(-9.75f, array.min(21, 40), 0.0f);
+                assertEquals(-0.75f, array.max(21, 40), 0.0f);
+                assertEquals(0.0, array.sum(5, 5), 0.0);
+                assertEquals(Float.POSITIVE_INFINITY, array.min(5, 5), 0.0f);
+                assertEquals(Float.NEGATIVE_INFINITY, array.max(5, 5), 0.0f);
+
+                // accumulated as a double, so adding 1 to 2^24 is not lost
+                array.setValueAt(0, 16777216f);
+                array.setValueAt(1, 1f);
+                array.setValueAt(2, 1f);
+                assertEquals(16777218.0, array.sum(0, 3), 0.0);
+
+                assertThrows(IndexOutOfBoundsException.class, () -> array.sum(90, 101));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryLongLongHashMapTest extends BytesTestCommon {
+    @Test
+    public void putGetRemoveAndGrow() {
+        final long length = BinaryLongLongHashMap.sizeInBytes(100);
+        final Bytes<?> bytes = Bytes.allocateDirect(length);
+        final long length2 = BinaryLongLongHashMap.sizeInBytes(1000);
+        final Bytes<?> bytes2 = Bytes.allocateDirect(length2);
+        try {
+            BinaryLongLongHashMap.write(bytes, 100);
+            BinaryLongLongHashMap.write(bytes2, 1000);
+
+            try (BinaryLongLongHashMap map = new BinaryLongLongHashMap();
+                 BinaryLongLongHashMap map2 = new BinaryLongLongHashMap()) {
+                map.bytesStore(bytes, 0, length);
+                assertEquals(128, map.capacity());
+
+                for (long i = 0; i < 96; i++)
+                    assertEquals(-1, map.put(i * 31, i, -1));
+                assertEquals(96, map.size());
+                assertEquals(62, map.put(62 * 31, 620, -1));
+                assertEquals(620, map.get(62 * 31, -1));
+                assertEquals(-1, map.get(5, -1));
+
+                assertTrue(map.isFull());
+                try {
+                    map.put(-7, 1, -1);
+                    fail();
+                } catch (IllegalStateException expected) {
+                    // expected
+                }
+
+                assertEquals(0, map.remove(0, -1));
+                assertFalse(map.containsKey(0));
+                assertEquals(1, map.tombstones());
+
+                map2.bytesStore(bytes2, 0, length2);
+                map.copyTo(map2);
+                assertEquals(95, map2.size());
+                assertEquals(0, map2.tombstones());
+                for (long i = 1; i < 96; i++)
+                    assertEquals(i == 62 ? 620 : i, map2.get(i * 31, -1));
+                assertEquals(-1, map2.put(-7, 1, -1));
+                assertEquals(1, map2.get(-7, -1));
+            }
+        } finally {
+            bytes.releaseLast();
+            bytes2.releaseLast();
+        }
+    }
+
+    @Test
+    public void bytesKeys() {
+        final long length = BinaryBytesLongHashMap.sizeInBytes(16, 12);
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap((int) length);
+        try {
+            BinaryBytesLongHashMap.write(bytes, 16, 12);
+
+            try (BinaryBytesLongHashMap map = new BinaryBytesLongHashMap()) {
+                map.bytesStore(bytes, 0, length);
+                assertEquals(-1, map.put(Bytes.from("hello"), 1, -1));
+                assertEquals(-1, map.put(Bytes.from("hello world"), 2, -1));
+                assertEquals(1, map.get(Bytes.from("hello"), -1));
+                assertEquals(2, map.get(Bytes.from("hello world"), -1));
+                assertEquals(-1, map.get(Bytes.from("hello worlD"), -1));
+                assertEquals(1, map.remove(Bytes.from("hello"), -1));
+                assertFalse(map.containsKey(Bytes.from("hello")));
+                try {
+                    map.put(Bytes.from("much too long a key"), 3, -1);
+                    fail();
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.bytes.FieldGroup;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class BinarySeqLockTest extends BytesTestCommon {
+    @Test
+    public void consistentSnapshots()
+            throws InterruptedException {
+        final long length = 8 + 4 * 8;
+        final Bytes<?> bytes = Bytes.allocateDirect(length);
+        try {
+            BinarySeqLock.write(bytes, 4 * 8);
+
+            try (BinarySeqLock writerLock = new BinarySeqLock(0);
+                 BinarySeqLock readerLock = new BinarySeqLock(0)) {
+                writerLock.bytesStore(bytes, 0, length);
+                readerLock.bytesStore(bytes, 0, length);
+                assertEquals(32, writerLock.dataLength());
+
+                final Quote first = new Quote();
+                first.ask = 1;
+                first.askSize = 1;
+                writerLock.write(first, "quote");
+                assertEquals(2, writerLock.version());
+
+                final AtomicBoolean running = new AtomicBoolean(true);
+                final Thread writer = new Thread(() -> {
+                    final Quote quote = new Quote();
+                    for (long i = 1; running.get(); i++) {
+                        quote.bid = i;
+                        quote.ask = i + 1;
+                        quote.bidSize = i * 10;
+                        quote.askSize = i * 10 + 1;
+                        writerLock.write(quote, "quote");
+                    }
+                });
+                writer.start();
+                try {
+                    final Quote quote = new Quote();
+                    for (int i = 0; i < 100_000; i++) {
+                        readerLock.read(quote, "quote");
+                        assertEquals(quote.bid + 1, quote.ask);
+                        assertEquals(quote.bid * 10, quote.bidSize);
+                        assertEquals(quote.bid * 10 + 1, quote.askSize);
+                    }
+                } finally {
+                    running.set(false);
+                    writer.join();
+                }
+                assertEquals(0, readerLock.version() & 1);
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lengthMismatch() {
+        final Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            BinarySeqLock.write(bytes, 16);
+            try (BinarySeqLock lock = new BinarySeqLock(0)) {
+                lock.bytesStore(bytes, 0, 8 + 16);
+                lock.write(new Quote(), "quote");
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    static final class Quote {
+        @FieldGroup("quote")
+        long bid, ask, bidSize, askSize;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryShortArrayReferenceTest extends BytesTestCommon {
+    private static final int CAPACITY = 100;
+    private static final int LENGTH = CAPACITY * 2 + 2 * 8;
+
+    @Test
+    public void copyAndReduceDirect() {
+        copyAndReduce(Bytes.allocateDirect(LENGTH));
+    }
+
+    @Test
+    public void copyAndReduceOnHeap() {
+        copyAndReduce(Bytes.allocateElasticOnHeap(LENGTH));
+    }
+
+    private void copyAndReduce(Bytes<?> bytes) {
+        try {
+            BinaryShortArrayReference.write(bytes, CAPACITY);
+
+            try (BinaryShortArrayReference array = new BinaryShortArrayReference()) {
+                array.bytesStore(bytes, 0, LENGTH);
+                assertEquals(CAPACITY, array.getCapacity());
+
+                final short[] values = new short[CAPACITY];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = (short) (i * 300 - 15000);
+                values[10] = Short.MIN_VALUE;
+                values[20] = Short.MAX_VALUE;
+                array.copyFrom(0, values, 0, values.length);
+                assertEquals(-15000, array.getValueAt(0));
+                assertEquals(14700, array.getValueAt(99));
+
+                final short[] copy = new short[10];
+                array.copyTo(50, copy, 0, copy.length);
+                for (int i = 0; i < copy.length; i++)
+                    assertEquals(values[50 + i], copy[i]);
+
+                // the sum of i * 300 - 15000 is -15000, less the two values replaced
+                assertEquals(-15000 + 12000 + Short.MIN_VALUE + 9000 + Short.MAX_VALUE, array.sum(0, CAPACITY));
+                assertEquals(Short.MIN_VALUE, array.min(0, CAPACITY));
+                assertEquals(Short.MAX_VALUE, array.max(0, CAPACITY));
+                assertEquals(-8700, array.min(21, 40));
+                assertEquals(-3300, array.max(21, 40));
+                assertEquals(0, array.sum(5, 5));
+                assertEquals(Short.MAX_VALUE, array.min(5, 5));
+                assertEquals(Short.MIN_VALUE, array.max(5, 5));
+
+                assertThrows(IndexOutOfBoundsException.class, () -> array.sum(90, 101));
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
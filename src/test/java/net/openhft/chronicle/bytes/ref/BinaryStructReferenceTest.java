@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinaryStructReferenceTest extends BytesTestCommon {
+    @Test
+    public void readsAndWritesFields() {
+        assertEquals(32, BinaryStructReference.sizeOf(Trade.class));
+        @NotNull BytesStore nbs = BytesStore.nativeStoreWithFixedCapacity(64);
+        Trade trade = BinaryStructReference.newInstance(Trade.class);
+        try {
+            ((Byteable) trade).bytesStore(nbs, 32, 32);
+            trade.setId(12);
+            trade.setPrice(1.5);
+            trade.setBuy(true);
+            trade.setSide('S');
+            assertEquals(5, trade.addQuantity(5));
+            assertEquals(7, trade.addQuantity(2));
+            trade.setFlags((short) -2);
+
+            assertEquals(12, trade.getId());
+            assertEquals(1.5, trade.getPrice(), 0);
+            assertTrue(trade.isBuy());
+            assertEquals('S', trade.getSide());
+            assertEquals(7, trade.getQuantity());
+            assertEquals(-2, trade.getFlags());
+
+            // largest first, after the field with a fixed offset
+            assertEquals(-2, nbs.readShort(32 + 6));
+            assertEquals(12, nbs.readLong(32 + 8));
+            assertEquals(1.5, nbs.readDouble(32 + 16), 0);
+            assertEquals(7, nbs.readInt(32 + 24));
+            assertEquals('S', nbs.readUnsignedShort(32 + 28));
+            assertEquals('Y', nbs.readByte(32 + 30));
+
+            assertFalse(trade.compareAndSwapId(11, 13));
+            assertTrue(trade.compareAndSwapId(12, 13));
+            assertEquals(13, trade.getVolatileId());
+            trade.setOrderedPrice(2.5);
+            assertEquals(2.5, trade.getVolatilePrice(), 0);
+            trade.setVolatileBuy(false);
+            assertFalse(trade.getVolatileBuy());
+
+            assertEquals(32, ((Byteable) trade).maxSize());
+            assertEquals(32, ((Byteable) trade).offset());
+        } finally {
+            ((Closeable) trade).close();
+            nbs.releaseLast();
+        }
+    }
+
+    @Test
+    public void closedReferenceThrows() {
+        Trade trade = BinaryStructReference.newInstance(Trade.class);
+        ((Closeable) trade).close();
+        try {
+            trade.getId();
+            fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedAccessor() {
+        BinaryStructReference.newInstance(NotAStruct.class);
+    }
+
+    interface Trade {
+        long getId();
+
+        void setId(long id);
+
+        long getVolatileId();
+
+        boolean compareAndSwapId(long expected, long value);
+
+        double getPrice();
+
+        void setPrice(double price);
+
+        double getVolatilePrice();
+
+        void setOrderedPrice(double price);
+
+        boolean isBuy();
+
+        void setBuy(boolean buy);
+
+        boolean getVolatileBuy();
+
+        void setVolatileBuy(boolean buy);
+
+        char getSide();
+
+        void setSide(char side);
+
+        int getQuantity();
+
+        int addQuantity(int delta);
+
+        @FieldOffset(6)
+        short getFlags();
+
+        void setFlags(short flags);
+    }
+
+    interface NotAStruct {
+        String getName();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class StripedLongReferenceTest extends BytesTestCommon {
+    @Test
+    public void concurrentAdds() {
+        final long length = StripedLongReference.sizeInBytes(6);
+        assertEquals(64 + 8 * 64, length);
+        final Bytes<?> bytes = Bytes.allocateDirect(length);
+        try {
+            StripedLongReference.write(bytes, 6);
+
+            try (StripedLongReference counter = new StripedLongReference()) {
+                counter.bytesStore(bytes, 0, length);
+                assertEquals(8, counter.stripes());
+
+                IntStream.range(0, 8).parallel().forEach(t -> {
+                    for (int i = 0; i < 10_000; i++)
+                        counter.increment();
+                });
+                counter.add(-5);
+                assertEquals(80_000 - 5, counter.sum());
+
+                assertEquals(80_000 - 5, counter.sumThenReset());
+                assertEquals(0, counter.sum());
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
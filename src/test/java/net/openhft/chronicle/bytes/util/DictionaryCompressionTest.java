@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.*;
+
+public class DictionaryCompressionTest extends BytesTestCommon {
+
+    private static String message(Random rand) {
+        return "8=FIX.4.4|35=D|49=SENDER" + rand.nextInt(5) + "|56=TARGET|34=" + rand.nextInt(100000)
+                + "|11=ORD" + rand.nextInt(1000000) + "|55=EUR/USD|54=" + (1 + rand.nextInt(2))
+                + "|38=" + rand.nextInt(10000) + "|40=2|44=1.0" + rand.nextInt(9999) + "|59=0|";
+    }
+
+    @Test
+    public void compressSmallMessages() {
+        Random rand = new Random(1);
+        List<Bytes<?>> samples = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+            samples.add(Bytes.from(message(rand)));
+        byte[] dictionary = DictionaryTrainer.train(samples, 4096);
+        assertTrue(dictionary.length > 0);
+        assertTrue(dictionary.length <= 4096);
+
+        DictionaryCompression dc = new DictionaryCompression(3, dictionary);
+        Bytes<?> from = Bytes.allocateElasticDirect();
+        Bytes<?> compressed = Bytes.allocateElasticDirect();
+        Bytes<?> uncompressed = Bytes.allocateElasticDirect();
+        try {
+            long plain = 0;
+            long total = 0;
+            for (int i = 0; i < 100; i++) {
+                String message = message(rand);
+                from.clear().append(message);
+                compressed.clear();
+                dc.compress(from, compressed);
+                total += compressed.readRemaining();
+                plain += Compressions.LZW.compress(message.getBytes(ISO_8859_1)).length;
+
+                uncompressed.clear();
+                dc.uncompress(compressed, uncompressed);
+                assertEquals(message, uncompressed.toString());
+                assertEquals(0, compressed.readRemaining());
+            }
+            assertTrue(total + " vs " + plain, total * 2 < plain);
+        } finally {
+            from.releaseLast();
+            compressed.releaseLast();
+            uncompressed.releaseLast();
+            samples.forEach(Bytes::releaseLast);
+        }
+    }
+
+    @Test
+    public void trainNoLargerThanMaxSize() {
+        Random rand = new Random(2);
+        List<Bytes<?>> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            samples.add(Bytes.from(message(rand)));
+        try {
+            // less than one segment, and not a multiple of the segment length
+            for (int maxSize : new int[]{1, 40, DictionaryTrainer.DEFAULT_SEGMENT_LENGTH + 36}) {
+                byte[] dictionary = DictionaryTrainer.train(samples, maxSize);
+                assertTrue(dictionary.length > 0);
+                assertTrue(dictionary.length + " > " + maxSize, dictionary.length <= maxSize);
+            }
+            // the end of a single segment cut short
+            String dictionary = new String(DictionaryTrainer.train(samples, 40), ISO_8859_1);
+            assertTrue(dictionary, samples.stream().anyMatch(b -> b.toString().contains(dictionary)));
+        } finally {
+            samples.forEach(Bytes::releaseLast);
+        }
+    }
+
+    @Test
+    public void byteArrays() {
+        DictionaryCompression dc = new DictionaryCompression(1, "hello world, hello dictionary".getBytes(ISO_8859_1));
+        byte[] bytes = "hello world".getBytes(ISO_8859_1);
+        assertArrayEquals(bytes, dc.uncompress(dc.compress(bytes)));
+    }
+
+    @Test(expected = IORuntimeException.class)
+    public void versionMismatch() {
+        byte[] dictionary = "hello world, hello dictionary".getBytes(ISO_8859_1);
+        DictionaryCompression v1 = new DictionaryCompression(1, dictionary);
+        DictionaryCompression v2 = new DictionaryCompression(2, dictionary);
+        Bytes<?> from = Bytes.from("hello world");
+        Bytes<?> compressed = Bytes.allocateElasticOnHeap();
+        Bytes<?> uncompressed = Bytes.allocateElasticOnHeap();
+        try {
+            v1.compress(from, compressed);
+            v2.uncompress(compressed, uncompressed);
+        } finally {
+            from.releaseLast();
+            compressed.releaseLast();
+            uncompressed.releaseLast();
+        }
+    }
+}
@@ -78,4 +78,31 @@ public class GzipTest extends BytesTestCommon {
         bytes3.releaseLast();
         bytes6.releaseLast();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void directToDirect() {
+        @NotNull byte[] bytes = new byte[100_000];
+        @NotNull Random rand = new Random(1);
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) ('A' + rand.nextInt(4));
+        Bytes<?> from = Bytes.allocateElasticDirect();
+        Bytes<?> compressed = Bytes.allocateElasticDirect();
+        Bytes<?> uncompressed = Bytes.allocateElasticDirect();
+        try {
+            from.write(bytes);
+            GZIP.compress(from, compressed);
+            assertEquals(bytes.length, from.readRemaining());
+            assertArrayEquals(GZIP.compress(bytes), compressed.toByteArray());
+
+            // trailing data is left unread
+            compressed.append("tail");
+            GZIP.uncompress(compressed, uncompressed);
+            assertArrayEquals(bytes, uncompressed.toByteArray());
+            assertEquals("tail", compressed.toString());
+        } finally {
+            from.releaseLast();
+            compressed.releaseLast();
+            uncompressed.releaseLast();
+        }
+    }
+}
@@ -75,4 +75,31 @@ public class LZWTest extends BytesTestCommon {
         bytes3.releaseLast();
         bytes6.releaseLast();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void directToDirect() {
+        @NotNull byte[] bytes = new byte[100_000];
+        @NotNull Random rand = new Random(1);
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) ('A' + rand.nextInt(4));
+        Bytes<?> from = Bytes.allocateElasticDirect();
+        Bytes<?> compressed = Bytes.allocateElasticDirect();
+        Bytes<?> uncompressed = Bytes.allocateElasticDirect();
+        try {
+            from.write(bytes);
+            LZW.compress(from, compressed);
+            assertEquals(bytes.length, from.readRemaining());
+            assertArrayEquals(LZW.compress(bytes), compressed.toByteArray());
+
+            // trailing data is left unread
+            compressed.append("tail");
+            LZW.uncompress(compressed, uncompressed);
+            assertArrayEquals(bytes, uncompressed.toByteArray());
+            assertEquals("tail", compressed.toString());
+        } finally {
+            from.releaseLast();
+            compressed.releaseLast();
+            uncompressed.releaseLast();
+        }
+    }
+}
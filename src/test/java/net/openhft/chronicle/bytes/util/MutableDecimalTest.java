@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.util;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class MutableDecimalTest extends BytesTestCommon {
+
+    @Test
+    public void parseAndAppend() {
+        Bytes<?> bytes = Bytes.from("1.2345 -101.50 42 0.0001 -0.5 9223372036854775807 1.10000000000000000000000]");
+        Bytes<?> out = Bytes.allocateElasticOnHeap();
+        try {
+            MutableDecimal decimal = new MutableDecimal();
+            assertEquals(new MutableDecimal(12345, 4), bytes.parseDecimal(decimal));
+            assertEquals(new MutableDecimal(-10150, 2), bytes.parseDecimal(decimal));
+            assertEquals(2, bytes.lastDecimalPlaces());
+            assertEquals(new MutableDecimal(42, 0), bytes.parseDecimal(decimal));
+            assertEquals(new MutableDecimal(1, 4), bytes.parseDecimal(decimal));
+            assertEquals(new MutableDecimal(-5, 1), bytes.parseDecimal(decimal));
+            assertEquals(new MutableDecimal(Long.MAX_VALUE, 0), bytes.parseDecimal(decimal));
+            // trailing zeros which don't fit are dropped
+            bytes.parseDecimal(decimal);
+            assertEquals(new BigDecimal("1.1"), decimal.toBigDecimal().stripTrailingZeros());
+            assertEquals(']', bytes.readUnsignedByte());
+
+            out.appendDecimal(new MutableDecimal(-10150, 2)).append(' ')
+                    .appendDecimal(new MutableDecimal(1, 4)).append(' ')
+                    .appendDecimal(new MutableDecimal(42, 0));
+            assertEquals("-101.50 0.0001 42", out.toString());
+            assertEquals("-101.50", new MutableDecimal(-10150, 2).toString());
+        } finally {
+            bytes.releaseLast();
+            out.releaseLast();
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void tooManyDigits() {
+        Bytes<?> bytes = Bytes.from("1.00000000000000000001 ");
+        try {
+            bytes.parseDecimal(new MutableDecimal());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void writeAndRead() {
+        Bytes<?> bytes = Bytes.allocateElasticDirect();
+        try {
+            MutableDecimal[] decimals = {
+                    new MutableDecimal(12345, 4),
+                    new MutableDecimal(-1, 8),
+                    new MutableDecimal(Long.MIN_VALUE, 18),
+                    new MutableDecimal().set(101.125, 3)};
+            for (MutableDecimal decimal : decimals)
+                bytes.writeDecimal(decimal);
+            assertEquals(3 + 3 + 11 + 4, bytes.readRemaining());
+            MutableDecimal decimal = new MutableDecimal();
+            for (MutableDecimal expected : decimals)
+                assertEquals(expected, bytes.readDecimal(decimal));
+            assertEquals(0, bytes.readRemaining());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void doubleValue() {
+        assertEquals(101.125, new MutableDecimal(101125, 3).doubleValue(), 0.0);
+        assertEquals(-0.1, new MutableDecimal(-1, 1).doubleValue(), 0.0);
+        assertEquals(1.2345678901234567E-6, new MutableDecimal(12345678901234567L, 22).doubleValue(), 0.0);
+        assertEquals(new MutableDecimal(123, 2), new MutableDecimal().set(1.23, 2));
+        assertNotEquals(new MutableDecimal(15, 1), new MutableDecimal(150, 2));
+    }
+}